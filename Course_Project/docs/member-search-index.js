@@ -1 +1 @@
-memberSearchIndex = [{"p":"graph","c":"Node","l":"addEdge(Node)","u":"addEdge(graph.Node)"},{"p":"graph","c":"Topic","l":"addPublisher(Agent)","u":"addPublisher(graph.Agent)"},{"p":"server","c":"HTTPServer","l":"addServlet(String, String, Servlet)","u":"addServlet(java.lang.String,java.lang.String,servlets.Servlet)"},{"p":"server","c":"MyHTTPServer","l":"addServlet(String, String, Servlet)","u":"addServlet(java.lang.String,java.lang.String,servlets.Servlet)"},{"p":"graph","c":"Message","l":"asDouble"},{"p":"graph","c":"Message","l":"asText"},{"p":"graph","c":"BinOpAgent","l":"BinOpAgent(String, String, String, String, BinaryOperator<Double>)","u":"%3Cinit%3E(java.lang.String,java.lang.String,java.lang.String,java.lang.String,java.util.function.BinaryOperator)"},{"p":"graph","c":"Agent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"BinOpAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"IncAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"IndexAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"ParallelAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"PlusAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"SortAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"clear()"},{"p":"configs","c":"GenericConfig","l":"close()"},{"p":"graph","c":"Agent","l":"close()"},{"p":"graph","c":"BinOpAgent","l":"close()"},{"p":"graph","c":"IncAgent","l":"close()"},{"p":"graph","c":"IndexAgent","l":"close()"},{"p":"graph","c":"ParallelAgent","l":"close()"},{"p":"graph","c":"PlusAgent","l":"close()"},{"p":"graph","c":"SortAgent","l":"close()"},{"p":"server","c":"HTTPServer","l":"close()"},{"p":"server","c":"MyHTTPServer","l":"close()"},{"p":"servlets","c":"ConfLoader","l":"close()"},{"p":"servlets","c":"HtmlLoader","l":"close()"},{"p":"servlets","c":"Servlet","l":"close()"},{"p":"servlets","c":"TopicDisplayer","l":"close()"},{"p":"servlets","c":"ConfLoader","l":"ConfLoader(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"configs","c":"Config","l":"create()"},{"p":"configs","c":"GenericConfig","l":"create()"},{"p":"configs","c":"MathExampleConfig","l":"create()"},{"p":"graph","c":"Graph","l":"createFromTopics()"},{"p":"servlets","c":"ConfLoader","l":"createGraph()"},{"p":"servlets","c":"ConfLoader","l":"createTable()"},{"p":"graph","c":"Message","l":"data"},{"p":"graph","c":"Message","l":"date"},{"p":"graph","c":"Agent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"BinOpAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"IncAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"IndexAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"ParallelAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"PlusAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"SortAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"configs","c":"GenericConfig","l":"GenericConfig()","u":"%3Cinit%3E()"},{"p":"graph","c":"TopicManagerSingleton","l":"get()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getContent()"},{"p":"graph","c":"Node","l":"getEdges()"},{"p":"views","c":"HtmlGraphWriter","l":"getGraphHTML(Graph, String)","u":"getGraphHTML(graph.Graph,java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getHttpCommand()"},{"p":"graph","c":"Node","l":"getMessage()"},{"p":"graph","c":"Topic","l":"getMessage()"},{"p":"configs","c":"Config","l":"getName()"},{"p":"configs","c":"GenericConfig","l":"getName()"},{"p":"configs","c":"MathExampleConfig","l":"getName()"},{"p":"graph","c":"Agent","l":"getName()"},{"p":"graph","c":"BinOpAgent","l":"getName()"},{"p":"graph","c":"IncAgent","l":"getName()"},{"p":"graph","c":"IndexAgent","l":"getName()"},{"p":"graph","c":"Node","l":"getName()"},{"p":"graph","c":"ParallelAgent","l":"getName()"},{"p":"graph","c":"PlusAgent","l":"getName()"},{"p":"graph","c":"SortAgent","l":"getName()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getParameters()"},{"p":"graph","c":"Topic","l":"getPubs()"},{"p":"graph","c":"Topic","l":"getSubs()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getTopic(String)","u":"getTopic(java.lang.String)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getTopics()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getUri()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getUriSegments()"},{"p":"configs","c":"Config","l":"getVersion()"},{"p":"configs","c":"GenericConfig","l":"getVersion()"},{"p":"configs","c":"MathExampleConfig","l":"getVersion()"},{"p":"graph","c":"Graph","l":"Graph()","u":"%3Cinit%3E()"},{"p":"servlets","c":"ConfLoader","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"HtmlLoader","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"Servlet","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"TopicDisplayer","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"graph","c":"Graph","l":"hasCycles()"},{"p":"graph","c":"Node","l":"hasCycles()"},{"p":"graph","c":"Node","l":"hasCycles(Set<Node>, Set<Node>)","u":"hasCycles(java.util.Set,java.util.Set)"},{"p":"views","c":"HtmlGraphWriter","l":"HtmlGraphWriter()","u":"%3Cinit%3E()"},{"p":"servlets","c":"HtmlLoader","l":"HtmlLoader(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"graph","c":"IncAgent","l":"IncAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"graph","c":"IndexAgent","l":"IndexAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"configs","c":"MathExampleConfig","l":"MathExampleConfig()","u":"%3Cinit%3E()"},{"p":"graph","c":"Message","l":"Message(byte[])","u":"%3Cinit%3E(byte[])"},{"p":"graph","c":"Message","l":"Message(double)","u":"%3Cinit%3E(double)"},{"p":"graph","c":"Message","l":"Message(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"server","c":"MyHTTPServer","l":"MyHTTPServer(int, int)","u":"%3Cinit%3E(int,int)"},{"p":"graph","c":"Topic","l":"name"},{"p":"graph","c":"Node","l":"Node(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"graph","c":"ParallelAgent","l":"ParallelAgent(Agent, int)","u":"%3Cinit%3E(graph.Agent,int)"},{"p":"server","c":"RequestParser","l":"parseRequest(BufferedReader)","u":"parseRequest(java.io.BufferedReader)"},{"p":"graph","c":"PlusAgent","l":"PlusAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"server","c":"RequestParser.RequestInfo","l":"print()"},{"p":"graph","c":"Topic","l":"publish(Message)","u":"publish(graph.Message)"},{"p":"graph","c":"Topic","l":"removePublisher(Agent)","u":"removePublisher(graph.Agent)"},{"p":"server","c":"HTTPServer","l":"removeServlet(String, String)","u":"removeServlet(java.lang.String,java.lang.String)"},{"p":"server","c":"MyHTTPServer","l":"removeServlet(String, String)","u":"removeServlet(java.lang.String,java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"RequestInfo(String, String, String[], Map<String, String>, byte[])","u":"%3Cinit%3E(java.lang.String,java.lang.String,java.lang.String[],java.util.Map,byte[])"},{"p":"server","c":"RequestParser","l":"RequestParser()","u":"%3Cinit%3E()"},{"p":"graph","c":"Agent","l":"reset()"},{"p":"graph","c":"BinOpAgent","l":"reset()"},{"p":"graph","c":"IncAgent","l":"reset()"},{"p":"graph","c":"IndexAgent","l":"reset()"},{"p":"graph","c":"ParallelAgent","l":"reset()"},{"p":"graph","c":"PlusAgent","l":"reset()"},{"p":"graph","c":"SortAgent","l":"reset()"},{"p":"server","c":"MyHTTPServer","l":"run()"},{"p":"configs","c":"GenericConfig","l":"setConfFile(String)","u":"setConfFile(java.lang.String)"},{"p":"graph","c":"Node","l":"setEdges(List<Node>)","u":"setEdges(java.util.List)"},{"p":"graph","c":"Node","l":"setMessage(Message)","u":"setMessage(graph.Message)"},{"p":"graph","c":"Node","l":"setName(String)","u":"setName(java.lang.String)"},{"p":"graph","c":"SortAgent","l":"SortAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"server","c":"HTTPServer","l":"start()"},{"p":"server","c":"MyHTTPServer","l":"start()"},{"p":"graph","c":"Topic","l":"subscribe(Agent)","u":"subscribe(graph.Agent)"},{"p":"servlets","c":"TopicDisplayer","l":"TopicDisplayer()","u":"%3Cinit%3E()"},{"p":"graph","c":"TopicManagerSingleton","l":"TopicManagerSingleton()","u":"%3Cinit%3E()"},{"p":"graph","c":"Topic","l":"unsubscribe(Agent)","u":"unsubscribe(graph.Agent)"}];updateSearchResults();
\ No newline at end of file
+memberSearchIndex = [{"p":"graph","c":"BinaryOps","l":"ADD"},{"p":"graph","c":"Node","l":"addEdge(Node)","u":"addEdge(graph.Node)"},{"p":"graph","c":"Topic","l":"addPublisher(Agent)","u":"addPublisher(graph.Agent)"},{"p":"server","c":"HTTPServer","l":"addServlet(String, String, Servlet)","u":"addServlet(java.lang.String,java.lang.String,servlets.Servlet)"},{"p":"server","c":"MyHTTPServer","l":"addServlet(String, String, Servlet)","u":"addServlet(java.lang.String,java.lang.String,servlets.Servlet)"},{"p":"server","c":"NioHTTPServer","l":"addServlet(String, String, Servlet)","u":"addServlet(java.lang.String,java.lang.String,servlets.Servlet)"},{"p":"graph","c":"Node.Kind","l":"AGENT"},{"p":"graph","c":"DoubleLists","l":"append(StringBuilder, double)","u":"append(java.lang.StringBuilder,double)"},{"p":"graph","c":"Message","l":"asDouble()"},{"p":"graph","c":"Message","l":"asText()"},{"p":"graph","c":"BinOpAgent","l":"BinOpAgent(String, String, String, String, DoubleBinaryOperator)","u":"%3Cinit%3E(java.lang.String,java.lang.String,java.lang.String,java.lang.String,java.util.function.DoubleBinaryOperator)"},{"p":"graph","c":"BinOpAgent","l":"BinOpAgent(String, String[], String[])","u":"%3Cinit%3E(java.lang.String,java.lang.String[],java.lang.String[])"},{"p":"graph","c":"Backpressure","l":"BLOCK"},{"p":"configs","c":"Settings","l":"booleanValue(String, String, boolean)","u":"booleanValue(java.lang.String,java.lang.String,boolean)"},{"p":"server","c":"MultipartReader","l":"boundaryOf(String)","u":"boundaryOf(java.lang.String)"},{"p":"graph","c":"BinaryOps","l":"byName(String)","u":"byName(java.lang.String)"},{"p":"graph","c":"Agent","l":"callback(Map<String, Message>)","u":"callback(java.util.Map)"},{"p":"graph","c":"BinOpAgent","l":"callback(Map<String, Message>)","u":"callback(java.util.Map)"},{"p":"graph","c":"ExpressionAgent","l":"callback(Map<String, Message>)","u":"callback(java.util.Map)"},{"p":"graph","c":"PlusAgent","l":"callback(Map<String, Message>)","u":"callback(java.util.Map)"},{"p":"graph","c":"Agent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"BinOpAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"ExpressionAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"IncAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"IndexAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"OrderStatisticAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"ParallelAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"PlusAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"SortAgent","l":"callback(String, Message)","u":"callback(java.lang.String,graph.Message)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"clear()"},{"p":"configs","c":"GenericConfig","l":"close()"},{"p":"graph","c":"Agent","l":"close()"},{"p":"graph","c":"BinOpAgent","l":"close()"},{"p":"graph","c":"ExpressionAgent","l":"close()"},{"p":"graph","c":"IncAgent","l":"close()"},{"p":"graph","c":"IndexAgent","l":"close()"},{"p":"graph","c":"OrderStatisticAgent","l":"close()"},{"p":"graph","c":"ParallelAgent","l":"close()"},{"p":"graph","c":"PlusAgent","l":"close()"},{"p":"graph","c":"SortAgent","l":"close()"},{"p":"server","c":"HTTPServer","l":"close()"},{"p":"server","c":"MyHTTPServer","l":"close()"},{"p":"server","c":"NioHTTPServer","l":"close()"},{"p":"server","c":"ResponseStream","l":"close()"},{"p":"servlets","c":"ConfLoader","l":"close()"},{"p":"servlets","c":"HtmlLoader","l":"close()"},{"p":"servlets","c":"Servlet","l":"close()"},{"p":"servlets","c":"TopicDisplayer","l":"close()"},{"p":"configs","c":"GenericConfig","l":"configure(Properties)","u":"configure(java.util.Properties)"},{"p":"servlets","c":"ConfLoader","l":"ConfLoader(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"servlets","c":"ConfLoader","l":"ConfLoader(String, GenericConfig)","u":"%3Cinit%3E(java.lang.String,configs.GenericConfig)"},{"p":"configs","c":"Config","l":"create()"},{"p":"configs","c":"GenericConfig","l":"create()"},{"p":"configs","c":"MathExampleConfig","l":"create()"},{"p":"configs","c":"GenericConfig","l":"create(BufferedReader)","u":"create(java.io.BufferedReader)"},{"p":"graph","c":"Graph","l":"createFromTopics()"},{"p":"servlets","c":"ConfLoader","l":"createGraph()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"createsCycle(Agent)","u":"createsCycle(graph.Agent)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"createsCycle(String[], String[])","u":"createsCycle(java.lang.String[],java.lang.String[])"},{"p":"server","c":"ServerConfig","l":"createServer()"},{"p":"servlets","c":"ConfLoader","l":"createTable()"},{"p":"graph","c":"GraphLogger.Level","l":"DEBUG"},{"p":"graph","c":"GraphLogger","l":"debug(String)","u":"debug(java.lang.String)"},{"p":"graph","c":"BinaryOps","l":"DIV"},{"p":"graph","c":"Backpressure","l":"DROP_OLDEST"},{"p":"graph","c":"CompactGraph","l":"edgeCount()"},{"p":"graph","c":"CompactGraph","l":"edgeEnd(int)"},{"p":"graph","c":"CompactGraph","l":"edgeStart(int)"},{"p":"graph","c":"CompactGraph","l":"edgeTarget(int)"},{"p":"configs","c":"Settings","l":"enumValue(String, String, E)","u":"enumValue(java.lang.String,java.lang.String,E)"},{"p":"graph","c":"Agent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"BinOpAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"ExpressionAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"IncAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"IndexAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"OrderStatisticAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"ParallelAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"PlusAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"SortAgent","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"graph","c":"ExpressionAgent","l":"ExpressionAgent(String, String[], String[])","u":"%3Cinit%3E(java.lang.String,java.lang.String[],java.lang.String[])"},{"p":"server","c":"ResponseStream","l":"flush()"},{"p":"graph","c":"DoubleLists","l":"format(double[], int, int)","u":"format(double[],int,int)"},{"p":"server","c":"ServerConfig","l":"fromProperties(Properties)","u":"fromProperties(java.util.Properties)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"fuseChains()"},{"p":"configs","c":"GenericConfig","l":"GenericConfig()","u":"%3Cinit%3E()"},{"p":"graph","c":"TopicManagerSingleton","l":"get()"},{"p":"server","c":"ServerConfig","l":"getBacklog()"},{"p":"configs","c":"GenericConfig","l":"getBackpressure()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getBody()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getCompactGraph()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getContent()"},{"p":"graph","c":"Message","l":"getData()"},{"p":"graph","c":"Message","l":"getDate()"},{"p":"graph","c":"Node","l":"getEdges()"},{"p":"configs","c":"GenericConfig","l":"getExecutionMode()"},{"p":"server","c":"MultipartReader","l":"getFileName()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getGraph()"},{"p":"views","c":"HtmlGraphWriter","l":"getGraphHTML(CompactGraph, String)","u":"getGraphHTML(graph.CompactGraph,java.lang.String)"},{"p":"views","c":"HtmlGraphWriter","l":"getGraphHTML(Graph, String)","u":"getGraphHTML(graph.Graph,java.lang.String)"},{"p":"server","c":"MultipartReader","l":"getHeader(String)","u":"getHeader(java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getHeader(String)","u":"getHeader(java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getHeaders()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getHttpCommand()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getHttpVersion()"},{"p":"server","c":"ServerConfig","l":"getIdleTimeout()"},{"p":"graph","c":"Node","l":"getKind()"},{"p":"graph","c":"CompactGraph","l":"getKind(int)"},{"p":"graph","c":"GraphLogger","l":"getLevel()"},{"p":"server","c":"ServerConfig","l":"getMaxConnections()"},{"p":"graph","c":"Node","l":"getMessage()"},{"p":"graph","c":"Topic","l":"getMessage()"},{"p":"graph","c":"CompactGraph","l":"getMessage(int)"},{"p":"server","c":"ServerConfig","l":"getMode()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getMultipart()"},{"p":"configs","c":"Config","l":"getName()"},{"p":"configs","c":"GenericConfig","l":"getName()"},{"p":"configs","c":"MathExampleConfig","l":"getName()"},{"p":"graph","c":"Agent","l":"getName()"},{"p":"graph","c":"BinOpAgent","l":"getName()"},{"p":"graph","c":"ExpressionAgent","l":"getName()"},{"p":"graph","c":"IncAgent","l":"getName()"},{"p":"graph","c":"IndexAgent","l":"getName()"},{"p":"graph","c":"Node","l":"getName()"},{"p":"graph","c":"OrderStatisticAgent","l":"getName()"},{"p":"graph","c":"ParallelAgent","l":"getName()"},{"p":"graph","c":"PlusAgent","l":"getName()"},{"p":"graph","c":"SortAgent","l":"getName()"},{"p":"server","c":"MultipartReader","l":"getName()"},{"p":"graph","c":"CompactGraph","l":"getName(int)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getParameters()"},{"p":"server","c":"MultipartReader","l":"getPartStream()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getPathParameter(String)","u":"getPathParameter(java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getPathParameters()"},{"p":"server","c":"ServerConfig","l":"getPort()"},{"p":"graph","c":"Topic","l":"getPubs()"},{"p":"graph","c":"Topic","l":"getSubs()"},{"p":"server","c":"ServerConfig","l":"getThreads()"},{"p":"graph","c":"Message","l":"getTimestamp()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getTopic(String)","u":"getTopic(java.lang.String)"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getTopics()"},{"p":"graph","c":"TopicManagerSingleton.TopicManager","l":"getTopicsOf(Agent)","u":"getTopicsOf(graph.Agent)"},{"p":"server","c":"RequestParser.RequestInfo","l":"getUri()"},{"p":"server","c":"RequestParser.RequestInfo","l":"getUriSegments()"},{"p":"configs","c":"Config","l":"getVersion()"},{"p":"configs","c":"GenericConfig","l":"getVersion()"},{"p":"configs","c":"MathExampleConfig","l":"getVersion()"},{"p":"graph","c":"Graph","l":"Graph()","u":"%3Cinit%3E()"},{"p":"servlets","c":"ConfLoader","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"HtmlLoader","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"Servlet","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"servlets","c":"TopicDisplayer","l":"handle(RequestParser.RequestInfo, OutputStream)","u":"handle(server.RequestParser.RequestInfo,java.io.OutputStream)"},{"p":"server","c":"RequestParser","l":"hasBufferedInput()"},{"p":"graph","c":"CompactGraph","l":"hasCycles()"},{"p":"graph","c":"Graph","l":"hasCycles()"},{"p":"graph","c":"Node","l":"hasCycles()"},{"p":"graph","c":"Node","l":"hasCycles(Set<Node>, Set<Node>)","u":"hasCycles(java.util.Set,java.util.Set)"},{"p":"graph","c":"Agent","l":"hashCode()"},{"p":"graph","c":"BinOpAgent","l":"hashCode()"},{"p":"graph","c":"ExpressionAgent","l":"hashCode()"},{"p":"graph","c":"IncAgent","l":"hashCode()"},{"p":"graph","c":"IndexAgent","l":"hashCode()"},{"p":"graph","c":"OrderStatisticAgent","l":"hashCode()"},{"p":"graph","c":"ParallelAgent","l":"hashCode()"},{"p":"graph","c":"PlusAgent","l":"hashCode()"},{"p":"graph","c":"SortAgent","l":"hashCode()"},{"p":"views","c":"HtmlGraphWriter","l":"HtmlGraphWriter()","u":"%3Cinit%3E()"},{"p":"servlets","c":"HtmlLoader","l":"HtmlLoader(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"graph","c":"IncAgent","l":"IncAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"graph","c":"IndexAgent","l":"IndexAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"graph","c":"GraphLogger.Level","l":"INFO"},{"p":"configs","c":"Settings","l":"intValue(String, String, int)","u":"intValue(java.lang.String,java.lang.String,int)"},{"p":"configs","c":"Settings","l":"invalid(String, String, T)","u":"invalid(java.lang.String,java.lang.String,T)"},{"p":"graph","c":"GraphLogger","l":"isEnabled(GraphLogger.Level)","u":"isEnabled(graph.GraphLogger.Level)"},{"p":"graph","c":"ParallelAgent","l":"isFused()"},{"p":"configs","c":"GenericConfig","l":"isFusion()"},{"p":"server","c":"RequestParser.RequestInfo","l":"isKeepAlive()"},{"p":"server","c":"ServerConfig","l":"load(String)","u":"load(java.lang.String)"},{"p":"configs","c":"MathExampleConfig","l":"MathExampleConfig()","u":"%3Cinit%3E()"},{"p":"graph","c":"BinaryOps","l":"MAX"},{"p":"graph","c":"Message","l":"Message(byte[])","u":"%3Cinit%3E(byte[])"},{"p":"graph","c":"Message","l":"Message(double)","u":"%3Cinit%3E(double)"},{"p":"graph","c":"Message","l":"Message(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"graph","c":"BinaryOps","l":"MIN"},{"p":"graph","c":"BinaryOps","l":"MUL"},{"p":"server","c":"MultipartReader","l":"MultipartReader(InputStream, String)","u":"%3Cinit%3E(java.io.InputStream,java.lang.String)"},{"p":"server","c":"MyHTTPServer","l":"MyHTTPServer(int, int)","u":"%3Cinit%3E(int,int)"},{"p":"server","c":"MyHTTPServer","l":"MyHTTPServer(ServerConfig)","u":"%3Cinit%3E(server.ServerConfig)"},{"p":"graph","c":"Topic","l":"name"},{"p":"graph","c":"BinaryOps","l":"names()"},{"p":"server","c":"RequestParser","l":"next()"},{"p":"server","c":"MultipartReader","l":"nextPart()"},{"p":"server","c":"ServerConfig.Mode","l":"NIO"},{"p":"server","c":"NioHTTPServer","l":"NioHTTPServer(int, int)","u":"%3Cinit%3E(int,int)"},{"p":"server","c":"NioHTTPServer","l":"NioHTTPServer(ServerConfig)","u":"%3Cinit%3E(server.ServerConfig)"},{"p":"graph","c":"Node","l":"Node(String)","u":"%3Cinit%3E(java.lang.String)"},{"p":"graph","c":"Node","l":"Node(String, Node.Kind)","u":"%3Cinit%3E(java.lang.String,graph.Node.Kind)"},{"p":"graph","c":"CompactGraph","l":"of(Graph)","u":"of(graph.Graph)"},{"p":"graph","c":"GraphLogger.Level","l":"OFF"},{"p":"graph","c":"OrderStatisticAgent","l":"OrderStatisticAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"graph","c":"ParallelAgent","l":"ParallelAgent(Agent, int)","u":"%3Cinit%3E(graph.Agent,int)"},{"p":"graph","c":"ParallelAgent","l":"ParallelAgent(Agent, int, ExecutionMode)","u":"%3Cinit%3E(graph.Agent,int,graph.ExecutionMode)"},{"p":"graph","c":"ParallelAgent","l":"ParallelAgent(Agent, int, ExecutionMode, Backpressure)","u":"%3Cinit%3E(graph.Agent,int,graph.ExecutionMode,graph.Backpressure)"},{"p":"graph","c":"DoubleLists","l":"parse(String)","u":"parse(java.lang.String)"},{"p":"server","c":"RequestParser","l":"parseRequest(InputStream)","u":"parseRequest(java.io.InputStream)"},{"p":"graph","c":"PlusAgent","l":"PlusAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"graph","c":"ExecutionMode","l":"POOL"},{"p":"server","c":"ServerConfig.Mode","l":"POOL"},{"p":"graph","c":"BinaryOps","l":"POW"},{"p":"server","c":"RequestParser.RequestInfo","l":"print()"},{"p":"graph","c":"PropagationBatch","l":"publish(Map<String, Message>)","u":"publish(java.util.Map)"},{"p":"graph","c":"Topic","l":"publish(Message)","u":"publish(graph.Message)"},{"p":"graph","c":"Topic","l":"publishAsync(Message)","u":"publishAsync(graph.Message)"},{"p":"server","c":"ServerConfig","l":"readProperties(String)","u":"readProperties(java.lang.String)"},{"p":"graph","c":"Backpressure","l":"REJECT"},{"p":"graph","c":"Topic","l":"removePublisher(Agent)","u":"removePublisher(graph.Agent)"},{"p":"server","c":"HTTPServer","l":"removeServlet(String, String)","u":"removeServlet(java.lang.String,java.lang.String)"},{"p":"server","c":"MyHTTPServer","l":"removeServlet(String, String)","u":"removeServlet(java.lang.String,java.lang.String)"},{"p":"server","c":"NioHTTPServer","l":"removeServlet(String, String)","u":"removeServlet(java.lang.String,java.lang.String)"},{"p":"server","c":"RequestParser.RequestInfo","l":"RequestInfo(String, String, String[], Map<String, String>, byte[])","u":"%3Cinit%3E(java.lang.String,java.lang.String,java.lang.String[],java.util.Map,byte[])"},{"p":"server","c":"RequestParser.RequestInfo","l":"RequestInfo(String, String, String[], Map<String, String>, byte[], String, Map<String, String>)","u":"%3Cinit%3E(java.lang.String,java.lang.String,java.lang.String[],java.util.Map,byte[],java.lang.String,java.util.Map)"},{"p":"server","c":"RequestParser","l":"RequestParser(ByteBuffer)","u":"%3Cinit%3E(java.nio.ByteBuffer)"},{"p":"server","c":"RequestParser","l":"RequestParser(InputStream)","u":"%3Cinit%3E(java.io.InputStream)"},{"p":"graph","c":"Agent","l":"reset()"},{"p":"graph","c":"BinOpAgent","l":"reset()"},{"p":"graph","c":"ExpressionAgent","l":"reset()"},{"p":"graph","c":"IncAgent","l":"reset()"},{"p":"graph","c":"IndexAgent","l":"reset()"},{"p":"graph","c":"OrderStatisticAgent","l":"reset()"},{"p":"graph","c":"ParallelAgent","l":"reset()"},{"p":"graph","c":"PlusAgent","l":"reset()"},{"p":"graph","c":"SortAgent","l":"reset()"},{"p":"server","c":"MyHTTPServer","l":"run()"},{"p":"server","c":"NioHTTPServer","l":"run()"},{"p":"graph","c":"PropagationBatch","l":"run(Runnable)","u":"run(java.lang.Runnable)"},{"p":"server","c":"ServerConfig","l":"ServerConfig()","u":"%3Cinit%3E()"},{"p":"server","c":"ServerConfig","l":"setBacklog(int)"},{"p":"configs","c":"GenericConfig","l":"setBackpressure(Backpressure)","u":"setBackpressure(graph.Backpressure)"},{"p":"configs","c":"GenericConfig","l":"setConfFile(String)","u":"setConfFile(java.lang.String)"},{"p":"graph","c":"Node","l":"setEdges(List<Node>)","u":"setEdges(java.util.List)"},{"p":"configs","c":"GenericConfig","l":"setExecutionMode(ExecutionMode)","u":"setExecutionMode(graph.ExecutionMode)"},{"p":"configs","c":"GenericConfig","l":"setFusion(boolean)"},{"p":"server","c":"ServerConfig","l":"setIdleTimeout(int)"},{"p":"graph","c":"GraphLogger","l":"setLevel(GraphLogger.Level)","u":"setLevel(graph.GraphLogger.Level)"},{"p":"server","c":"ServerConfig","l":"setMaxConnections(int)"},{"p":"graph","c":"Node","l":"setMessage(Message)","u":"setMessage(graph.Message)"},{"p":"server","c":"ServerConfig","l":"setMode(ServerConfig.Mode)","u":"setMode(server.ServerConfig.Mode)"},{"p":"graph","c":"Node","l":"setName(String)","u":"setName(java.lang.String)"},{"p":"server","c":"ServerConfig","l":"setPort(int)"},{"p":"graph","c":"GraphLogger","l":"setSink(Consumer<String>)","u":"setSink(java.util.function.Consumer)"},{"p":"server","c":"ServerConfig","l":"setThreads(int)"},{"p":"graph","c":"CompactGraph","l":"size()"},{"p":"graph","c":"SortAgent","l":"SortAgent(String[], String[])","u":"%3Cinit%3E(java.lang.String[],java.lang.String[])"},{"p":"server","c":"HTTPServer","l":"start()"},{"p":"server","c":"MyHTTPServer","l":"start()"},{"p":"server","c":"NioHTTPServer","l":"start()"},{"p":"graph","c":"BinaryOps","l":"SUB"},{"p":"graph","c":"Topic","l":"subscribe(Agent)","u":"subscribe(graph.Agent)"},{"p":"graph","c":"ExecutionMode","l":"THREAD"},{"p":"graph","c":"Node.Kind","l":"TOPIC"},{"p":"servlets","c":"TopicDisplayer","l":"TopicDisplayer()","u":"%3Cinit%3E()"},{"p":"servlets","c":"TopicDisplayer","l":"TopicDisplayer(boolean)","u":"%3Cinit%3E(boolean)"},{"p":"graph","c":"TopicManagerSingleton","l":"TopicManagerSingleton()","u":"%3Cinit%3E()"},{"p":"graph","c":"CompactGraph","l":"topologicalOrder()"},{"p":"server","c":"ResponseStream","l":"transferFrom(FileChannel, long, long)","u":"transferFrom(java.nio.channels.FileChannel,long,long)"},{"p":"graph","c":"Topic","l":"unsubscribe(Agent)","u":"unsubscribe(graph.Agent)"},{"p":"graph","c":"Backpressure","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"graph","c":"ExecutionMode","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"graph","c":"GraphLogger.Level","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"graph","c":"Node.Kind","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"server","c":"ServerConfig.Mode","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"graph","c":"Backpressure","l":"values()"},{"p":"graph","c":"ExecutionMode","l":"values()"},{"p":"graph","c":"GraphLogger.Level","l":"values()"},{"p":"graph","c":"Node.Kind","l":"values()"},{"p":"server","c":"ServerConfig.Mode","l":"values()"},{"p":"graph","c":"ExecutionMode","l":"VIRTUAL"},{"p":"server","c":"ServerConfig.Mode","l":"VIRTUAL"},{"p":"graph","c":"GraphLogger.Level","l":"WARN"},{"p":"server","c":"ResponseStream","l":"write(byte[], int, int)","u":"write(byte[],int,int)"},{"p":"server","c":"ResponseStream","l":"write(int)"}];updateSearchResults();
\ No newline at end of file
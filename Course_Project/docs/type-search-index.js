@@ -1 +1 @@
-typeSearchIndex = [{"p":"graph","l":"Agent"},{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"graph","l":"BinOpAgent"},{"p":"configs","l":"Config"},{"p":"servlets","l":"ConfLoader"},{"p":"configs","l":"GenericConfig"},{"p":"graph","l":"Graph"},{"p":"views","l":"HtmlGraphWriter"},{"p":"servlets","l":"HtmlLoader"},{"p":"server","l":"HTTPServer"},{"p":"graph","l":"IncAgent"},{"p":"graph","l":"IndexAgent"},{"p":"configs","l":"MathExampleConfig"},{"p":"graph","l":"Message"},{"p":"server","l":"MyHTTPServer"},{"p":"graph","l":"Node"},{"p":"graph","l":"ParallelAgent"},{"p":"graph","l":"PlusAgent"},{"p":"server","l":"RequestParser.RequestInfo"},{"p":"server","l":"RequestParser"},{"p":"servlets","l":"Servlet"},{"p":"graph","l":"SortAgent"},{"p":"graph","l":"Topic"},{"p":"servlets","l":"TopicDisplayer"},{"p":"graph","l":"TopicManagerSingleton.TopicManager"},{"p":"graph","l":"TopicManagerSingleton"}];updateSearchResults();
\ No newline at end of file
+typeSearchIndex = [{"p":"graph","l":"Agent"},{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"graph","l":"Backpressure"},{"p":"graph","l":"BinaryOps"},{"p":"graph","l":"BinOpAgent"},{"p":"graph","l":"CompactGraph"},{"p":"configs","l":"Config"},{"p":"servlets","l":"ConfLoader"},{"p":"graph","l":"DoubleLists"},{"p":"graph","l":"ExecutionMode"},{"p":"graph","l":"ExpressionAgent"},{"p":"configs","l":"GenericConfig"},{"p":"graph","l":"Graph"},{"p":"graph","l":"GraphLogger"},{"p":"views","l":"HtmlGraphWriter"},{"p":"servlets","l":"HtmlLoader"},{"p":"server","l":"HTTPServer"},{"p":"graph","l":"IncAgent"},{"p":"graph","l":"IndexAgent"},{"p":"graph","l":"Node.Kind"},{"p":"graph","l":"GraphLogger.Level"},{"p":"configs","l":"MathExampleConfig"},{"p":"graph","l":"Message"},{"p":"server","l":"ServerConfig.Mode"},{"p":"server","l":"MultipartReader"},{"p":"server","l":"MyHTTPServer"},{"p":"server","l":"NioHTTPServer"},{"p":"graph","l":"Node"},{"p":"graph","l":"OrderStatisticAgent"},{"p":"graph","l":"ParallelAgent"},{"p":"graph","l":"PlusAgent"},{"p":"graph","l":"PropagationBatch"},{"p":"server","l":"RequestParser.RequestInfo"},{"p":"server","l":"RequestParser"},{"p":"server","l":"ResponseStream"},{"p":"server","l":"ServerConfig"},{"p":"servlets","l":"Servlet"},{"p":"configs","l":"Settings"},{"p":"graph","l":"SortAgent"},{"p":"graph","l":"Topic"},{"p":"servlets","l":"TopicDisplayer"},{"p":"graph","l":"TopicManagerSingleton.TopicManager"},{"p":"graph","l":"TopicManagerSingleton"}];updateSearchResults();
\ No newline at end of file
@@ -1,3 +1,7 @@
+import java.util.Properties;
+
+import configs.GenericConfig;
+import configs.Settings;
 import server.*;
 import servlets.*;
 
@@ -7,25 +11,44 @@ import servlets.*;
  * various servlets, and handles server shutdown gracefully.
  */
 public class Main {
+
+    /**
+     * How a message published from the browser propagates, given by the {@code graph.propagation} setting.
+     */
+    private enum Propagation {
+        ASYNC,
+        BATCH
+    }
     
     /**
      * The main method that starts the HTTP server.
      * <p>
-     * This method creates an instance of {@link MyHTTPServer}, configures it with
-     * different servlets for handling HTTP requests, and starts the server.
+     * This method loads the server settings from {@code server.properties} (or the file
+     * given as the first argument), creates the server they describe, configures it with
+     * different servlets for handling HTTP requests, and starts the server. The {@code graph.*}
+     * settings of the same file apply to the agents of uploaded configurations and to the
+     * way published messages propagate through them.
      * The server will continue running until the user presses Enter.
      * </p>
      * 
-     * @param args Command-line arguments (not used in this implementation).
+     * @param args Command-line arguments, optionally the path to the server settings file.
      * @throws Exception If an error occurs during server initialization or operation.
      */
     public static void main(String[] args) throws Exception {
-        // Create an instance of MyHTTPServer on port 8080 with a thread pool size of 5
-        HTTPServer server = new MyHTTPServer(8080, 5);
+        // Create the server described by the settings file (port 8080 with virtual threads by default)
+        Properties settings = ServerConfig.readProperties(args.length > 0 ? args[0] : "server.properties");
+        ServerConfig config = ServerConfig.fromProperties(settings);
+        HTTPServer server = config.createServer();
+
+        // Agents of uploaded configurations follow the graph settings of the same file
+        GenericConfig graphConfig = new GenericConfig();
+        graphConfig.configure(settings);
         
         // Add servlets to handle different HTTP requests
-        server.addServlet("GET", "/publish", new TopicDisplayer());
-        server.addServlet("POST", "/upload", new ConfLoader("../html_files"));
+        Propagation propagation = Settings.enumValue("graph.propagation",
+                System.getProperty("graph.propagation", settings.getProperty("graph.propagation")), Propagation.ASYNC);
+        server.addServlet("GET", "/publish", new TopicDisplayer(propagation == Propagation.BATCH));
+        server.addServlet("POST", "/upload", new ConfLoader("../html_files", graphConfig));
         server.addServlet("GET", "/app/", new HtmlLoader("../html_files"));
         
         // Start the server
@@ -1,31 +1,98 @@
 package configs;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
 
 import graph.Agent;
+import graph.Backpressure;
+import graph.ExecutionMode;
+import graph.GraphLogger;
 import graph.ParallelAgent;
 import graph.TopicManagerSingleton;
 
 /**
  * A generic configuration class for setting up agents and topics from a configuration file.
- * It reads agent configurations from a file, creates agents, and manages them.
+ * It reads agent configurations from a file or a reader, creates agents, and manages them.
+ * Agents are executed in the {@link ExecutionMode} given by the {@code graph.executionMode}
+ * setting (see {@link #configure(Properties)}) or system property ({@code thread}, {@code pool} or {@code virtual}), or set with
+ * {@link #setExecutionMode(ExecutionMode)}. The {@link Backpressure} policy of their queues
+ * is given by the {@code graph.backpressure} system property ({@code block},
+ * {@code drop_oldest} or {@code reject}), or set with {@link #setBackpressure(Backpressure)}.
+ * Linear chains of agents are fused once loaded when the {@code graph.fusion} setting or system
+ * property is {@code true}, or when enabled with {@link #setFusion(boolean)}. A system property
+ * takes precedence over the same setting in the settings file.
  */
 public class GenericConfig implements Config {
 
-    private List<Agent> agents;
+    private final Set<Agent> agents;
     private final int capacity = 50;
     private String file;
+    private ExecutionMode executionMode;
+    private Backpressure backpressure;
+    private boolean fusion;
 
     /**
      * Constructs a GenericConfig instance, initializing the list of agents and setting the configuration file to an empty string.
      */
     public GenericConfig(){
-        agents = new ArrayList<>();
+        agents = new LinkedHashSet<>();
         this.file = "";
+        this.executionMode = Settings.enumValue("graph.executionMode", System.getProperty("graph.executionMode"), ExecutionMode.THREAD);
+        this.backpressure = Settings.enumValue("graph.backpressure", System.getProperty("graph.backpressure"), Backpressure.BLOCK);
+        this.fusion = Settings.booleanValue("graph.fusion", System.getProperty("graph.fusion"), false);
+    }
+
+    /**
+     * Applies the {@code graph.*} settings found in the given properties, such as those of the
+     * server settings file: {@code graph.executionMode}, {@code graph.backpressure},
+     * {@code graph.fusion} and {@code graph.logLevel}, the level of the {@link GraphLogger}.
+     * A setting also given as a system property, as in {@code -Dgraph.fusion=true}, keeps the
+     * value of the system property. Missing or invalid values keep the current settings.
+     *
+     * @param properties the properties holding the settings
+     */
+    public void configure(Properties properties) {
+        this.executionMode = Settings.enumValue("graph.executionMode", setting(properties, "graph.executionMode"), this.executionMode);
+        this.backpressure = Settings.enumValue("graph.backpressure", setting(properties, "graph.backpressure"), this.backpressure);
+        this.fusion = Settings.booleanValue("graph.fusion", setting(properties, "graph.fusion"), this.fusion);
+        GraphLogger.setLevel(Settings.enumValue("graph.logLevel", setting(properties, "graph.logLevel"), GraphLogger.getLevel()));
+    }
+
+    /**
+     * Reads a setting, from the system properties first and then from the given properties.
+     *
+     * @param properties the properties holding the settings
+     * @param key the key of the setting
+     * @return the value of the setting, or {@code null} if it is set in neither
+     */
+    private static String setting(Properties properties, String key) {
+        return System.getProperty(key, properties.getProperty(key));
+    }
+
+    /**
+     * Sets the mode used to execute the agents created by this configuration.
+     * Agents that were already created keep their mode.
+     *
+     * @param executionMode the mode used to execute the agents
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Gets the mode used to execute the agents created by this configuration.
+     *
+     * @return the mode used to execute the agents
+     */
+    public ExecutionMode getExecutionMode() {
+        return this.executionMode;
     }
 
     /**
@@ -40,62 +107,176 @@ public class GenericConfig implements Config {
         }
     }
 
+    /**
+     * Sets the policy applied when the queue of an agent created by this configuration is full.
+     * Agents that were already created keep their policy.
+     *
+     * @param backpressure the policy applied when a queue is full
+     */
+    public void setBackpressure(Backpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Gets the policy applied when the queue of an agent created by this configuration is full.
+     *
+     * @return the policy applied when a queue is full
+     */
+    public Backpressure getBackpressure() {
+        return this.backpressure;
+    }
+
+    /**
+     * Sets whether linear chains of agents are fused once a configuration is loaded, as done by
+     * {@link graph.TopicManagerSingleton.TopicManager#fuseChains()}. Agents that were already
+     * created are fused by the next load.
+     *
+     * @param fusion {@code true} to fuse chains, {@code false} to run every agent on its own
+     */
+    public void setFusion(boolean fusion) {
+        this.fusion = fusion;
+    }
+
+    /**
+     * Tells whether linear chains of agents are fused once a configuration is loaded.
+     *
+     * @return {@code true} if chains are fused, {@code false} otherwise
+     */
+    public boolean isFusion() {
+        return this.fusion;
+    }
+
     /**
      * Reads the configuration file, creates agents based on the file contents, and adds them to the list.
      * The file should contain agent class names followed by their subscriber and publisher lists in a specific format.
      */
     @Override
     public void create() {
-        List<String> lines;
-        try {
-            lines = Files.readAllLines(Paths.get(this.file)); // Read all lines
-        } catch(Exception e) {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(this.file))) {
+            this.create(reader);
+        } catch(IOException e) {
             e.printStackTrace();
             System.out.println("Can't read file " + this.file + " in config " + this.getName());
-            return;
         }
+    }
 
-        if (lines.size() % 3 != 0){ // If not a multiple of 3
-            System.out.println("Invalid number of lines in file " + this.file);
-            return;
+    /**
+     * Reads a configuration from a reader and creates its agents while reading, three lines
+     * per agent: the class name, the subscribed topics and the published topics. The class
+     * name may be followed by a colon and an argument, such as {@code graph.BinOpAgent:add},
+     * which is passed to a constructor taking it before the topics.
+     * <p>
+     * The lines are not kept once their agent was created, so configurations of any size are
+     * loaded with bounded memory, for instance straight from an uploaded file. Messages about
+     * invalid lines name the current configuration file. If the configuration ends inside an
+     * agent, or a line is invalid, the agents created before it are kept.
+     * </p>
+     * <p>
+     * Each agent is checked for cycles as soon as it is wired to its topics. An agent whose
+     * output can reach its own input is closed and loading stops there, so the topology
+     * never holds a cycle and doesn't have to be scanned again afterwards.
+     * </p>
+     * <p>
+     * When fusion is enabled, the linear chains of the loaded graph are fused afterwards,
+     * including when loading stopped early.
+     * </p>
+     *
+     * @param reader the reader of the configuration
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public void create(BufferedReader reader) throws IOException {
+        try {
+            this.createAgents(reader);
+        } finally {
+            if (this.fusion) {
+                int fused = TopicManagerSingleton.get().fuseChains();
+                if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+                    GraphLogger.debug("Fused " + fused + " agents into chains in file " + this.file);
+            }
         }
+    }
 
-        for (int i = 0; i < lines.size(); i+=3){
-            String[] subs = lines.get(i + 1).split(","); // Get list of subs and pubs of the agent
-            String[] pubs = lines.get(i + 2).split(",");
+    /**
+     * Reads the agents of a configuration, three lines per agent, and creates each one.
+     *
+     * @param reader the reader of the configuration
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private void createAgents(BufferedReader reader) throws IOException {
+        int lineNumber = 0;
+        String className;
+        while ((className = reader.readLine()) != null) {
+            String subsLine = reader.readLine();
+            String pubsLine = subsLine == null ? null : reader.readLine();
+            if (pubsLine == null){ // If not a multiple of 3
+                System.out.println("Invalid number of lines in file " + this.file);
+                return;
+            }
+            lineNumber += 3;
+            String[] subs = subsLine.split(","); // Get list of subs and pubs of the agent
+            String[] pubs = pubsLine.split(",");
+            if (!this.createAgent(className, subs, pubs, lineNumber - 2))
+                return;
+        }
+    }
 
+    /**
+     * Creates an agent of the given class, wraps it in a {@link ParallelAgent} and adds it to the list,
+     * unless an equal agent already exists.
+     *
+     * @param className the name of the agent class, optionally followed by {@code :} and a constructor argument
+     * @param subs the topics the agent subscribes to
+     * @param pubs the topics the agent publishes to
+     * @param lineNumber the number of the class name line, for messages
+     * @return {@code true} if the agent was created or already existed, {@code false} if the line is invalid
+     *         or the agent closes a cycle
+     */
+    private boolean createAgent(String className, String[] subs, String[] pubs, int lineNumber) {
+        int colon = className.indexOf(':');
+        String argument = colon < 0 ? null : className.substring(colon + 1);
+        try {
+            Class<?> agentClass = Class.forName(colon < 0 ? className : className.substring(0, colon)); // Create new agent from line
+            if (TopicManagerSingleton.get().createsCycle(subs, pubs)) { // Reject before it can receive messages
+                System.out.println("Agent of line " + lineNumber + ": " + className + " creates a cycle in file " + this.file);
+                return false;
+            }
             try {
-                Class<?> agentClass = Class.forName(lines.get(i)); // Create new agent from line
-                try {
+                Agent agent;
+                if (argument == null) {
                     Constructor<?> constructor = agentClass.getConstructor(subs.getClass(), pubs.getClass());
-                    Agent agent = (Agent) constructor.newInstance(subs, pubs);
-                    Agent parallelAgent = new ParallelAgent(agent, capacity); // Create ParallelAgent from agent
-
-                    if (this.agents.stream().noneMatch(parallelAgent::equals)) { // Add if not in list
-                        agents.add(parallelAgent);
-                    } else {
-                        parallelAgent.close(); // If exists, close the new one
-                        agent = null;
-                        parallelAgent = null;
-                    }
-                } catch (Exception e) {
-                    System.out.println("Can't create constructor for line " + (i+1) + ": " + lines.get(i) + " in file " + this.file);
-                    return;
+                    agent = (Agent) constructor.newInstance(subs, pubs);
+                } else {
+                    Constructor<?> constructor = agentClass.getConstructor(String.class, subs.getClass(), pubs.getClass());
+                    agent = (Agent) constructor.newInstance(argument, subs, pubs);
                 }
-            } catch (ClassNotFoundException e) {
-                System.out.println("No class matches line " + (i+1) + ": " + lines.get(i) + " in file " + this.file);
-                return;
+                Agent parallelAgent = new ParallelAgent(agent, capacity, executionMode, backpressure); // Create ParallelAgent from agent
+
+                if (!this.agents.add(parallelAgent)) { // Add if not in set
+                    parallelAgent.close(); // If exists, close the new one
+                }
+                return true;
+            } catch (InvocationTargetException e) { // The constructor rejected the line
+                System.out.println("Can't create agent of line " + lineNumber + ": " + className + " in file " + this.file
+                        + ": " + e.getCause().getMessage());
+                return false;
+            } catch (Exception e) {
+                System.out.println("Can't create constructor for line " + lineNumber + ": " + className + " in file " + this.file);
+                return false;
             }
+        } catch (ClassNotFoundException e) {
+            System.out.println("No class matches line " + lineNumber + ": " + className + " in file " + this.file);
+            return false;
         }
     }
 
     /**
-     * Closes all agents and clears all topics from the TopicManagerSingleton.
+     * Closes all agents, forgets them and clears all topics from the TopicManagerSingleton.
      */
     public void close() {
         for (Agent a: this.agents) { // Close all agents in List
             a.close();
         }
+        this.agents.clear(); // Closed agents must not count as duplicates on the next create
         TopicManagerSingleton.get().clear();
     }
 
@@ -1,6 +1,7 @@
 package configs;
 
 import graph.BinOpAgent;
+import graph.BinaryOps;
 
 /**
  * Configuration class for demonstrating basic mathematical operations using {@code BinOpAgent}.
@@ -32,9 +33,9 @@ public class MathExampleConfig implements Config {
     @Override
     public void create() {
         // Create BinOpAgent instances for various operations
-        new BinOpAgent("plus", "A", "B", "R1", (x, y) -> x + y);
-        new BinOpAgent("minus", "A", "B", "R2", (x, y) -> x - y);
-        new BinOpAgent("mul", "R1", "R2", "R3", (x, y) -> x * y);
+        new BinOpAgent("plus", "A", "B", "R1", BinaryOps.ADD);
+        new BinOpAgent("minus", "A", "B", "R2", BinaryOps.SUB);
+        new BinOpAgent("mul", "R1", "R2", "R3", BinaryOps.MUL);
     }
 
     /**
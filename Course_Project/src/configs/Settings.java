@@ -0,0 +1,90 @@
+package configs;
+
+import java.util.Locale;
+
+/**
+ * Parses the values of the settings, such as those of the server settings file.
+ * <p>
+ * Every setting follows the same policy: a missing value keeps the default, and an invalid
+ * value is reported on the standard output and keeps the default too, so a typo in the
+ * settings file never stops the server. Names are matched ignoring case and surrounding
+ * spaces, independently of the default locale.
+ * </p>
+ */
+public final class Settings {
+
+    private Settings() {
+        // Static methods only
+    }
+
+    /**
+     * Parses the value of a setting naming a constant of an enum.
+     *
+     * @param <E> the type of the enum
+     * @param key the key of the setting, for the report of an invalid value
+     * @param value the value of the setting, or {@code null} if it is missing
+     * @param defaultValue the value returned when the setting is missing or invalid
+     * @return the constant named by the value, or {@code defaultValue}
+     */
+    public static <E extends Enum<E>> E enumValue(String key, String value, E defaultValue) {
+        if (value == null)
+            return defaultValue;
+        String name = value.trim().toUpperCase(Locale.ROOT);
+        for (E constant : defaultValue.getDeclaringClass().getEnumConstants()) {
+            if (constant.name().equals(name))
+                return constant;
+        }
+        return invalid(key, value, defaultValue);
+    }
+
+    /**
+     * Parses the value of an integer setting.
+     *
+     * @param key the key of the setting, for the report of an invalid value
+     * @param value the value of the setting, or {@code null} if it is missing
+     * @param defaultValue the value returned when the setting is missing or invalid
+     * @return the integer of the value, or {@code defaultValue}
+     */
+    public static int intValue(String key, String value, int defaultValue) {
+        if (value == null)
+            return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return invalid(key, value, defaultValue);
+        }
+    }
+
+    /**
+     * Parses the value of a boolean setting, {@code true} or {@code false}.
+     *
+     * @param key the key of the setting, for the report of an invalid value
+     * @param value the value of the setting, or {@code null} if it is missing
+     * @param defaultValue the value returned when the setting is missing or invalid
+     * @return the boolean of the value, or {@code defaultValue}
+     */
+    public static boolean booleanValue(String key, String value, boolean defaultValue) {
+        if (value == null)
+            return defaultValue;
+        String name = value.trim();
+        if (name.equalsIgnoreCase("true"))
+            return true;
+        if (name.equalsIgnoreCase("false"))
+            return false;
+        return invalid(key, value, defaultValue);
+    }
+
+    /**
+     * Reports an invalid value and returns the default.
+     *
+     * @param <T> the type of the setting
+     * @param key the key of the setting
+     * @param value the invalid value
+     * @param defaultValue the value kept instead
+     * @return {@code defaultValue}
+     */
+    public static <T> T invalid(String key, String value, T defaultValue) {
+        System.out.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+        return defaultValue;
+    }
+}
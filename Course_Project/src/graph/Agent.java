@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.Map;
+
 /**
  * Represents an agent that can subscribe to topics, receive messages,
  * and manage its own state.
@@ -33,6 +35,19 @@ public interface Agent {
      */
     void callback(String topic, Message msg);
 
+    /**
+     * Handles the messages of several topics at once, as a {@link PropagationBatch} delivers them.
+     * <p>
+     * The default implementation calls {@link #callback(String, Message)} for each input in
+     * order. Agents combining several inputs override it to update all of them and publish once.
+     * </p>
+     *
+     * @param inputs the message of each changed input, by topic name, in delivery order
+     */
+    default void callback(Map<String, Message> inputs) {
+        inputs.forEach(this::callback);
+    }
+
     /**
      * Closes or deactivates the agent.
      * <p>
@@ -53,4 +68,16 @@ public interface Agent {
      */
     @Override
     boolean equals(Object obj);
+
+    /**
+     * Returns a hash code for this agent.
+     * <p>
+     * Agents overriding {@code equals} must override {@code hashCode} consistently, so
+     * configurations can detect duplicate agents with hash-based collections.
+     * </p>
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    int hashCode();
 }
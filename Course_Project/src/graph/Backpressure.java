@@ -0,0 +1,22 @@
+package graph;
+
+/**
+ * Defines what a {@link ParallelAgent} does when a callback arrives while its queue is full.
+ */
+public enum Backpressure {
+
+    /**
+     * The caller waits until the queue has space.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued callback is discarded to make space for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The callback is refused with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    REJECT
+}
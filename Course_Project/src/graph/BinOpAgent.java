@@ -1,6 +1,8 @@
 package graph;
 
-import java.util.function.BinaryOperator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
 
 /**
  * Represents an agent that performs a binary operation on two input values
@@ -11,6 +13,11 @@ import java.util.function.BinaryOperator;
  * is identified by a name and can reset its internal state or be closed to unsubscribe
  * and remove itself from topics.
  * </p>
+ * <p>
+ * The operation works on primitive doubles, so no value is boxed on the way from the input
+ * messages to the published result. Built-in operations are found in {@link BinaryOps} and
+ * can be named in a configuration, as in {@code graph.BinOpAgent:add}.
+ * </p>
  */
 public class BinOpAgent implements Agent {
 
@@ -47,7 +54,7 @@ public class BinOpAgent implements Agent {
     /**
      * The binary operation to be applied to the two input values.
      */
-    private BinaryOperator<Double> op;
+    private DoubleBinaryOperator op;
 
     /**
      * Constructs a {@code BinOpAgent} with the specified parameters.
@@ -63,7 +70,7 @@ public class BinOpAgent implements Agent {
      * @param output the name of the output topic
      * @param op the binary operation to apply to the input values
      */
-    public BinOpAgent(String name, String input1, String input2, String output, BinaryOperator<Double> op) {
+    public BinOpAgent(String name, String input1, String input2, String output, DoubleBinaryOperator op) {
         this.name = name;
         this.input1 = input1;
         this.input2 = input2;
@@ -75,6 +82,50 @@ public class BinOpAgent implements Agent {
         TopicManagerSingleton.get().getTopic(this.output).addPublisher(this);
     }
 
+    /**
+     * Constructs a {@code BinOpAgent} applying a built-in operation, for configurations.
+     * <p>
+     * The agent is named after the operation. It subscribes to the first two topics in the
+     * {@code subs} array and publishes to the first topic in the {@code pubs} array.
+     * </p>
+     *
+     * @param opName the name of an operation of {@link BinaryOps}, such as {@code add}
+     * @param subs an array containing the names of the two input topics
+     * @param pubs an array containing the name of the output topic
+     * @throws IllegalArgumentException if there is no operation with this name, or a topic is missing
+     */
+    public BinOpAgent(String opName, String[] subs, String[] pubs) {
+        this(opName, topicAt(subs, 0), topicAt(subs, 1), topicAt(pubs, 0), operation(opName));
+    }
+
+    /**
+     * Finds a built-in operation by name.
+     *
+     * @param opName the name of the operation
+     * @return the operation
+     * @throws IllegalArgumentException if there is no operation with this name
+     */
+    private static DoubleBinaryOperator operation(String opName) {
+        DoubleBinaryOperator op = BinaryOps.byName(opName);
+        if (op == null)
+            throw new IllegalArgumentException("Unknown operation: " + opName + ", expected one of " + BinaryOps.names());
+        return op;
+    }
+
+    /**
+     * Gets a topic name from a configuration line.
+     *
+     * @param topics the topic names of the line
+     * @param index the index of the topic
+     * @return the topic name
+     * @throws IllegalArgumentException if the line has no topic at this index
+     */
+    private static String topicAt(String[] topics, int index) {
+        if (index >= topics.length || topics[index].isEmpty())
+            throw new IllegalArgumentException("Missing topic " + (index + 1) + " for Agent: BinOp");
+        return topics[index];
+    }
+
     /**
      * Returns the name of the agent.
      * 
@@ -110,10 +161,38 @@ public class BinOpAgent implements Agent {
      */
     @Override
     public void callback(String topic, Message msg) {
-        double num = msg.asDouble;
+        if (this.update(topic, msg)) // If any input value was updated
+            this.publish();
+    }
+
+    /**
+     * Handles the messages of both inputs at once, applying the binary operation a single
+     * time after every value was updated.
+     *
+     * @param inputs the message of each changed input, by topic name
+     */
+    @Override
+    public void callback(Map<String, Message> inputs) {
+        boolean update = false;
+        for (Map.Entry<String, Message> input : inputs.entrySet()) {
+            update |= this.update(input.getKey(), input.getValue());
+        }
+        if (update)
+            this.publish();
+    }
+
+    /**
+     * Updates the value of the input a message was received from.
+     *
+     * @param topic the name of the topic from which the message was received
+     * @param msg the message that was received
+     * @return {@code true} if an input value was updated, {@code false} otherwise
+     */
+    private boolean update(String topic, Message msg) {
+        double num = msg.asDouble();
         boolean update = false;
         if (Double.isNaN(num)) // If message can't be interpreted as a double
-            return;
+            return false;
 
         if (topic.equals(this.input1)) { // If the topic is the first input
             this.num1 = num; // Update the first value
@@ -124,11 +203,14 @@ public class BinOpAgent implements Agent {
             this.num2 = num; // Update the second value
             update = true;
         }
+        return update;
+    }
 
-        if (update) { // If any input value was updated
-            // Publish the result of the binary operation
-            TopicManagerSingleton.get().getTopic(this.output).publish(new Message(this.op.apply(this.num1, this.num2)));
-        }
+    /**
+     * Publishes the result of the binary operation to the output topic.
+     */
+    private void publish() {
+        TopicManagerSingleton.get().getTopic(this.output).publish(new Message(this.op.applyAsDouble(this.num1, this.num2)));
     }
 
     /**
@@ -170,4 +252,14 @@ public class BinOpAgent implements Agent {
                output.equals(other.output) &&
                op.equals(other.op);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the name, input topics, output topic and binary operation.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, input1, input2, output, op);
+    }
+}
@@ -0,0 +1,73 @@
+package graph;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * The built-in operations of {@link BinOpAgent}, on primitive doubles.
+ * <p>
+ * Each operation is a single shared {@link DoubleBinaryOperator}, so agents created with the
+ * same operation compare equal, and configurations can refer to an operation by its name,
+ * as in {@code graph.BinOpAgent:add}.
+ * </p>
+ */
+public final class BinaryOps {
+
+    /** Adds the inputs. */
+    public static final DoubleBinaryOperator ADD = (x, y) -> x + y;
+
+    /** Subtracts the second input from the first. */
+    public static final DoubleBinaryOperator SUB = (x, y) -> x - y;
+
+    /** Multiplies the inputs. */
+    public static final DoubleBinaryOperator MUL = (x, y) -> x * y;
+
+    /** Divides the first input by the second. */
+    public static final DoubleBinaryOperator DIV = (x, y) -> x / y;
+
+    /** Keeps the smaller input. */
+    public static final DoubleBinaryOperator MIN = Math::min;
+
+    /** Keeps the larger input. */
+    public static final DoubleBinaryOperator MAX = Math::max;
+
+    /** Raises the first input to the power of the second. */
+    public static final DoubleBinaryOperator POW = Math::pow;
+
+    /**
+     * The operations by name.
+     */
+    private static final Map<String, DoubleBinaryOperator> BY_NAME = Map.of(
+            "add", ADD,
+            "sub", SUB,
+            "mul", MUL,
+            "div", DIV,
+            "min", MIN,
+            "max", MAX,
+            "pow", POW);
+
+    private BinaryOps() {
+        // Constants only
+    }
+
+    /**
+     * Finds an operation by its name.
+     *
+     * @param name the name of the operation, in any case
+     * @return the operation, or {@code null} if there is no operation with this name
+     */
+    public static DoubleBinaryOperator byName(String name) {
+        return BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the names of all operations.
+     *
+     * @return the names of the operations
+     */
+    public static Set<String> names() {
+        return BY_NAME.keySet();
+    }
+}
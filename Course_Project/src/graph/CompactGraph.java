@@ -0,0 +1,296 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only directed graph of topics and agents stored in compressed sparse rows.
+ * <p>
+ * Nodes are numbered from {@code 0} to {@link #size()}{@code  - 1}. The targets of the edges
+ * leaving node {@code i} are {@code targets[offsets[i]]} to {@code targets[offsets[i + 1] - 1]},
+ * so the whole topology takes two {@code int} arrays instead of a {@link Node} and an edge list
+ * per node. Names, kinds, topics and agents are kept in side tables indexed by node.
+ * </p>
+ * <p>
+ * Traversals run on the arrays with primitive stacks and queues, visiting every node and
+ * edge once. Topic nodes read the latest message of their topic, so a cached graph always
+ * shows current values.
+ * </p>
+ */
+public final class CompactGraph {
+
+    private static final Message EMPTY = new Message("");
+
+    private final String[] names;
+    private final BitSet topicNodes;
+    private final Topic[] topics;
+    private final Agent[] agents;
+    private final int[] offsets;
+    private final int[] targets;
+
+    /**
+     * Constructs a {@code CompactGraph} from its tables, which are used as they are.
+     *
+     * @param names the names of the nodes, with the {@code "T"} or {@code "A"} prefix of their kind
+     * @param topicNodes the indices of the topic nodes
+     * @param topics the topic of each node, or {@code null} entries for nodes without one
+     * @param agents the agent of each node, or {@code null} entries for nodes without one
+     * @param offsets the start of the edges of each node in {@code targets}, followed by the edge count
+     * @param targets the targets of all edges, grouped by source node
+     */
+    CompactGraph(String[] names, BitSet topicNodes, Topic[] topics, Agent[] agents, int[] offsets, int[] targets) {
+        this.names = names;
+        this.topicNodes = topicNodes;
+        this.topics = topics;
+        this.agents = agents;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Builds the compact form of an object graph.
+     *
+     * @param graph the graph to convert
+     * @return the compact graph, with the nodes of the graph first, in order
+     */
+    public static CompactGraph of(Graph graph) {
+        return of((List<Node>) graph);
+    }
+
+    /**
+     * Builds the compact form of the nodes reachable from the given roots.
+     * <p>
+     * The roots get the first indices, in order, and nodes outside the list that edges lead
+     * to are numbered after them.
+     * </p>
+     *
+     * @param roots the nodes to start from
+     * @return the compact graph
+     */
+    static CompactGraph of(List<Node> roots) {
+        Map<Node, Integer> index = new IdentityHashMap<>();
+        List<Node> nodes = new ArrayList<>(roots.size());
+        for (Node root : roots) {
+            number(root, index, nodes);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (Node edge : nodes.get(i).getEdges()) {
+                number(edge, index, nodes);
+            }
+        }
+
+        int n = nodes.size();
+        String[] names = new String[n];
+        BitSet topicNodes = new BitSet(n);
+        Topic[] topics = new Topic[n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            names[i] = node.getName();
+            topicNodes.set(i, node.getKind() == Node.Kind.TOPIC);
+            topics[i] = node.getTopic();
+            offsets[i + 1] = offsets[i] + node.getEdges().size();
+        }
+        int[] targets = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int k = offsets[i];
+            for (Node edge : nodes.get(i).getEdges()) {
+                targets[k++] = index.get(edge);
+            }
+        }
+        return new CompactGraph(names, topicNodes, topics, new Agent[n], offsets, targets); // Nodes don't hold agents
+    }
+
+    /**
+     * Gives a node the next index unless it already has one.
+     *
+     * @param node the node
+     * @param index the indices of the numbered nodes
+     * @param nodes the numbered nodes, in index order
+     */
+    private static void number(Node node, Map<Node, Integer> index, List<Node> nodes) {
+        if (index.putIfAbsent(node, nodes.size()) == null)
+            nodes.add(node);
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * Returns the name of a node, with the {@code "T"} or {@code "A"} prefix of its kind.
+     *
+     * @param node the index of the node
+     * @return the name of the node
+     */
+    public String getName(int node) {
+        return this.names[node];
+    }
+
+    /**
+     * Returns the kind of a node.
+     *
+     * @param node the index of the node
+     * @return the kind of the node
+     */
+    public Node.Kind getKind(int node) {
+        return this.topicNodes.get(node) ? Node.Kind.TOPIC : Node.Kind.AGENT;
+    }
+
+    /**
+     * Returns the message of a node: the latest message of its topic, or an empty message
+     * for a node without a topic.
+     *
+     * @param node the index of the node
+     * @return the message of the node
+     */
+    public Message getMessage(int node) {
+        Topic topic = this.topics[node];
+        return topic != null ? topic.getMessage() : EMPTY;
+    }
+
+    /**
+     * Returns the topic of a node.
+     *
+     * @param node the index of the node
+     * @return the topic, or {@code null} if the node has none
+     */
+    Topic getTopic(int node) {
+        return this.topics[node];
+    }
+
+    /**
+     * Returns the agent of a node.
+     *
+     * @param node the index of the node
+     * @return the agent, or {@code null} if the node has none
+     */
+    Agent getAgent(int node) {
+        return this.agents[node];
+    }
+
+    /**
+     * Returns the position of the first edge leaving a node.
+     *
+     * @param node the index of the node
+     * @return the position of the node's first edge
+     * @see #edgeTarget(int)
+     */
+    public int edgeStart(int node) {
+        return this.offsets[node];
+    }
+
+    /**
+     * Returns the position after the last edge leaving a node.
+     *
+     * @param node the index of the node
+     * @return the position after the node's last edge
+     * @see #edgeTarget(int)
+     */
+    public int edgeEnd(int node) {
+        return this.offsets[node + 1];
+    }
+
+    /**
+     * Returns the target of an edge.
+     *
+     * @param edge the position of the edge, between {@link #edgeStart(int)} and {@link #edgeEnd(int)} of its source
+     * @return the index of the target node
+     */
+    public int edgeTarget(int edge) {
+        return this.targets[edge];
+    }
+
+    /**
+     * Checks if the graph contains any cycles.
+     * <p>
+     * A depth-first search colours each node white (unvisited), grey (on the current path)
+     * or black (done), and an edge to a grey node closes a cycle. The search keeps its own
+     * stack of nodes and edge positions, so deep graphs don't overflow the thread stack.
+     * </p>
+     *
+     * @return {@code true} if the graph contains cycles, {@code false} otherwise
+     */
+    public boolean hasCycles() {
+        int n = this.size();
+        byte[] colour = new byte[n]; // 0 white, 1 grey, 2 black
+        int[] stack = new int[n];
+        int[] next = new int[n]; // Position of the next edge to follow for each node on the stack
+        for (int root = 0; root < n; root++) {
+            if (colour[root] != 0)
+                continue;
+            int depth = 0;
+            stack[0] = root;
+            next[root] = this.offsets[root];
+            colour[root] = 1;
+            while (depth >= 0) {
+                int node = stack[depth];
+                if (next[node] == this.offsets[node + 1]) { // All edges followed
+                    colour[node] = 2;
+                    depth--;
+                    continue;
+                }
+                int target = this.targets[next[node]++];
+                if (colour[target] == 1)
+                    return true; // Back edge to the current path
+                if (colour[target] == 0) {
+                    colour[target] = 1;
+                    next[target] = this.offsets[target];
+                    stack[++depth] = target;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Orders the nodes so that every edge goes from an earlier node to a later one.
+     * <p>
+     * Nodes without incoming edges come first, in index order, and a node follows once all
+     * its sources were placed (Kahn's algorithm).
+     * </p>
+     *
+     * @return the indices of the nodes in topological order
+     * @throws IllegalStateException if the graph contains a cycle
+     */
+    public int[] topologicalOrder() {
+        int n = this.size();
+        int[] inDegree = new int[n];
+        for (int target : this.targets) {
+            inDegree[target]++;
+        }
+        int[] order = new int[n]; // Also the queue: nodes are appended when ready and read in turn
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0)
+                order[tail++] = i;
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = order[head];
+            for (int e = this.offsets[node]; e < this.offsets[node + 1]; e++) {
+                if (--inDegree[this.targets[e]] == 0)
+                    order[tail++] = this.targets[e];
+            }
+        }
+        if (tail < n)
+            throw new IllegalStateException("Graph contains a cycle");
+        return order;
+    }
+}
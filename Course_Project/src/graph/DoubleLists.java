@@ -0,0 +1,97 @@
+package graph;
+
+/**
+ * Parses and formats the comma-separated lists of numbers carried by messages.
+ * <p>
+ * Lists are parsed once into a {@code double[]}, so agents work on primitive values instead
+ * of parsing strings again. Whole numbers are written as integers, without a trailing
+ * {@code ".0"}, and other values with the shortest representation of {@link Double#toString(double)}.
+ * </p>
+ */
+public final class DoubleLists {
+
+    /**
+     * The largest magnitude written as an integer. Larger whole numbers keep the exponent notation.
+     */
+    private static final double MAX_INTEGER = 1e15;
+
+    private DoubleLists() {
+        // Static helpers only
+    }
+
+    /**
+     * Parses a comma-separated list of numbers.
+     * <p>
+     * The list is split as {@link String#split(String)} with {@code ","} would split it, so
+     * trailing empty elements are ignored. Elements may be surrounded by whitespace.
+     * </p>
+     *
+     * @param text the list
+     * @return the numbers in list order, or {@code null} if the text is empty or an element
+     *         is not a number or is NaN
+     */
+    public static double[] parse(String text) {
+        if (text.isEmpty())
+            return null;
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ',') { // Trailing empty elements
+            end--;
+        }
+        if (end == 0)
+            return new double[0];
+
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == ',')
+                count++;
+        }
+        double[] values = new double[count];
+        int start = 0;
+        for (int k = 0; k < count; k++) {
+            int comma = text.indexOf(',', start);
+            int stop = comma < 0 || comma > end ? end : comma;
+            try {
+                double value = Double.parseDouble(text.substring(start, stop));
+                if (Double.isNaN(value))
+                    return null;
+                values[k] = value;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            start = stop + 1;
+        }
+        return values;
+    }
+
+    /**
+     * Formats numbers as a comma-separated list.
+     *
+     * @param values the numbers
+     * @param from the index of the first number to write
+     * @param to the index after the last number to write
+     * @return the list
+     */
+    public static String format(double[] values, int from, int to) {
+        StringBuilder text = new StringBuilder((to - from) * 8);
+        for (int i = from; i < to; i++) {
+            if (i > from)
+                text.append(',');
+            append(text, values[i]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a number, as an integer when it is a whole number of moderate size.
+     *
+     * @param text the builder to write to
+     * @param value the number
+     */
+    public static void append(StringBuilder text, double value) {
+        long whole = (long) value;
+        if (whole == value && Math.abs(value) < MAX_INTEGER)
+            text.append(whole);
+        else
+            text.append(value);
+    }
+}
@@ -0,0 +1,28 @@
+package graph;
+
+/**
+ * Defines how a {@link ParallelAgent} executes the callbacks waiting in its queue.
+ * <p>
+ * Every mode keeps the callbacks of a single agent serial and in arrival order.
+ * The modes differ in how many operating system threads a graph needs.
+ * </p>
+ */
+public enum ExecutionMode {
+
+    /**
+     * Each agent owns a dedicated platform thread that waits on its queue.
+     */
+    THREAD,
+
+    /**
+     * All agents share one work-stealing pool. An agent is scheduled on the pool
+     * only while its queue has callbacks, so idle agents hold no thread.
+     */
+    POOL,
+
+    /**
+     * Each agent owns a virtual thread that waits on its queue. Waiting virtual
+     * threads do not hold a carrier thread.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,496 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Represents an agent that evaluates an arithmetic formula over its input topics
+ * and publishes the result to an output topic.
+ * <p>
+ * The formula names its input topics as variables, such as {@code (A+B)*(A-B)}, so a chain
+ * of {@link BinOpAgent}s and their intermediate topics collapses into one agent that publishes
+ * a single message per input change. The formula supports numbers, {@code + - * / ^} with the
+ * usual precedence ({@code ^} binds tightest and groups to the right), unary minus, parentheses
+ * and the operations of {@link BinaryOps} as functions, such as {@code max(A,B)}.
+ * </p>
+ * <p>
+ * The formula is compiled once into a tree of small evaluator nodes, with constant parts folded,
+ * and each variable is bound to a slot of a {@code double[]}. Evaluating it walks the tree with
+ * primitive values only. In a configuration the formula follows the class name, as in
+ * {@code graph.ExpressionAgent:(A+B)*(A-B)}, and the subscribed topics list its variables.
+ * </p>
+ */
+public class ExpressionAgent implements Agent {
+
+    /**
+     * The name of the agent.
+     */
+    private final String name = "Expression";
+
+    /**
+     * The formula, as written.
+     */
+    private final String formula;
+
+    /**
+     * The input topics, one per variable slot.
+     */
+    private final String[] inputs;
+
+    /**
+     * The name of the output topic.
+     */
+    private final String output;
+
+    /**
+     * The compiled formula.
+     */
+    private final Expr expr;
+
+    /**
+     * The latest value of each input topic.
+     */
+    private final double[] values;
+
+    /**
+     * Constructs an {@code ExpressionAgent} evaluating the given formula.
+     * <p>
+     * The agent subscribes to every topic in the {@code subs} array and publishes to the
+     * first topic in the {@code pubs} array. Every variable of the formula must be one of
+     * the subscribed topics. The inputs start at 0.
+     * </p>
+     *
+     * @param formula the formula over the input topics
+     * @param subs an array containing the names of the input topics
+     * @param pubs an array containing the name of the output topic
+     * @throws IllegalArgumentException if the formula is invalid, uses a topic that is not subscribed,
+     *         or the output topic is missing
+     */
+    public ExpressionAgent(String formula, String[] subs, String[] pubs) {
+        if (pubs.length == 0 || pubs[0].isEmpty())
+            throw new IllegalArgumentException("No pubs for Agent: " + this.name);
+        this.formula = formula;
+        this.inputs = subs.clone();
+        this.output = pubs[0];
+        this.expr = new Parser(formula, this.inputs).parse();
+        this.values = new double[this.inputs.length];
+        for (String input : this.inputs) {
+            TopicManagerSingleton.get().getTopic(input).subscribe(this);
+        }
+        TopicManagerSingleton.get().getTopic(this.output).addPublisher(this);
+    }
+
+    /**
+     * Returns the name of the agent.
+     *
+     * @return the name of the agent
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Resets the internal state of the agent.
+     * <p>
+     * This method sets the values of all inputs to 0.
+     * </p>
+     */
+    @Override
+    public void reset() {
+        Arrays.fill(this.values, 0);
+    }
+
+    /**
+     * Handles a callback when a message is received from a topic.
+     * <p>
+     * The agent updates the value of the input and publishes the value of the formula
+     * to the output topic. A message that is not a number is ignored.
+     * </p>
+     *
+     * @param topic the name of the topic from which the message was received
+     * @param msg the message that was received
+     */
+    @Override
+    public void callback(String topic, Message msg) {
+        if (this.update(topic, msg))
+            this.publish();
+    }
+
+    /**
+     * Handles the messages of several inputs at once, evaluating the formula a single time
+     * after every value was updated.
+     *
+     * @param inputs the message of each changed input, by topic name
+     */
+    @Override
+    public void callback(Map<String, Message> inputs) {
+        boolean update = false;
+        for (Map.Entry<String, Message> input : inputs.entrySet()) {
+            update |= this.update(input.getKey(), input.getValue());
+        }
+        if (update)
+            this.publish();
+    }
+
+    /**
+     * Updates the value of the input a message was received from.
+     *
+     * @param topic the name of the topic from which the message was received
+     * @param msg the message that was received
+     * @return {@code true} if an input value was updated, {@code false} otherwise
+     */
+    private boolean update(String topic, Message msg) {
+        double num = msg.asDouble();
+        if (Double.isNaN(num)) // If message can't be interpreted as a double
+            return false;
+        boolean update = false;
+        for (int i = 0; i < this.inputs.length; i++) {
+            if (this.inputs[i].equals(topic)) {
+                this.values[i] = num;
+                update = true;
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Evaluates the formula and publishes its value to the output topic.
+     */
+    private void publish() {
+        double result = this.expr.eval(this.values);
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Agent: " + this.name + " Changed to: " + result);
+        TopicManagerSingleton.get().getTopic(this.output).publish(new Message(result));
+    }
+
+    /**
+     * Closes the agent, unsubscribing from the input topics and removing itself
+     * as a publisher from the output topic.
+     */
+    @Override
+    public void close() {
+        for (String input : this.inputs) {
+            TopicManagerSingleton.get().getTopic(input).unsubscribe(this);
+        }
+        TopicManagerSingleton.get().getTopic(this.output).removePublisher(this);
+    }
+
+    /**
+     * Compares this {@code ExpressionAgent} to another object for equality.
+     * <p>
+     * Two {@code ExpressionAgent} instances are considered equal if they have the same
+     * formula, input topics and output topic.
+     * </p>
+     *
+     * @param obj the object to be compared
+     * @return {@code true} if this agent is equal to the specified object, {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        ExpressionAgent other = (ExpressionAgent) obj;
+
+        return this.formula.equals(other.formula) &&
+               Arrays.equals(this.inputs, other.inputs) &&
+               this.output.equals(other.output);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the formula, input topics and output topic.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(formula, Arrays.hashCode(inputs), output);
+    }
+
+    /**
+     * A compiled part of a formula.
+     */
+    private abstract static class Expr {
+
+        /**
+         * Evaluates this part of the formula.
+         *
+         * @param v the values of the variables, by slot
+         * @return the value
+         */
+        abstract double eval(double[] v);
+
+        /**
+         * Tells whether this part has the same value whatever the variables.
+         *
+         * @return {@code true} for a constant, {@code false} otherwise
+         */
+        boolean isConstant() {
+            return false;
+        }
+    }
+
+    private static final class Constant extends Expr {
+        private final double value;
+
+        Constant(double value) { this.value = value; }
+
+        @Override double eval(double[] v) { return this.value; }
+
+        @Override boolean isConstant() { return true; }
+    }
+
+    private static final class Variable extends Expr {
+        private final int slot;
+
+        Variable(int slot) { this.slot = slot; }
+
+        @Override double eval(double[] v) { return v[this.slot]; }
+    }
+
+    private static final class Negate extends Expr {
+        private final Expr operand;
+
+        Negate(Expr operand) { this.operand = operand; }
+
+        @Override double eval(double[] v) { return -this.operand.eval(v); }
+    }
+
+    private static final class Add extends Expr {
+        private final Expr left, right;
+
+        Add(Expr left, Expr right) { this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return this.left.eval(v) + this.right.eval(v); }
+    }
+
+    private static final class Subtract extends Expr {
+        private final Expr left, right;
+
+        Subtract(Expr left, Expr right) { this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return this.left.eval(v) - this.right.eval(v); }
+    }
+
+    private static final class Multiply extends Expr {
+        private final Expr left, right;
+
+        Multiply(Expr left, Expr right) { this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return this.left.eval(v) * this.right.eval(v); }
+    }
+
+    private static final class Divide extends Expr {
+        private final Expr left, right;
+
+        Divide(Expr left, Expr right) { this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return this.left.eval(v) / this.right.eval(v); }
+    }
+
+    private static final class Power extends Expr {
+        private final Expr left, right;
+
+        Power(Expr left, Expr right) { this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return Math.pow(this.left.eval(v), this.right.eval(v)); }
+    }
+
+    private static final class Call extends Expr {
+        private final DoubleBinaryOperator op;
+        private final Expr left, right;
+
+        Call(DoubleBinaryOperator op, Expr left, Expr right) { this.op = op; this.left = left; this.right = right; }
+
+        @Override double eval(double[] v) { return this.op.applyAsDouble(this.left.eval(v), this.right.eval(v)); }
+    }
+
+    /**
+     * Compiles a formula by recursive descent, folding the parts without variables.
+     * <pre>
+     * sum     = product (("+" | "-") product)*
+     * product = unary (("*" | "/") unary)*
+     * unary   = ("-" | "+") unary | power
+     * power   = primary ("^" unary)?
+     * primary = number | topic | name "(" sum "," sum ")" | "(" sum ")"
+     * </pre>
+     */
+    private static final class Parser {
+        private final String text;
+        private final String[] variables;
+        private int pos;
+
+        /**
+         * Constructs a {@code Parser} for a formula.
+         *
+         * @param text the formula
+         * @param variables the topics the formula may use, by slot
+         */
+        Parser(String text, String[] variables) {
+            this.text = text;
+            this.variables = variables;
+        }
+
+        /**
+         * Compiles the whole formula.
+         *
+         * @return the compiled formula
+         * @throws IllegalArgumentException if the formula is invalid
+         */
+        Expr parse() {
+            Expr expr = this.sum();
+            this.skipSpaces();
+            if (this.pos < this.text.length())
+                throw this.error("Unexpected '" + this.text.charAt(this.pos) + "'");
+            return expr;
+        }
+
+        private Expr sum() {
+            Expr expr = this.product();
+            while (true) {
+                if (this.accept('+'))
+                    expr = fold(new Add(expr, this.product()));
+                else if (this.accept('-'))
+                    expr = fold(new Subtract(expr, this.product()));
+                else
+                    return expr;
+            }
+        }
+
+        private Expr product() {
+            Expr expr = this.unary();
+            while (true) {
+                if (this.accept('*'))
+                    expr = fold(new Multiply(expr, this.unary()));
+                else if (this.accept('/'))
+                    expr = fold(new Divide(expr, this.unary()));
+                else
+                    return expr;
+            }
+        }
+
+        private Expr unary() {
+            if (this.accept('-'))
+                return fold(new Negate(this.unary()));
+            if (this.accept('+'))
+                return this.unary();
+            return this.power();
+        }
+
+        private Expr power() {
+            Expr base = this.primary();
+            if (this.accept('^'))
+                return fold(new Power(base, this.unary()));
+            return base;
+        }
+
+        private Expr primary() {
+            this.skipSpaces();
+            if (this.accept('(')) {
+                Expr expr = this.sum();
+                this.expect(')');
+                return expr;
+            }
+            if (this.pos < this.text.length()) {
+                char c = this.text.charAt(this.pos);
+                if (Character.isDigit(c) || c == '.')
+                    return this.number();
+                if (Character.isLetter(c) || c == '_')
+                    return this.identifier();
+            }
+            throw this.error(this.pos < this.text.length() ? "Unexpected '" + this.text.charAt(this.pos) + "'" : "Unexpected end");
+        }
+
+        private Expr number() {
+            int start = this.pos;
+            while (this.pos < this.text.length()) {
+                char c = this.text.charAt(this.pos);
+                boolean exponentSign = (c == '+' || c == '-') && this.pos > start
+                        && (this.text.charAt(this.pos - 1) == 'e' || this.text.charAt(this.pos - 1) == 'E');
+                if (!Character.isDigit(c) && c != '.' && c != 'e' && c != 'E' && !exponentSign)
+                    break;
+                this.pos++;
+            }
+            try {
+                return new Constant(Double.parseDouble(this.text.substring(start, this.pos)));
+            } catch (NumberFormatException e) {
+                this.pos = start;
+                throw this.error("Invalid number");
+            }
+        }
+
+        private Expr identifier() {
+            int start = this.pos;
+            while (this.pos < this.text.length()
+                    && (Character.isLetterOrDigit(this.text.charAt(this.pos)) || this.text.charAt(this.pos) == '_')) {
+                this.pos++;
+            }
+            String identifier = this.text.substring(start, this.pos);
+            if (this.accept('(')) { // Function call
+                DoubleBinaryOperator op = BinaryOps.byName(identifier);
+                if (op == null) {
+                    this.pos = start;
+                    throw this.error("Unknown function " + identifier + ", expected one of " + BinaryOps.names());
+                }
+                Expr left = this.sum();
+                this.expect(',');
+                Expr right = this.sum();
+                this.expect(')');
+                return fold(new Call(op, left, right));
+            }
+            for (int slot = 0; slot < this.variables.length; slot++) {
+                if (this.variables[slot].equals(identifier))
+                    return new Variable(slot);
+            }
+            this.pos = start;
+            throw this.error("Topic " + identifier + " is not subscribed");
+        }
+
+        /**
+         * Replaces a part whose operands are all constant by its value.
+         *
+         * @param expr the part
+         * @return the part, or a constant with its value
+         */
+        private static Expr fold(Expr expr) {
+            boolean constant = switch (expr) {
+                case Negate n -> n.operand.isConstant();
+                case Add a -> a.left.isConstant() && a.right.isConstant();
+                case Subtract s -> s.left.isConstant() && s.right.isConstant();
+                case Multiply m -> m.left.isConstant() && m.right.isConstant();
+                case Divide d -> d.left.isConstant() && d.right.isConstant();
+                case Power p -> p.left.isConstant() && p.right.isConstant();
+                case Call c -> c.left.isConstant() && c.right.isConstant();
+                default -> false;
+            };
+            return constant ? new Constant(expr.eval(new double[0])) : expr;
+        }
+
+        private boolean accept(char c) {
+            this.skipSpaces();
+            if (this.pos < this.text.length() && this.text.charAt(this.pos) == c) {
+                this.pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!this.accept(c))
+                throw this.error("Expected '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (this.pos < this.text.length() && Character.isWhitespace(this.text.charAt(this.pos))) {
+                this.pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + this.pos + " in formula: " + this.text);
+        }
+    }
+}
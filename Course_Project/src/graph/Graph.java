@@ -1,11 +1,9 @@
 package graph;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Represents a directed graph where nodes are topics and agents.
@@ -30,77 +28,51 @@ public class Graph extends ArrayList<Node> {
     /**
      * Checks if the graph contains any cycles.
      * <p>
-     * This method performs a depth-first search to detect cycles in the graph.
+     * This method converts the graph to its {@link CompactGraph} form and performs an
+     * iterative depth-first search there, visiting every node and edge once.
      * </p>
      * 
      * @return {@code true} if the graph contains cycles, {@code false} otherwise
      */
     public boolean hasCycles() {
-        Set<Node> visited = new HashSet<>();
-        Set<Node> inStack = new HashSet<>();
+        return hasCycles(this);
+    }
 
-        for (Node node : this) {
-            if (!visited.contains(node)) {
-                if (node.hasCycles(visited, inStack)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    /**
+     * Checks if the nodes reachable from the given roots form a cycle, on their
+     * {@link CompactGraph} form.
+     *
+     * @param roots the nodes to start from
+     * @return {@code true} if a cycle is reachable from the roots, {@code false} otherwise
+     */
+    static boolean hasCycles(List<Node> roots) {
+        return CompactGraph.of(roots).hasCycles();
     }
 
     /**
      * Creates a graph from the current topics in the system.
      * <p>
-     * This method retrieves all topics from the {@code TopicManagerSingleton} and
-     * constructs nodes for each topic and agent. Edges are created based on
-     * the publisher-subscriber relationships between topics and agents.
+     * This method adds a copy of the graph kept up to date by the
+     * {@code TopicManagerSingleton}, with a node for each topic and agent and edges
+     * following the publisher-subscriber relationships between them. The nodes belong
+     * to this graph, so changing them leaves the shared graph intact.
      * </p>
+     *
+     * @see TopicManagerSingleton.TopicManager#getGraph()
      */
     public void createFromTopics() {
-        // Get all topics from the TopicManager
-        Collection<Topic> topics = TopicManagerSingleton.get().getTopics();
-        
-        // Create a map to store agents and their corresponding nodes
-        Map<Agent, Node> agentNodeMap = new HashMap<>();
-        
-        // Iterate through all topics
-        for (Topic topic : topics) {
-            // Create a node for the topic
-            Node topicNode = new Node("T" + topic.name);
-            topicNode.setMessage(topic.getMessage());
-            this.add(topicNode);
-            
-            // Process publishers
-            for (Agent publisher : topic.getPubs()) {
-                Node publisherNode = getOrCreateAgentNode(publisher, agentNodeMap);
-                publisherNode.addEdge(topicNode);
-            }
-            
-            // Process subscribers
-            for (Agent subscriber : topic.getSubs()) {
-                Node subscriberNode = getOrCreateAgentNode(subscriber, agentNodeMap);
-                topicNode.addEdge(subscriberNode);
+        Graph shared = TopicManagerSingleton.get().getGraph();
+        Map<Node, Node> copies = new IdentityHashMap<>();
+        for (Node node : shared) {
+            Node copy = node.copyWithoutEdges();
+            copies.put(node, copy);
+            this.add(copy);
+        }
+        for (Node node : shared) {
+            Node copy = copies.get(node);
+            for (Node edge : node.getEdges()) {
+                copy.addEdge(copies.get(edge));
             }
         }
     }
-
-    /**
-     * Retrieves or creates a node for the specified agent.
-     * <p>
-     * If a node for the agent already exists, it is returned; otherwise, a new node
-     * is created, added to the graph, and then returned.
-     * </p>
-     * 
-     * @param agent the agent for which to retrieve or create a node
-     * @param agentNodeMap a map storing existing nodes for agents
-     * @return the node associated with the specified agent
-     */
-    private Node getOrCreateAgentNode(Agent agent, Map<Agent, Node> agentNodeMap) {
-        return agentNodeMap.computeIfAbsent(agent, a -> {
-            Node node = new Node("A" + a.getName());
-            this.add(node);
-            return node;
-        });
-    }
 }
\ No newline at end of file
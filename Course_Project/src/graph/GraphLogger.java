@@ -0,0 +1,180 @@
+package graph;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import configs.Settings;
+
+/**
+ * A leveled logger for the graph package.
+ * <p>
+ * Messages below the current level are dropped. Callers on hot paths check
+ * {@link #isEnabled(Level)} before building a message, so disabled logging costs a
+ * single field read. The level is read from the {@code graph.logLevel} system property
+ * ({@code debug}, {@code info}, {@code warn} or {@code off}), or from the settings file through
+ * {@code GenericConfig.configure}, and defaults to {@code info}, which leaves the per-message
+ * logs of topics and agents off. Set it to {@code debug} to trace every message.
+ * </p>
+ * <p>
+ * Enabled messages are passed to a sink. The default sink queues them and prints them
+ * to the standard output from a background thread, so publishers never wait on the
+ * console. When the queue is full, messages are dropped. Another sink can be set with
+ * {@link #setSink(Consumer)}.
+ * </p>
+ */
+public final class GraphLogger {
+
+    /**
+     * The severity of a log message.
+     */
+    public enum Level {
+
+        /**
+         * Detailed messages, such as every published message and agent update.
+         */
+        DEBUG,
+
+        /**
+         * Informational messages.
+         */
+        INFO,
+
+        /**
+         * Messages about problems that don't stop the graph.
+         */
+        WARN,
+
+        /**
+         * No messages are logged.
+         */
+        OFF
+    }
+
+    /**
+     * The number of messages the default sink can hold before dropping messages.
+     */
+    private static final int QUEUE_CAPACITY = 8192;
+
+    /**
+     * The minimal level of the messages that are logged.
+     */
+    private static volatile Level level = Settings.enumValue("graph.logLevel", System.getProperty("graph.logLevel"), Level.INFO);
+
+    /**
+     * The sink receiving the logged messages.
+     */
+    private static volatile Consumer<String> sink = new ConsoleSink();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private GraphLogger() {
+    }
+
+    /**
+     * Checks whether messages of the given level are logged.
+     *
+     * @param messageLevel the level of the message
+     * @return {@code true} if messages of this level are logged, {@code false} otherwise
+     */
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    /**
+     * Logs a message with the given level if that level is enabled.
+     *
+     * @param messageLevel the level of the message
+     * @param message the message to log
+     */
+    private static void log(Level messageLevel, String message) {
+        if (isEnabled(messageLevel))
+            sink.accept(message);
+    }
+
+    /**
+     * Logs a message with {@link Level#DEBUG} level.
+     * Callers should check {@link #isEnabled(Level)} first when building the message has a cost.
+     *
+     * @param message the message to log
+     */
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    /**
+     * Sets the minimal level of the messages that are logged.
+     *
+     * @param newLevel the new minimal level
+     */
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * Gets the minimal level of the messages that are logged.
+     *
+     * @return the minimal level
+     */
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the sink receiving the logged messages. The sink may be called from any thread.
+     *
+     * @param newSink the new sink
+     */
+    public static void setSink(Consumer<String> newSink) {
+        sink = newSink;
+    }
+
+    /**
+     * A sink that prints messages to the standard output from a background thread.
+     * <p>
+     * The thread is started when the first message is logged.
+     * </p>
+     */
+    private static final class ConsoleSink implements Consumer<String> {
+
+        /**
+         * The messages waiting to be printed.
+         */
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        /**
+         * The thread printing the messages, or {@code null} before the first message.
+         */
+        private volatile Thread printer;
+
+        /**
+         * Queues a message for printing, dropping it if the queue is full.
+         *
+         * @param message the message to print
+         */
+        @Override
+        public void accept(String message) {
+            if (this.printer == null)
+                this.startPrinter();
+            this.queue.offer(message);
+        }
+
+        /**
+         * Starts the printing thread unless it was already started.
+         */
+        private synchronized void startPrinter() {
+            if (this.printer == null) {
+                this.printer = Thread.ofPlatform().name("GraphLogger").daemon(true).start(() -> {
+                    try {
+                        while (true) {
+                            System.out.println(this.queue.take());
+                        }
+                    } catch (InterruptedException e) {
+                        // Exit the loop
+                    }
+                });
+            }
+        }
+    }
+}
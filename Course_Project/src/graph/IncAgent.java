@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.Objects;
+
 /**
  * Represents an agent that increments a value received from an input topic
  * and publishes the incremented value to an output topic.
@@ -94,14 +96,15 @@ public class IncAgent implements Agent {
      */
     @Override
     public void callback(String topic, Message msg) {
-        double num = msg.asDouble;
+        double num = msg.asDouble();
 
         if (Double.isNaN(num)) // If message can't be interpreted as a double
             return;
         
         if (topic.equals(this.input)) { // If the topic is the input topic
             this.num = num; // Update the value
-            System.out.println("Agent: " + this.name + " Changed to: " + this.num);
+            if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+                GraphLogger.debug("Agent: " + this.name + " Changed to: " + this.num);
             if (this.output != null) // If an output topic is set, publish the incremented value
                 TopicManagerSingleton.get().getTopic(this.output).publish(new Message(this.num + 1));
         }
@@ -143,4 +146,14 @@ public class IncAgent implements Agent {
         return input.equals(other.input) &&
                output.equals(other.output); // Return if same publishers and subscribers
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the input topic and output topic.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(input, output);
+    }
+}
@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.Objects;
+
 /**
  * Represents an agent that indexes a list of strings based on an integer value
  * and publishes the result to an output topic.
@@ -115,17 +117,18 @@ public class IndexAgent implements Agent {
     @Override
     public void callback(String topic, Message msg) {
         if (topic.equals(this.input1)) { // If the topic is the first input
-            this.list = msg.asText.split(","); // Update the list
+            this.list = msg.asText().split(","); // Update the list
         }
         
         if (topic.equals(this.input2)) { // If the topic is the second input
-            double num = msg.asDouble;
+            double num = msg.asDouble();
             if (Double.isNaN(num) || (int)num != num) // If message can't be interpreted as a valid integer
                 return;
             this.idx = (int)num; // Update the index
         }
 
-        System.out.println("Agent: " + this.name + " Changed to: " + String.join(", ", this.list) + " Index: " + this.idx);
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Agent: " + this.name + " Changed to: " + String.join(", ", this.list) + " Index: " + this.idx);
         
         if (this.output != null) { // If an output topic is set, publish the selected string
             try {
@@ -179,4 +182,14 @@ public class IndexAgent implements Agent {
                this.input2.equals(other.input2) &&
                this.output.equals(other.output); // Return if same publishers and subscribers
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the input topics and output topic.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(input1, input2, output);
+    }
+}
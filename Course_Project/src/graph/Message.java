@@ -6,53 +6,57 @@ import java.util.Date;
  * Represents a message with various data representations.
  * <p>
  * This class provides multiple constructors to initialize the message using a text representation,
- * byte array, or a double value. It automatically computes additional representations such as
- * byte array and double value from the provided input where applicable.
+ * byte array, or a double value. Additional representations such as the byte array and the double
+ * value are computed on first use and then kept, so a message only pays for the representations
+ * its receivers read.
+ * </p>
+ * <p>
+ * Messages are immutable and may be shared between threads. A representation computed
+ * concurrently by two threads yields equal results, so the lazy fields need no locking.
  * </p>
  */
 public class Message {
 
     /**
-     * The textual representation of the message.
+     * The textual representation of the message, or {@code null} until it is
+     * computed for a message created from a double value.
+     */
+    private volatile String asText;
+
+    /**
+     * The byte array representation of the message, or {@code null} until it is
+     * derived from the text.
      */
-    public final String asText;
+    private volatile byte[] data;
 
     /**
-     * The byte array representation of the message, derived from {@code asText}.
+     * The double value representation of the message, valid once {@code parsed} is set.
      */
-    public final byte[] data;
+    private double asDouble;
 
     /**
-     * The double value representation of the message, parsed from {@code asText}.
-     * If {@code asText} cannot be parsed into a double, this will be {@link Double#NaN}.
+     * Whether {@code asDouble} holds the parsed value of the message.
      */
-    public final double asDouble;
+    private volatile boolean parsed;
 
     /**
-     * The date and time when the message was created.
+     * The time when the message was created, in milliseconds since the epoch.
      */
-    public final Date date;
+    private final long timestamp;
 
     /**
      * Constructs a {@code Message} with the given text.
      * <p>
-     * The message will be initialized with its textual representation and
-     * its byte array equivalent. Additionally, an attempt will be made to
-     * parse the text as a double. The date of the message will be set to the
-     * current date and time.
+     * The message will be initialized with its textual representation. Its byte array
+     * equivalent and its double value are derived from the text when first requested.
+     * The time of the message will be set to the current time.
      * </p>
-     * 
+     *
      * @param asText the text to initialize the message
      */
     public Message(String asText) {
         this.asText = asText;
-        this.data = this.asText.getBytes(); // Set message as bytes
-        double temp = Double.NaN; // Set message as Double
-        try {
-            temp = Double.parseDouble(asText);
-        } catch (NumberFormatException e) {}
-        this.asDouble = temp;
-        this.date = new Date(); // Set date of message
+        this.timestamp = System.currentTimeMillis(); // Set time of message
     }
 
     /**
@@ -61,7 +65,7 @@ public class Message {
      * The byte array is converted to a string, which is then used to initialize
      * the message. Other attributes are derived from the converted string.
      * </p>
-     * 
+     *
      * @param data the byte array to initialize the message
      */
     public Message(byte[] data) {
@@ -71,13 +75,101 @@ public class Message {
     /**
      * Constructs a {@code Message} with the given double value.
      * <p>
-     * The double value is converted to a string, which is then used to initialize
-     * the message. Other attributes are derived from the converted string.
+     * The double value is stored as is, so receivers reading it do not parse any text.
+     * The textual representation is {@link String#valueOf(double)} of the value and is
+     * only computed when first requested.
      * </p>
-     * 
+     *
      * @param asDouble the double value to initialize the message
      */
     public Message(double asDouble) {
-        this(String.valueOf(asDouble)); // Call String constructor
+        this.asDouble = asDouble;
+        this.parsed = true;
+        this.timestamp = System.currentTimeMillis(); // Set time of message
+    }
+
+    /**
+     * Returns the textual representation of the message.
+     *
+     * @return the text of the message
+     */
+    public String asText() {
+        String text = this.asText;
+        if (text == null) { // Created from a double value
+            text = String.valueOf(this.asDouble);
+            this.asText = text;
+        }
+        return text;
+    }
+
+    /**
+     * Returns the double value representation of the message.
+     * <p>
+     * If the text cannot be parsed into a double, this will be {@link Double#NaN}.
+     * </p>
+     *
+     * @return the double value of the message
+     */
+    public double asDouble() {
+        if (!this.parsed) {
+            this.asDouble = parseDouble(this.asText);
+            this.parsed = true; // Publish the value written above
+        }
+        return this.asDouble;
+    }
+
+    /**
+     * Returns the byte array representation of the message, derived from its text.
+     *
+     * @return the bytes of the message
+     */
+    public byte[] getData() {
+        byte[] bytes = this.data;
+        if (bytes == null) {
+            bytes = this.asText().getBytes();
+            this.data = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the time when the message was created.
+     *
+     * @return the creation time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the date and time when the message was created.
+     *
+     * @return a new {@link Date} holding the creation time
+     */
+    public Date getDate() {
+        return new Date(this.timestamp);
+    }
+
+    /**
+     * Parses the given text as a double.
+     * <p>
+     * Text that cannot start a number is rejected without calling
+     * {@link Double#parseDouble(String)}, avoiding the cost of its exception.
+     * </p>
+     *
+     * @param text the text to parse
+     * @return the parsed value, or {@link Double#NaN} if the text is not a number
+     */
+    private static double parseDouble(String text) {
+        if (text.isEmpty())
+            return Double.NaN;
+        char c = text.charAt(0);
+        if (c > ' ' && (c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'N' && c != 'I')
+            return Double.NaN; // Can't be the start of a number
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,11 @@
 package graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.HashSet;
 import java.util.Set;
-import java.util.Stack;
 
 /**
  * Represents a node in a graph with a name, a list of edges to other nodes, and a message.
@@ -12,26 +13,80 @@ import java.util.Stack;
  * This class provides functionality to manage edges between nodes and check for cycles
  * in the graph starting from this node.
  * </p>
+ * <p>
+ * A node stands for a topic or an agent, as told by its {@link Kind}. Names keep the
+ * {@code "T"} and {@code "A"} prefixes of each kind. A node created for a {@link Topic}
+ * reads the topic's latest message, so a cached graph always shows current values.
+ * </p>
  */
 public class Node {
+
+    /**
+     * The kinds of nodes in a graph.
+     */
+    public enum Kind {
+        /** A topic, named with a {@code "T"} prefix. */
+        TOPIC,
+        /** An agent, named with an {@code "A"} prefix. */
+        AGENT
+    }
+
     private String name;
+    private final Kind kind;
     private List<Node> edges;
     private Message msg;
+    private Topic topic;
 
     /**
      * Constructs a {@code Node} with the specified name.
      * <p>
      * Initializes the list of edges as an empty list and the message with an empty string.
+     * The kind is {@link Kind#TOPIC} for a name starting with {@code "T"}, and
+     * {@link Kind#AGENT} otherwise.
      * </p>
      * 
      * @param name the name of this node
      */
     public Node(String name) {
+        this(name, name.startsWith("T") ? Kind.TOPIC : Kind.AGENT);
+    }
+
+    /**
+     * Constructs a {@code Node} of the given kind with the specified name.
+     *
+     * @param name the name of this node
+     * @param kind the kind of this node
+     */
+    public Node(String name, Kind kind) {
         this.name = name;
+        this.kind = kind;
         this.edges = new ArrayList<>();
         this.msg = new Message("");
     }
 
+    /**
+     * Constructs a topic {@code Node} that reads the messages of the given topic.
+     *
+     * @param topic the topic of this node
+     */
+    Node(Topic topic) {
+        this("T" + topic.name, Kind.TOPIC);
+        this.topic = topic;
+    }
+
+    /**
+     * Returns a node with the name, kind and message of this one, following the same topic,
+     * but without edges.
+     *
+     * @return the copy of this node
+     */
+    Node copyWithoutEdges() {
+        Node copy = new Node(this.name, this.kind);
+        copy.msg = this.msg;
+        copy.topic = this.topic;
+        return copy;
+    }
+
     /**
      * Returns the name of this node.
      * 
@@ -39,6 +94,20 @@ public class Node {
      */
     public String getName() { return this.name; }
 
+    /**
+     * Returns the kind of this node.
+     * 
+     * @return the kind of this node
+     */
+    public Kind getKind() { return this.kind; }
+
+    /**
+     * Returns the topic whose messages this node reads.
+     *
+     * @return the topic, or {@code null} if the node has none
+     */
+    Topic getTopic() { return this.topic; }
+
     /**
      * Returns the list of edges (connected nodes) for this node.
      * 
@@ -47,11 +116,12 @@ public class Node {
     public List<Node> getEdges() { return this.edges; }
 
     /**
-     * Returns the message associated with this node.
+     * Returns the message associated with this node, which is the latest message of
+     * its topic for a node created for a topic.
      * 
      * @return the message associated with this node
      */
-    public Message getMessage() { return this.msg; }
+    public Message getMessage() { return this.topic != null ? this.topic.getMessage() : this.msg; }
 
     /**
      * Sets the name of this node.
@@ -68,11 +138,14 @@ public class Node {
     public void setEdges(List<Node> edges) { this.edges = edges; }
 
     /**
-     * Sets the message associated with this node.
+     * Sets the message associated with this node, which stops following the messages of its topic.
      * 
      * @param msg the new message for this node
      */
-    public void setMessage(Message msg) { this.msg = msg; }
+    public void setMessage(Message msg) {
+        this.msg = msg;
+        this.topic = null;
+    }
 
     /**
      * Adds an edge (connection) from this node to the specified node.
@@ -86,22 +159,23 @@ public class Node {
     /**
      * Checks if there is a cycle in the graph starting from this node.
      * <p>
-     * This method uses a depth-first search approach to detect cycles.
+     * This method uses an iterative depth-first search that visits every reachable
+     * node and edge once.
      * </p>
      * 
      * @return {@code true} if a cycle exists, {@code false} otherwise
      */
     public boolean hasCycles() {
-        Set<Node> visited = new HashSet<>();
-        Set<Node> inStack = new HashSet<>();
-        return this.hasCycles(visited, inStack);
+        return Graph.hasCycles(List.of(this));
     }
 
     /**
      * Helper method to check for cycles in the graph using depth-first search.
      * <p>
-     * This method uses a stack to keep track of nodes in the current path and
-     * detects cycles if a node is revisited within the same path.
+     * This method keeps the current path on its own stack, with the position of the
+     * next edge to follow from each node, so every node is pushed once and every edge
+     * followed once. A cycle is detected if an edge leads back to a node on the path.
+     * The sets are shared between calls, so nodes visited by an earlier call are skipped.
      * </p>
      * 
      * @param visited a set of nodes that have been visited
@@ -109,32 +183,32 @@ public class Node {
      * @return {@code true} if a cycle is detected, {@code false} otherwise
      */
     public boolean hasCycles(Set<Node> visited, Set<Node> inStack) {
-        Stack<Node> stack = new Stack<>();
-        stack.push(this);
-
-        while (!stack.isEmpty()) {
-            Node current = stack.peek();
-
-            if (!visited.contains(current)) {
-                visited.add(current);
-                inStack.add(current);
+        if (!visited.add(this)) {
+            return inStack.contains(this);
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Deque<Iterator<Node>> pending = new ArrayDeque<>();
+        path.push(this);
+        pending.push(this.edges.iterator());
+        inStack.add(this);
+
+        while (!path.isEmpty()) {
+            Iterator<Node> edges = pending.peek();
+            if (!edges.hasNext()) { // All edges followed
+                inStack.remove(path.pop());
+                pending.pop();
+                continue;
             }
-
-            boolean hasUnvisitedNeighbors = false;
-            for (Node neighbor : current.getEdges()) {
-                if (!visited.contains(neighbor)) {
-                    stack.push(neighbor);
-                    hasUnvisitedNeighbors = true;
-                } else if (inStack.contains(neighbor)) {
-                    return true;
-                }
+            Node neighbor = edges.next();
+            if (inStack.contains(neighbor)) {
+                return true;
             }
-
-            if (!hasUnvisitedNeighbors) {
-                inStack.remove(current);
-                stack.pop();
+            if (visited.add(neighbor)) {
+                path.push(neighbor);
+                pending.push(neighbor.getEdges().iterator());
+                inStack.add(neighbor);
             }
         }
         return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,248 @@
+package graph;
+
+import java.util.Objects;
+
+/**
+ * Represents an agent that publishes the k-th smallest value of a list of numbers.
+ * <p>
+ * The agent subscribes to two input topics: the first topic provides a comma-separated
+ * list of numbers, and the second topic provides an index {@code k}, counted from {@code 0}.
+ * It publishes the value that would be at index {@code k} once the list is sorted, as a
+ * {@link SortAgent} followed by an {@link IndexAgent} would, without sorting the list.
+ * </p>
+ * <p>
+ * The list is parsed once per message and kept between index changes. Each query runs a
+ * quickselect on the kept array, in expected linear time. The partitions left by earlier
+ * queries stay valid, so repeated queries on the same list get cheaper.
+ * </p>
+ */
+public class OrderStatisticAgent implements Agent {
+
+    /**
+     * The name of the agent.
+     */
+    private final String name = "OrderStatistic";
+
+    /**
+     * The name of the input topic providing the list.
+     */
+    private String input1;
+
+    /**
+     * The name of the input topic providing the index.
+     */
+    private String input2;
+
+    /**
+     * The name of the output topic to publish to.
+     */
+    private String output;
+
+    /**
+     * The values of the last list received, partially ordered by earlier queries.
+     */
+    private double[] values;
+
+    /**
+     * The current index received from the second input topic.
+     */
+    private int idx;
+
+    /**
+     * Constructs an {@code OrderStatisticAgent} with specified subscriber and publisher topics.
+     * <p>
+     * The agent subscribes to the first two topics in the {@code subs} array, the list and
+     * the index, and adds itself as a publisher to the first topic in the {@code pubs} array.
+     * If any of the topics are not available, appropriate messages are logged.
+     * </p>
+     *
+     * @param subs an array containing the names of topics to subscribe to
+     * @param pubs an array containing the names of topics to publish to
+     */
+    public OrderStatisticAgent(String[] subs, String[] pubs) {
+        this.reset(); // Reset values to default
+        try {
+            input1 = subs[0];
+            TopicManagerSingleton.get().getTopic(this.input1).subscribe(this); // Subscribe to the list topic
+        } catch (Exception e) {
+            input1 = null;
+            System.out.println("No subs for Agent: " + this.name);
+        }
+        try {
+            input2 = subs[1];
+            TopicManagerSingleton.get().getTopic(this.input2).subscribe(this); // Subscribe to the index topic
+        } catch (Exception e) {
+            input2 = null;
+            System.out.println("Only 1 subs for Agent: " + this.name);
+        }
+        try {
+            output = pubs[0];
+            TopicManagerSingleton.get().getTopic(this.output).addPublisher(this); // Add as publisher to output topic
+        } catch (Exception e) {
+            output = null;
+            System.out.println("No pubs for Agent: " + this.name);
+        }
+    }
+
+    /**
+     * Returns the name of the agent.
+     *
+     * @return the name of the agent
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Resets the internal state of the agent.
+     * <p>
+     * This method initializes the list to an empty array and sets the index to -1.
+     * </p>
+     */
+    @Override
+    public void reset() {
+        this.values = new double[0];
+        this.idx = -1;
+    }
+
+    /**
+     * Handles a callback when a message is received from a topic.
+     * <p>
+     * The agent updates its list or index based on the topic of the received message,
+     * then publishes the value of the selected rank to the output topic. If the index is
+     * out of bounds, an "error" message is published. A list that is not a list of
+     * numbers, or an index that is not an integer, is ignored.
+     * </p>
+     *
+     * @param topic the name of the topic from which the message was received
+     * @param msg the message that was received
+     */
+    @Override
+    public void callback(String topic, Message msg) {
+        if (topic.equals(this.input1)) { // If the topic is the list
+            double[] parsed = DoubleLists.parse(msg.asText());
+            if (parsed == null)
+                return;
+            this.values = parsed;
+        }
+
+        if (topic.equals(this.input2)) { // If the topic is the index
+            double num = msg.asDouble();
+            if (Double.isNaN(num) || (int)num != num) // If message can't be interpreted as a valid integer
+                return;
+            this.idx = (int)num;
+        }
+
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Agent: " + this.name + " Changed to: " + this.values.length + " values Index: " + this.idx);
+
+        if (this.output != null) {
+            if (this.idx >= 0 && this.idx < this.values.length) {
+                StringBuilder text = new StringBuilder();
+                DoubleLists.append(text, select(this.values, this.idx));
+                TopicManagerSingleton.get().getTopic(this.output).publish(new Message(text.toString()));
+            } else {
+                TopicManagerSingleton.get().getTopic(this.output).publish(new Message("error")); // Index out of bounds
+            }
+        }
+    }
+
+    /**
+     * Finds the k-th smallest value with quickselect, reordering the array so that the value
+     * ends at index {@code k} with no greater value before it and no smaller value after it.
+     * <p>
+     * The pivot is the median of the first, middle and last values of the range, which keeps
+     * sorted and reversed lists linear.
+     * </p>
+     *
+     * @param a the values
+     * @param k the rank to find, counted from {@code 0}
+     * @return the k-th smallest value
+     */
+    static double select(double[] a, int k) {
+        int lo = 0;
+        int hi = a.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(a[mid], a[lo]) < 0) swap(a, lo, mid);
+            if (Double.compare(a[hi], a[lo]) < 0) swap(a, lo, hi);
+            if (Double.compare(a[hi], a[mid]) < 0) swap(a, mid, hi);
+            double pivot = a[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) { // Hoare partition around the pivot
+                while (Double.compare(a[i], pivot) < 0) i++;
+                while (Double.compare(a[j], pivot) > 0) j--;
+                if (i <= j) swap(a, i++, j--);
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return a[k]; // Between the partitions, equal to the pivot
+        }
+        return a[k];
+    }
+
+    /**
+     * Swaps two values of an array.
+     *
+     * @param a the array
+     * @param i the index of the first value
+     * @param j the index of the second value
+     */
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    /**
+     * Closes the agent, unsubscribing from the input topics and removing itself
+     * as a publisher from the output topic.
+     */
+    @Override
+    public void close() {
+        if (this.input1 != null)
+            TopicManagerSingleton.get().getTopic(this.input1).unsubscribe(this);
+        if (this.output != null)
+            TopicManagerSingleton.get().getTopic(this.output).removePublisher(this);
+        if (this.input2 != null)
+            TopicManagerSingleton.get().getTopic(this.input2).unsubscribe(this);
+    }
+
+    /**
+     * Compares this {@code OrderStatisticAgent} to another object for equality.
+     * <p>
+     * Two {@code OrderStatisticAgent} instances are considered equal if they have the same
+     * input topics and output topic.
+     * </p>
+     *
+     * @param obj the object to be compared
+     * @return {@code true} if this agent is equal to the specified object, {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        OrderStatisticAgent other = (OrderStatisticAgent) obj;
+
+        return Objects.equals(this.input1, other.input1) &&
+               Objects.equals(this.input2, other.input2) &&
+               Objects.equals(this.output, other.output);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the input topics and output topic.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(input1, input2, output);
+    }
+}
@@ -1,84 +1,431 @@
 package graph;
 
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents an agent that wraps another agent and processes callback messages
  * in a separate thread to allow for parallel processing.
  * <p>
  * This agent uses a blocking queue to manage incoming messages and processes them
- * asynchronously in a dedicated thread. The wrapped agent's callbacks are executed
- * in response to messages taken from the queue.
+ * asynchronously according to its {@link ExecutionMode}. The wrapped agent's callbacks
+ * are executed one at a time, in the order they were queued.
+ * </p>
+ * <p>
+ * On construction the wrapped agent is replaced by this agent in every topic it
+ * subscribed to or published on, so callbacks are routed through the queue. A worker
+ * thread blocks while the queue is empty and is interrupted by {@link #close()}.
+ * </p>
+ * <p>
+ * An agent fused into a chain by {@link TopicManagerSingleton.TopicManager#fuseChains()}
+ * stops its worker and runs its callbacks on the thread that publishes to it, which is
+ * the worker of the agent before it in the chain.
  * </p>
  */
 public class ParallelAgent implements Agent {
 
+    /**
+     * The maximum number of callbacks a pooled agent runs before yielding its pool thread.
+     */
+    private static final int POOL_BATCH = 64;
+
+    /**
+     * The work-stealing pool shared by all agents in {@link ExecutionMode#POOL} mode.
+     */
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+            null,
+            true); // FIFO scheduling for event style tasks
+
+    /**
+     * A queued callback, holding the topic name together with its message so the
+     * pair is taken from the queue in a single operation.
+     *
+     * @param topic the name of the topic related to the callback
+     * @param msg the message to be processed by the callback
+     */
+    private record Envelope(String topic, Message msg) {}
+
+    /**
+     * An entry that only wakes the worker, so it notices the agent was fused.
+     */
+    private static final Envelope WAKE = new Envelope(null, null);
+
     /**
      * The wrapped agent whose callbacks are processed in parallel.
      */
     private Agent agent;
 
     /**
-     * The blocking queue used to manage messages for asynchronous processing.
+     * The blocking queue used to manage callbacks for asynchronous processing.
+     */
+    private BlockingQueue<Envelope> messageQueue;
+
+    /**
+     * The mode used to execute the queued callbacks.
+     */
+    private final ExecutionMode mode;
+
+    /**
+     * The policy applied when a callback arrives while the queue is full.
+     */
+    private final Backpressure backpressure;
+
+    /**
+     * The thread that takes messages from the queue and executes the callbacks,
+     * or {@code null} in {@link ExecutionMode#POOL} mode.
+     */
+    private final Thread worker;
+
+    /**
+     * Flag indicating whether a drain of the queue is scheduled on the shared pool.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Flag indicating whether the parallel processing should stop.
+     */
+    private volatile boolean stop;
+
+    /**
+     * Flag indicating whether the agent is being fused, so the worker and the pool stop
+     * taking callbacks from the queue.
+     */
+    private volatile boolean fusing;
+
+    /**
+     * Flag indicating whether callbacks run on the calling thread instead of the queue.
+     */
+    private volatile boolean inline;
+
+    /**
+     * Held while the wrapped agent runs a callback, so queued callbacks and callbacks run
+     * directly by a {@link PropagationBatch} never overlap. A virtual thread waiting for
+     * a full queue while holding it releases its carrier, which a monitor would pin.
      */
-    private BlockingQueue<Message> messageQueue;
+    private final ReentrantLock callbackLock = new ReentrantLock();
 
     /**
-     * Flag indicating whether the parallel processing thread should stop.
+     * Signalled when a drain on the shared pool ends, so {@link #fuse()} can wait for it.
      */
-    private boolean stop;
+    private final Condition drained = this.callbackLock.newCondition();
 
     /**
      * Constructs a {@code ParallelAgent} that wraps the given agent and uses a queue
      * with the specified capacity for managing messages.
      * <p>
-     * A new thread is started to process messages from the queue and execute the
-     * wrapped agent's callbacks.
+     * The callbacks are executed by a dedicated thread, as in {@link ExecutionMode#THREAD}.
      * </p>
      * 
      * @param agent the agent to be wrapped and processed in parallel
-     * @param capacity the capacity of the blocking queue used for message management
+     * @param capacity the number of callbacks the blocking queue can hold
      */
     public ParallelAgent(Agent agent, int capacity) {
+        this(agent, capacity, ExecutionMode.THREAD);
+    }
+
+    /**
+     * Constructs a {@code ParallelAgent} that wraps the given agent and executes its
+     * callbacks in the given mode.
+     * <p>
+     * In {@link ExecutionMode#THREAD} and {@link ExecutionMode#VIRTUAL} modes a new thread
+     * is started to process messages from the queue. The thread blocks on the queue while
+     * it is empty, so an idle agent does not consume CPU. In {@link ExecutionMode#POOL}
+     * mode the queue is drained by the shared pool whenever it has callbacks.
+     * </p>
+     * 
+     * @param agent the agent to be wrapped and processed in parallel
+     * @param capacity the number of callbacks the blocking queue can hold
+     * @param mode the mode used to execute the callbacks
+     */
+    public ParallelAgent(Agent agent, int capacity, ExecutionMode mode) {
+        this(agent, capacity, mode, Backpressure.BLOCK);
+    }
+
+    /**
+     * Constructs a {@code ParallelAgent} that wraps the given agent, executes its
+     * callbacks in the given mode and applies the given policy when its queue is full.
+     * 
+     * @param agent the agent to be wrapped and processed in parallel
+     * @param capacity the number of callbacks the blocking queue can hold
+     * @param mode the mode used to execute the callbacks
+     * @param backpressure the policy applied when the queue is full
+     * @see #ParallelAgent(Agent, int, ExecutionMode)
+     */
+    public ParallelAgent(Agent agent, int capacity, ExecutionMode mode, Backpressure backpressure) {
         this.agent = agent;
         this.messageQueue = new ArrayBlockingQueue<>(capacity);
+        this.mode = mode;
+        this.backpressure = backpressure;
         this.stop = false;
-        
-        // Thread to execute the callbacks
-        Thread t = new Thread(() -> {
-            while (!this.stop) {
-                if (this.messageQueue.size() > 0) { // If there are messages to process
-                    try {
-                        String topic = this.messageQueue.take().asText; // Take the topic
-                        Message msg = this.messageQueue.take(); // Take the message
-                        this.agent.callback(topic, msg); // Call the agent's callback
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+
+        String threadName = "ParallelAgent-" + agent.getName();
+        switch (mode) {
+            case POOL:
+                this.worker = null; // Drained by the shared pool
+                break;
+            case VIRTUAL:
+                this.worker = Thread.ofVirtual().name(threadName).start(this::work);
+                break;
+            default:
+                this.worker = Thread.ofPlatform().name(threadName).daemon(true).start(this::work);
+                break;
+        }
+
+        for (Topic topic : TopicManagerSingleton.get().getTopicsOf(agent)) { // Route the wrapped agent's topics through this agent
+            topic.replace(agent, this);
+        }
+    }
+
+    /**
+     * The loop run by the worker thread, executing callbacks until the agent is closed.
+     */
+    private void work() {
+        try {
+            while (!this.stop && !this.fusing) {
+                Envelope envelope = this.messageQueue.take(); // Wait for the next callback
+                if (envelope == WAKE)
+                    continue;
+                this.callbackLock.lock();
+                try {
+                    this.agent.callback(envelope.topic(), envelope.msg()); // Call the agent's callback
+                } finally {
+                    this.callbackLock.unlock();
                 }
             }
-        });
-        t.start(); // Start the processing thread
+        } catch (InterruptedException e) {
+            // Interrupted by close, exit the loop
+        }
+    }
+
+    /**
+     * Runs queued callbacks on the shared pool.
+     * <p>
+     * At most {@link #POOL_BATCH} callbacks are run before the pool thread is released.
+     * If callbacks remain, or arrived after the queue was found empty, the drain is
+     * scheduled again. Only one drain per agent is scheduled at a time, which keeps
+     * the callbacks serial. The drain stops between callbacks once the agent is being fused.
+     * </p>
+     */
+    private void drain() {
+        Envelope envelope;
+        for (int i = 0; i < POOL_BATCH && !this.stop && !this.fusing && (envelope = this.messageQueue.poll()) != null; i++) {
+            this.callbackLock.lock();
+            try {
+                if (this.stop) // Closed while waiting for the lock
+                    break;
+                this.agent.callback(envelope.topic(), envelope.msg()); // Call the agent's callback
+            } finally {
+                this.callbackLock.unlock();
+            }
+        }
+        this.callbackLock.lock();
+        try {
+            this.scheduled.set(false);
+            this.drained.signalAll(); // Hand the queue over to a fuse waiting for this drain
+        } finally {
+            this.callbackLock.unlock();
+        }
+        if (!this.messageQueue.isEmpty()) // Callbacks left or arrived meanwhile
+            this.schedule();
+    }
+
+    /**
+     * Schedules a drain of the queue on the shared pool unless one is already scheduled.
+     */
+    private void schedule() {
+        if (!this.stop && !this.fusing && this.scheduled.compareAndSet(false, true))
+            SHARED_POOL.execute(this::drain);
     }
 
     /**
      * Puts the given message into the queue and schedules the callback for processing.
      * <p>
-     * This method places the topic and message into the queue, where they will be
-     * processed by the parallel thread.
+     * This method places the topic and message into the queue as a single entry,
+     * where they will be processed by the parallel thread. If the queue is full, the
+     * {@link Backpressure} policy of this agent decides whether the caller waits, the
+     * oldest callback is dropped, or the callback is rejected.
      * </p>
      * 
      * @param topic the name of the topic related to the callback
      * @param msg the message to be processed by the callback
+     * @throws RejectedExecutionException if the queue is full and the policy is {@link Backpressure#REJECT}
      */
     @Override
     public void callback(String topic, Message msg) {
+        if (this.inline) {
+            this.callbackNow(topic, msg);
+            return;
+        }
+        Envelope envelope = new Envelope(topic, msg);
+        if (!this.messageQueue.offer(envelope)) { // If the queue is full
+            switch (this.backpressure) {
+                case DROP_OLDEST:
+                    do {
+                        this.messageQueue.poll(); // Drop the oldest callback
+                    } while (!this.messageQueue.offer(envelope));
+                    break;
+                case REJECT:
+                    throw new RejectedExecutionException("Queue of agent " + this.getName() + " is full");
+                default:
+                    if (!this.put(envelope))
+                        return;
+                    break;
+            }
+        }
+        if (this.inline) // Fused while queuing, nothing else is left to take it
+            this.callbackNow();
+        else if (this.mode == ExecutionMode.POOL)
+            this.schedule();
+    }
+
+    /**
+     * Runs the callback of the wrapped agent on the calling thread, bypassing the queue.
+     * <p>
+     * Used once the agent is fused into the agent publishing to it. Callbacks still queued
+     * are run first, so the wrapped agent sees its messages in order.
+     * </p>
+     *
+     * @param topic the name of the topic related to the callback
+     * @param msg the message to be processed by the callback
+     */
+    void callbackNow(String topic, Message msg) {
+        this.callbackLock.lock();
+        try {
+            if (this.stop)
+                return;
+            this.callbackNow();
+            this.agent.callback(topic, msg);
+        } finally {
+            this.callbackLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the callback of the wrapped agent for several inputs at once on the calling
+     * thread, bypassing the queue.
+     * <p>
+     * Used by a {@link PropagationBatch} to hand an agent all its changed inputs at once.
+     * Callbacks still queued are run first, and no other callback runs in between.
+     * </p>
+     *
+     * @param inputs the message of each changed input, by topic name, in delivery order
+     */
+    void callbackNow(Map<String, Message> inputs) {
+        this.callbackLock.lock();
+        try {
+            if (this.stop)
+                return;
+            this.callbackNow();
+            this.agent.callback(inputs);
+        } finally {
+            this.callbackLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the queued callbacks of the wrapped agent on the calling thread.
+     */
+    private void callbackNow() {
+        this.callbackLock.lock();
+        try {
+            Envelope envelope;
+            while (!this.stop && (envelope = this.messageQueue.poll()) != null) { // Earlier callbacks first
+                if (envelope != WAKE)
+                    this.agent.callback(envelope.topic(), envelope.msg());
+            }
+        } finally {
+            this.callbackLock.unlock();
+        }
+    }
+
+    /**
+     * Fuses this agent into the agent publishing to it, so callbacks run on the calling
+     * thread instead of going through the queue.
+     * <p>
+     * The worker, or the drain scheduled on the pool, finishes its current callback and
+     * stops. Until then callbacks keep going to the queue, so one already taken from the
+     * queue can't be overtaken by a newer one. The callbacks still queued are then run
+     * before this method returns. Callbacks stay serial, as they run holding the same
+     * lock as before.
+     * </p>
+     */
+    void fuse() {
+        if (this.fusing || this.stop)
+            return;
+        this.fusing = true;
+        if (this.worker != null && Thread.currentThread() != this.worker) {
+            this.messageQueue.offer(WAKE); // Wake the thread if it waits on the queue; a full queue keeps it busy anyway
+            try {
+                this.worker.join(); // Wait for the current callback to finish
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.callbackLock.lock();
         try {
-            this.messageQueue.put(new Message(topic)); // Put the topic into the queue
-            this.messageQueue.put(msg); // Put the message into the queue
+            while (this.scheduled.get()) { // Wait for the drain scheduled on the pool
+                this.drained.awaitUninterruptibly();
+            }
+            this.inline = true;
+            this.callbackNow();
+        } finally {
+            this.callbackLock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether this agent was fused into the agent publishing to it.
+     *
+     * @return {@code true} if callbacks run on the calling thread, {@code false} if they are queued
+     */
+    public boolean isFused() {
+        return this.inline;
+    }
+
+    /**
+     * Waits until the given callback can be put into the queue.
+     * <p>
+     * A caller running on a fork/join pool lets the pool add a thread while it waits,
+     * so waiting agents cannot starve the shared pool.
+     * </p>
+     *
+     * @param envelope the callback to put into the queue
+     * @return {@code true} if the callback was queued, {@code false} if the caller was interrupted
+     */
+    private boolean put(Envelope envelope) {
+        try {
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    private boolean done = false;
+
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        messageQueue.put(envelope);
+                        done = true;
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return done || (done = messageQueue.offer(envelope));
+                    }
+                });
+            } else {
+                this.messageQueue.put(envelope); // Wait for space in the queue
+            }
+            return true;
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt(); // Keep the interrupt for the caller
+            return false;
         }
     }
 
@@ -106,14 +453,36 @@ public class ParallelAgent implements Agent {
     /**
      * Stops the parallel processing thread and closes the wrapped agent.
      * <p>
-     * This method sets the stop flag to true, which will terminate the processing
-     * thread, and then calls the wrapped agent's close method.
+     * This method sets the stop flag to true and interrupts the processing thread,
+     * waiting for it to finish its current callback. In {@link ExecutionMode#POOL} mode
+     * the pending callbacks are discarded instead, and a callback already running on the
+     * pool is waited for by taking the callback lock. The wrapped agent is then put back
+     * into its topics and its close method is called, so it never runs a callback
+     * while it is being closed.
      * </p>
      */
     @Override
     public void close() {
-        this.stop = true; // Stop the processing thread
-        this.agent.close(); // Close the wrapped agent
+        this.stop = true; // Stop the processing
+        this.messageQueue.clear();
+        if (this.worker != null && Thread.currentThread() != this.worker) {
+            this.worker.interrupt(); // Wake the thread if it waits on the queue
+            try {
+                this.worker.join(); // Wait for the current callback to finish
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        this.callbackLock.lock(); // Wait for a callback running on the pool
+        try {
+            for (Topic topic : TopicManagerSingleton.get().getTopicsOf(this)) { // Hand the topics back to the wrapped agent
+                topic.replace(this, this.agent);
+            }
+            this.agent.close(); // Close the wrapped agent
+        } finally {
+            this.callbackLock.unlock();
+        }
     }
 
     /**
@@ -135,4 +504,14 @@ public class ParallelAgent implements Agent {
         
         return this.agent.equals(other.agent); // Return if the wrapped agents are equal
     }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the wrapped agent.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return agent.hashCode();
+    }
 }
@@ -1,5 +1,8 @@
 package graph;
 
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Represents an agent that performs addition on values received from two input topics
  * and publishes the result to an output topic.
@@ -111,10 +114,38 @@ public class PlusAgent implements Agent {
      */
     @Override
     public void callback(String topic, Message msg) {
-        double num = msg.asDouble;
+        if (this.update(topic, msg))
+            this.publish();
+    }
+
+    /**
+     * Processes several inputs at once, updating every numeric value before publishing
+     * the sum a single time.
+     *
+     * @param inputs the message of each changed input, by topic name
+     */
+    @Override
+    public void callback(Map<String, Message> inputs) {
+        boolean update = false;
+        for (Map.Entry<String, Message> input : inputs.entrySet()) {
+            update |= this.update(input.getKey(), input.getValue());
+        }
+        if (update)
+            this.publish();
+    }
+
+    /**
+     * Updates the numeric value of an input topic.
+     *
+     * @param topic the name of the topic from which the message was received
+     * @param msg the message containing the numeric value
+     * @return {@code true} if a value was updated, {@code false} otherwise
+     */
+    private boolean update(String topic, Message msg) {
+        double num = msg.asDouble();
         boolean update = false;
         if (Double.isNaN(num)) // If message can't be interpreted as double
-            return;
+            return false;
 
         if (topic.equals(this.input1)){ // If topic is the first input
             this.num1 = num; // Update the first value
@@ -125,10 +156,17 @@ public class PlusAgent implements Agent {
             this.num2 = num; // Update the second value
             update = true;
         }
+        return update;
+    }
 
-        System.out.println("Agent: " + this.name + " Changed to: " + this.num1 + " " + this.num2);
+    /**
+     * Publishes the sum of the numeric values to the output topic.
+     */
+    private void publish() {
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Agent: " + this.name + " Changed to: " + this.num1 + " " + this.num2);
         
-        if (update && this.output != null) // Publish the result if both inputs are updated
+        if (this.output != null)
             TopicManagerSingleton.get().getTopic(this.output).publish(new Message(this.num1 + this.num2));
     }
 
@@ -170,4 +208,14 @@ public class PlusAgent implements Agent {
                this.input2.equals(other.input2) &&
                this.output.equals(other.output);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the input topics and output topic.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(input1, input2, output);
+    }
+}
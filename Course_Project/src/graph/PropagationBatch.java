@@ -0,0 +1,179 @@
+package graph;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Propagates a batch of topic updates through the agent graph in topological order,
+ * handing each agent all its changed inputs at once.
+ * <p>
+ * While a batch runs on a thread, {@link Topic#publish(Message)} calls made on that thread
+ * are collected instead of being delivered: only the last message of each topic is kept.
+ * Once the updates are in, topics and agents are taken one at a time, the one first in
+ * topological order going first. A topic is taken once every agent publishing to it ran,
+ * and saves its final message. An agent is taken once every topic it subscribes to was
+ * saved, and gets all its changed inputs in one call of {@link Agent#callback(Map)}. Agents
+ * combining several inputs, such as {@link PlusAgent}, {@link BinOpAgent} and
+ * {@link ExpressionAgent}, then compute and publish once even when several of their inputs
+ * changed, and agents downstream of a diamond never see intermediate values. Other agents
+ * keep the default, which runs their callback once per changed input.
+ * The agents run on the calling thread, including agents wrapped by a {@link ParallelAgent}.
+ * </p>
+ * <p>
+ * Publishing outside a batch, and publishing from other threads while a batch runs, works
+ * as before.
+ * </p>
+ */
+public final class PropagationBatch {
+
+    /**
+     * The batch running on each thread.
+     */
+    private static final ThreadLocal<PropagationBatch> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The last message published to each topic not taken yet.
+     */
+    private final Map<Topic, Message> pending = new IdentityHashMap<>();
+
+    /**
+     * The changed inputs of each agent not taken yet, by topic name, in delivery order.
+     */
+    private final Map<Agent, Map<String, Message>> inputs = new IdentityHashMap<>();
+
+    /**
+     * The topics and agents waiting to be taken, ordered by rank.
+     */
+    private final PriorityQueue<Object> ready;
+
+    /**
+     * Constructs a {@code PropagationBatch} ordering topics and agents by the given ranks.
+     *
+     * @param ranks the topological rank of each topic and agent; those without one go last
+     */
+    private PropagationBatch(Map<Object, Integer> ranks) {
+        this.ready = new PriorityQueue<>(Comparator.comparingInt(node -> ranks.getOrDefault(node, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Runs updates as a batch and propagates them through the graph.
+     * <p>
+     * Topics published by {@code updates} are saved once it returns, and their subscribers
+     * run together with the topics they publish in turn, in topological order. Called inside
+     * a batch, the updates simply join it.
+     * </p>
+     * <p>
+     * Every topic and agent is taken even if an agent throws. The first exception is rethrown
+     * afterwards, with later ones added as suppressed exceptions.
+     * </p>
+     *
+     * @param updates the code publishing the input updates
+     * @throws IllegalStateException if the graph of the topics contains a cycle
+     */
+    public static void run(Runnable updates) {
+        if (CURRENT.get() != null) {
+            updates.run(); // Joins the enclosing batch
+            return;
+        }
+        PropagationBatch batch = new PropagationBatch(TopicManagerSingleton.get().getRanks());
+        CURRENT.set(batch);
+        try {
+            updates.run();
+            batch.propagate();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Publishes messages to several topics as one batch.
+     *
+     * @param updates the message to publish to each topic, by topic name
+     * @throws IllegalStateException if the graph of the topics contains a cycle
+     * @see #run(Runnable)
+     */
+    public static void publish(Map<String, Message> updates) {
+        run(() -> updates.forEach((name, m) -> TopicManagerSingleton.get().getTopic(name).publish(m)));
+    }
+
+    /**
+     * Returns the batch running on the calling thread.
+     *
+     * @return the batch, or {@code null} outside a batch
+     */
+    static PropagationBatch current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Keeps a message until its topic is taken, replacing an earlier one.
+     *
+     * @param topic the topic the message was published to
+     * @param m the message
+     */
+    void defer(Topic topic, Message m) {
+        if (this.pending.put(topic, m) == null)
+            this.ready.add(topic);
+    }
+
+    /**
+     * Takes the waiting topics and agents in topological order until none is left.
+     */
+    private void propagate() {
+        RuntimeException failure = null;
+        Object node;
+        while ((node = this.ready.poll()) != null) {
+            try {
+                if (node instanceof Topic topic)
+                    this.save(topic, this.pending.remove(topic));
+                else
+                    runAgent((Agent) node, this.inputs.remove(node));
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Saves the final message of a topic and hands it to the subscribers as a changed input.
+     *
+     * @param topic the topic
+     * @param m the last message published to the topic in this batch
+     */
+    private void save(Topic topic, Message m) {
+        topic.dispatch(m);
+        for (Agent sub : topic.getSubs()) {
+            Map<String, Message> changed = this.inputs.get(sub);
+            if (changed == null) {
+                changed = new LinkedHashMap<>();
+                this.inputs.put(sub, changed);
+                this.ready.add(sub);
+            }
+            changed.put(topic.name, m);
+        }
+    }
+
+    /**
+     * Runs an agent once with all its changed inputs, through {@link Agent#callback(Map)}.
+     * The messages it publishes are kept by the batch, so each of its output topics is taken
+     * once, with its last message.
+     *
+     * @param agent the agent
+     * @param changed the message of each changed input, by topic name
+     */
+    private static void runAgent(Agent agent, Map<String, Message> changed) {
+        if (agent instanceof ParallelAgent parallel) {
+            parallel.callbackNow(changed);
+            return;
+        }
+        agent.callback(changed);
+    }
+}
@@ -1,7 +1,7 @@
 package graph;
 
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Objects;
 
 /**
  * Represents an agent that sorts a list of numeric values received from an input topic
@@ -9,10 +9,23 @@ import java.util.Comparator;
  * <p>
  * The {@code SortAgent} subscribes to an input topic to receive a comma-separated list of numeric values,
  * sorts these values in ascending order, and publishes the sorted list to an output topic.
+ * The values are parsed once into a {@code double[]} and sorted as primitives, in parallel for
+ * long lists, and written back with {@link DoubleLists}, so whole numbers keep their integer form.
+ * </p>
+ * <p>
+ * An optional second input topic receives deltas: lists of values to add to the current list.
+ * The agent keeps its list sorted, so a delta of {@code k} values is sorted on its own and merged
+ * in linear time instead of sorting the whole list again. A message on the first input topic
+ * replaces the list.
  * </p>
  */
 public class SortAgent implements Agent {
 
+    /**
+     * The length from which lists are sorted with {@link Arrays#parallelSort(double[])}.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
     /**
      * The name of this agent.
      */
@@ -23,15 +36,25 @@ public class SortAgent implements Agent {
      */
     private String input;
 
+    /**
+     * The input topic from which values to add to the list are received, or {@code null}.
+     */
+    private String delta;
+
     /**
      * The output topic to which the sorted list is published.
      */
     private String output;
 
     /**
-     * The list of numeric values to be sorted.
+     * The sorted values, in the first {@code size} entries.
+     */
+    private double[] list;
+
+    /**
+     * The number of values in the list.
      */
-    private String[] list;
+    private int size;
     
     /**
      * Constructs a {@code SortAgent} that subscribes to the specified input topic
@@ -39,6 +62,7 @@ public class SortAgent implements Agent {
      * <p>
      * The agent subscribes to the input topic specified in the {@code subs} array and
      * publishes the sorted list to the output topic specified in the {@code pubs} array.
+     * A second topic in the {@code subs} array is subscribed to as the delta topic.
      * </p>
      * 
      * @param subs an array containing the names of the input topics
@@ -53,6 +77,10 @@ public class SortAgent implements Agent {
             input = null;
             System.out.println("No subs for Agent: " + this.name);
         }
+        if (this.input != null && subs.length > 1) {
+            delta = subs[1];
+            TopicManagerSingleton.get().getTopic(this.delta).subscribe(this); // Subscribe to the delta topic
+        }
         try {
             output = pubs[0];
             TopicManagerSingleton.get().getTopic(this.output).addPublisher(this); // Add this agent as a publisher to the output topic
@@ -78,14 +106,17 @@ public class SortAgent implements Agent {
      */
     @Override
     public void reset() {
-        this.list = new String[0];
+        this.list = new double[0];
+        this.size = 0;
     }
 
     /**
      * Processes a callback by sorting the list of numeric values and publishing the sorted list.
      * <p>
-     * If the topic corresponds to {@code input}, the list is updated with the new values. The values are then
-     * parsed, sorted in ascending order, and published to the {@code output} topic.
+     * If the topic corresponds to {@code input}, the list is replaced with the new values. If it
+     * corresponds to {@code delta}, the new values are added to the list. The values are sorted
+     * in ascending order and the whole list is published to the {@code output} topic. A message
+     * that is not a list of numbers is ignored.
      * </p>
      * 
      * @param topic the name of the topic from which the message was received
@@ -93,26 +124,58 @@ public class SortAgent implements Agent {
      */
     @Override
     public void callback(String topic, Message msg) {
-        if (topic.equals(this.input)) { // If the topic is the input topic
-            this.list = msg.asText.split(","); // Update the list with new values
-            for (String str: this.list){
-                try {
-                    double num = Double.parseDouble(str);
-                    if (Double.isNaN(num))
-                        return;
-                } catch (NumberFormatException e) {
-                    return;
-                }
-            }
-            Arrays.sort(this.list, new Comparator<String>() { // Sort the list
-                public int compare(String s1, String s2) {
-                    return Double.compare(Double.parseDouble(s1), Double.parseDouble(s2));
-                }
-            });
-            System.out.println("Agent: " + this.name + " Changed to: " + Arrays.toString(this.list));
-            if (this.output != null) // Publish the sorted list
-                TopicManagerSingleton.get().getTopic(this.output).publish(new Message(String.join(",", this.list)));
+        boolean replace = topic.equals(this.input);
+        if (!replace && !topic.equals(this.delta))
+            return;
+        double[] values = DoubleLists.parse(msg.asText());
+        if (values == null)
+            return;
+        sort(values);
+        if (replace) { // Update the list with new values
+            this.list = values;
+            this.size = values.length;
+        } else {
+            this.merge(values);
+        }
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Agent: " + this.name + " Changed to: " + DoubleLists.format(this.list, 0, this.size));
+        if (this.output != null) // Publish the sorted list
+            TopicManagerSingleton.get().getTopic(this.output).publish(new Message(DoubleLists.format(this.list, 0, this.size)));
+    }
+
+    /**
+     * Sorts values in ascending order, in parallel from {@link #PARALLEL_THRESHOLD} values.
+     *
+     * @param values the values to sort
+     */
+    private static void sort(double[] values) {
+        if (values.length >= PARALLEL_THRESHOLD)
+            Arrays.parallelSort(values);
+        else
+            Arrays.sort(values);
+    }
+
+    /**
+     * Merges sorted values into the sorted list, growing it when needed.
+     * <p>
+     * The list is merged from its end, so the values already in place are moved at most once.
+     * </p>
+     *
+     * @param values the sorted values to add
+     */
+    private void merge(double[] values) {
+        int total = this.size + values.length;
+        if (total > this.list.length)
+            this.list = Arrays.copyOf(this.list, Math.max(total, this.list.length * 2));
+        int i = this.size - 1;
+        int j = values.length - 1;
+        for (int k = total - 1; j >= 0; k--) {
+            if (i >= 0 && Double.compare(this.list[i], values[j]) > 0)
+                this.list[k] = this.list[i--];
+            else
+                this.list[k] = values[j--];
         }
+        this.size = total;
     }
 
     /**
@@ -126,6 +189,8 @@ public class SortAgent implements Agent {
     public void close() {
         if (this.input != null)
             TopicManagerSingleton.get().getTopic(this.input).unsubscribe(this);
+        if (this.delta != null)
+            TopicManagerSingleton.get().getTopic(this.delta).unsubscribe(this);
         if (this.output != null)
             TopicManagerSingleton.get().getTopic(this.output).removePublisher(this);
     }
@@ -133,8 +198,8 @@ public class SortAgent implements Agent {
     /**
      * Compares this {@code SortAgent} to another object for equality.
      * <p>
-     * Two {@code SortAgent} instances are considered equal if they have the same input topic
-     * and output topic.
+     * Two {@code SortAgent} instances are considered equal if they have the same input topic,
+     * delta topic and output topic.
      * </p>
      * 
      * @param obj the object to be compared
@@ -148,6 +213,17 @@ public class SortAgent implements Agent {
         SortAgent other = (SortAgent) obj;
         
         return input.equals(other.input) &&
+               Objects.equals(delta, other.delta) &&
                output.equals(other.output);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, based on the input, delta and output topics.
+     *
+     * @return the hash code of this agent
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(input, delta, output);
+    }
+}
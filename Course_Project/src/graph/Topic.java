@@ -1,7 +1,11 @@
 package graph;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents a communication topic that manages subscribers and publishers,
@@ -11,8 +15,21 @@ import java.util.List;
  * a new message is published. Publishers are {@code Agent} instances that
  * can send messages to this topic.
  * </p>
+ * <p>
+ * The subscribers and publishers are kept in copy-on-write lists. Publishing iterates
+ * over a snapshot of the subscribers without locking, so it is safe to publish from
+ * many threads while agents are being added or removed. Changing the lists copies
+ * them, which is acceptable since it only happens when a configuration is loaded or closed.
+ * Every change is also reported to the {@link TopicManagerSingleton.TopicManager}, which keeps
+ * the topology of all topics.
+ * </p>
  */
 public class Topic {
+
+    /**
+     * The executor that delivers asynchronously published messages to subscribers.
+     */
+    private static final Executor DISPATCHER = ForkJoinPool.commonPool();
     
     /**
      * The name of the topic.
@@ -22,17 +39,23 @@ public class Topic {
     /**
      * List of agents subscribed to this topic.
      */
-    private List<Agent> subs = new ArrayList<>();
+    private final List<Agent> subs = new CopyOnWriteArrayList<>();
 
     /**
      * List of agents that are publishers for this topic.
      */
-    private List<Agent> pubs = new ArrayList<>();
+    private final List<Agent> pubs = new CopyOnWriteArrayList<>();
 
     /**
      * The last message published to this topic.
      */
-    private Message export;
+    private volatile Message export;
+
+    /**
+     * The completion of the last asynchronous delivery, used to deliver asynchronously
+     * published messages in the order they were published.
+     */
+    private CompletableFuture<Void> lastDelivery = CompletableFuture.completedFuture(null);
 
     /**
      * Constructs a {@code Topic} with the given name.
@@ -49,20 +72,28 @@ public class Topic {
 
     /**
      * Returns the list of subscribers to this topic.
+     * <p>
+     * The list can't be modified, so every change goes through {@link #subscribe(Agent)} and
+     * {@link #unsubscribe(Agent)} and reaches the topology kept by the topic manager.
+     * </p>
      * 
-     * @return the list of subscribers
+     * @return a read-only view of the subscribers
      */
     public List<Agent> getSubs() {
-        return this.subs;
+        return Collections.unmodifiableList(this.subs);
     }
 
     /**
      * Returns the list of publishers for this topic.
+     * <p>
+     * The list can't be modified, so every change goes through {@link #addPublisher(Agent)}
+     * and {@link #removePublisher(Agent)} and reaches the topology kept by the topic manager.
+     * </p>
      * 
-     * @return the list of publishers
+     * @return a read-only view of the publishers
      */
     public List<Agent> getPubs() {
-        return this.pubs;
+        return Collections.unmodifiableList(this.pubs);
     }
 
     /**
@@ -79,8 +110,9 @@ public class Topic {
      * 
      * @param a the agent to be added as a subscriber
      */
-    public void subscribe(Agent a) {
+    public synchronized void subscribe(Agent a) {
         this.subs.add(a);
+        TopicManagerSingleton.get().subscribed(this, a);
     }
 
     /**
@@ -88,10 +120,10 @@ public class Topic {
      * 
      * @param a the agent to be removed from the subscribers
      */
-    public void unsubscribe(Agent a) {
+    public synchronized void unsubscribe(Agent a) {
         for (int i = this.subs.size() - 1; i > -1; i--) {
             if (this.subs.get(i).equals(a)) {
-                this.subs.remove(i);
+                TopicManagerSingleton.get().unsubscribed(this, this.subs.remove(i));
                 break;
             }
         }
@@ -101,17 +133,132 @@ public class Topic {
      * Publishes a message to this topic.
      * <p>
      * The message is saved as the last published message and all subscribers
-     * are notified by calling their {@code callback} method.
+     * are notified by calling their {@code callback} method. Inside a
+     * {@link PropagationBatch} the message is handed to the batch instead, which
+     * delivers only the last message of the topic once the topics before it are done.
      * </p>
      * 
      * @param m the message to be published
      */
     public void publish(Message m) {
+        PropagationBatch batch = PropagationBatch.current();
+        if (batch != null) {
+            batch.defer(this, m);
+            return;
+        }
         this.export = m; // Save last message
-        System.out.println("Topic: " + this.name + " Changed to: " + this.export.asText);
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Topic: " + this.name + " Changed to: " + m.asText());
+        this.deliver(m);
+    }
+
+    /**
+     * Saves the message of a {@link PropagationBatch} as the last published message.
+     * The subscribers are not notified, the batch runs them itself.
+     * 
+     * @param m the message to be published
+     */
+    void dispatch(Message m) {
+        this.export = m; // Save last message
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Topic: " + this.name + " Changed to: " + m.asText());
+    }
+
+    /**
+     * Publishes a message to this topic without waiting for the subscribers.
+     * <p>
+     * The message is saved as the last published message right away, in the same
+     * order as the deliveries, and the subscribers are notified on a shared executor,
+     * off the caller's thread.
+     * Messages published asynchronously to the same topic are delivered in the
+     * order they were published. When a subscriber is a {@link ParallelAgent} with
+     * a full queue, its {@link Backpressure} policy applies on the executor thread.
+     * </p>
+     * 
+     * @param m the message to be published
+     * @return a future completed once every subscriber was notified, or completed
+     *         exceptionally with the first exception thrown by a subscriber
+     */
+    public CompletableFuture<Void> publishAsync(Message m) {
+        if (GraphLogger.isEnabled(GraphLogger.Level.DEBUG))
+            GraphLogger.debug("Topic: " + this.name + " Changed to: " + m.asText());
+        synchronized (this) {
+            this.export = m; // Save last message, in the order of the deliveries
+            CompletableFuture<Void> delivery = this.lastDelivery.thenRunAsync(() -> this.deliver(m), DISPATCHER);
+            this.lastDelivery = delivery.exceptionally(e -> null); // A failed delivery doesn't block later ones
+            return delivery;
+        }
+    }
+
+    /**
+     * Calls the callback of every subscriber with the given message.
+     * <p>
+     * Every subscriber is called even if an earlier one throws. The first exception
+     * is rethrown afterwards, with later ones added as suppressed exceptions.
+     * </p>
+     * 
+     * @param m the message to deliver
+     */
+    private void deliver(Message m) {
+        RuntimeException failure = null;
         for (Agent sub : this.subs) { // Call all subscribers' callbacks
-            sub.callback(this.name, m);
+            try {
+                sub.callback(this.name, m);
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Replaces an {@code Agent} with another one in the subscribers and publishers lists.
+     * <p>
+     * Agents are matched by identity, so wrapping agents such as {@link ParallelAgent}
+     * can take the place of the agent they wrap without relying on {@code equals}.
+     * </p>
+     * 
+     * @param a the agent to be replaced
+     * @param replacement the agent to put in its place
+     */
+    synchronized void replace(Agent a, Agent replacement) {
+        TopicManagerSingleton.TopicManager manager = TopicManagerSingleton.get();
+        int subCount = countIdentity(this.subs, a);
+        if (subCount > 0) { // Copy the list only when the agent is in it
+            this.subs.replaceAll(sub -> sub == a ? replacement : sub);
+            for (int i = 0; i < subCount; i++) {
+                manager.unsubscribed(this, a);
+                manager.subscribed(this, replacement);
+            }
+        }
+        int pubCount = countIdentity(this.pubs, a);
+        if (pubCount > 0) {
+            this.pubs.replaceAll(pub -> pub == a ? replacement : pub);
+            for (int i = 0; i < pubCount; i++) {
+                manager.publisherRemoved(this, a);
+                manager.publisherAdded(this, replacement);
+            }
+        }
+    }
+
+    /**
+     * Counts how many times a list holds the given agent instance.
+     *
+     * @param agents the list to search
+     * @param a the agent to find
+     * @return the number of entries that are this instance
+     */
+    private static int countIdentity(List<Agent> agents, Agent a) {
+        int count = 0;
+        for (Agent agent : agents) {
+            if (agent == a)
+                count++;
         }
+        return count;
     }
 
     /**
@@ -119,8 +266,9 @@ public class Topic {
      * 
      * @param a the agent to be added as a publisher
      */
-    public void addPublisher(Agent a) {
+    public synchronized void addPublisher(Agent a) {
         this.pubs.add(a);
+        TopicManagerSingleton.get().publisherAdded(this, a);
     }
 
     /**
@@ -128,10 +276,10 @@ public class Topic {
      * 
      * @param a the agent to be removed from the publishers
      */
-    public void removePublisher(Agent a) {
+    public synchronized void removePublisher(Agent a) {
         for (int i = this.pubs.size() - 1; i > -1; i--) {
             if (this.pubs.get(i).equals(a)) {
-                this.pubs.remove(i);
+                TopicManagerSingleton.get().publisherRemoved(this, this.pubs.remove(i));
                 break;
             }
         }
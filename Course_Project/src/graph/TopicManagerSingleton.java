@@ -1,7 +1,15 @@
 package graph;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Manages the creation and retrieval of {@code Topic} instances in a singleton pattern.
@@ -11,6 +19,12 @@ import java.util.Collection;
  * the key is the topic name and the value is the {@code Topic} instance.
  * </p>
  * <p>
+ * The manager also keeps the topology of the topics up to date: every subscription and
+ * publisher change made on a {@link Topic} is recorded in an adjacency index of the agents,
+ * so the topics of an agent and the {@link Graph} of the system are known without walking
+ * all topics again.
+ * </p>
+ * <p>
  * This class does not explicitly define a constructor. The default constructor is used
  * to initialize the class. The singleton instance is provided through the static
  * {@link #get()} method.
@@ -37,6 +51,50 @@ public class TopicManagerSingleton {
          */
         private ConcurrentHashMap<String, Topic> nameToTopic;
 
+        /**
+         * The topics each agent subscribes to and publishes on, keyed by agent identity.
+         * Guarded by this manager.
+         */
+        private final Map<Agent, AgentLinks> agentLinks = new IdentityHashMap<>();
+
+        /**
+         * The number of topology changes so far, used to tell whether the cached graph is current.
+         * Guarded by this manager.
+         */
+        private long version;
+
+        /**
+         * The graph built at {@link #graphVersion}, or {@code null}. Guarded by this manager.
+         */
+        private Graph graph;
+        private long graphVersion = -1;
+
+        /**
+         * The compact graph built at {@link #compactGraphVersion}, or {@code null}. Guarded by this manager.
+         */
+        private CompactGraph compactGraph;
+        private long compactGraphVersion = -1;
+
+        /**
+         * The topological rank of each topic and agent at {@link #ranksVersion}, or {@code null}.
+         * Guarded by this manager.
+         */
+        private Map<Object, Integer> ranks;
+        private long ranksVersion = -1;
+
+        /**
+         * The topics an agent is linked to, in the order it was linked to them.
+         * A topic appears once per subscription or publisher registration.
+         */
+        private static final class AgentLinks {
+            final List<Topic> inputs = new ArrayList<>();
+            final List<Topic> outputs = new ArrayList<>();
+
+            boolean isEmpty() {
+                return inputs.isEmpty() && outputs.isEmpty();
+            }
+        }
+
         /**
          * Private constructor to prevent instantiation from outside the class.
          * <p>
@@ -54,7 +112,8 @@ public class TopicManagerSingleton {
          * <p>
          * If the topic does not already exist, a new {@code Topic} instance is created
          * and added to the map. If another thread adds the topic before this thread, the
-         * existing topic is returned instead.
+         * existing topic is returned instead. A new topic is a topology change, so
+         * the cached graphs include it even before any agent links to it.
          * </p>
          * 
          * @param name the name of the topic to retrieve or create
@@ -67,6 +126,8 @@ public class TopicManagerSingleton {
                 Topic existingTopic = this.nameToTopic.putIfAbsent(name, topic); // Put if doesn't exist
                 if (existingTopic != null) {
                     topic = existingTopic; // If exists, set to the existing one
+                } else {
+                    this.topicCreated();
                 }
             }
             return topic;
@@ -81,6 +142,364 @@ public class TopicManagerSingleton {
             return this.nameToTopic.values();
         }
 
+        /**
+         * Returns the topics an agent subscribes to or publishes on.
+         * <p>
+         * The agent is matched by identity, and the answer comes from the adjacency index
+         * instead of a walk over all topics.
+         * </p>
+         *
+         * @param a the agent
+         * @return a new list of the agent's topics, each listed once
+         */
+        public synchronized List<Topic> getTopicsOf(Agent a) {
+            List<Topic> topics = new ArrayList<>();
+            AgentLinks links = this.agentLinks.get(a);
+            if (links != null) {
+                for (Topic topic : links.inputs) {
+                    if (!topics.contains(topic))
+                        topics.add(topic);
+                }
+                for (Topic topic : links.outputs) {
+                    if (!topics.contains(topic))
+                        topics.add(topic);
+                }
+            }
+            return topics;
+        }
+
+        /**
+         * Checks whether an agent closes a cycle, that is whether a message it publishes can
+         * come back to it through the topics and their subscribers.
+         * <p>
+         * When agents are checked as they are wired, the graph had no cycle before the agent
+         * joined, so any new cycle goes through it. The search starts from its output topics
+         * and only follows the adjacency index, visiting each reachable topic once.
+         * </p>
+         *
+         * @param a the agent, matched by identity
+         * @return {@code true} if the agent is on a cycle, {@code false} otherwise
+         */
+        public synchronized boolean createsCycle(Agent a) {
+            AgentLinks start = this.agentLinks.get(a);
+            if (start == null)
+                return false;
+            Map<Topic, Boolean> seen = new IdentityHashMap<>();
+            ArrayDeque<Topic> pending = new ArrayDeque<>(start.outputs);
+            while (!pending.isEmpty()) {
+                Topic topic = pending.pop();
+                if (seen.put(topic, Boolean.TRUE) != null)
+                    continue;
+                for (Agent sub : topic.getSubs()) {
+                    if (sub == a)
+                        return true;
+                    AgentLinks links = this.agentLinks.get(sub);
+                    if (links != null)
+                        pending.addAll(links.outputs);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether an agent linked to the given topics would close a cycle, before it is created.
+         * <p>
+         * The search starts from the existing output topics and only follows the adjacency index,
+         * looking for one of the input topics. Every listed topic counts, so an agent that links to
+         * fewer topics than it is given is judged as if it linked to all of them.
+         * </p>
+         *
+         * @param subs the names of the topics the agent would subscribe to
+         * @param pubs the names of the topics the agent would publish on
+         * @return {@code true} if a message published by the agent could come back to it, {@code false} otherwise
+         */
+        public synchronized boolean createsCycle(String[] subs, String[] pubs) {
+            List<String> inputs = Arrays.asList(subs);
+            Map<Topic, Boolean> seen = new IdentityHashMap<>();
+            ArrayDeque<Topic> pending = new ArrayDeque<>();
+            for (String name : pubs) {
+                if (inputs.contains(name))
+                    return true;
+                Topic topic = this.nameToTopic.get(name);
+                if (topic != null)
+                    pending.add(topic);
+            }
+            while (!pending.isEmpty()) {
+                Topic topic = pending.pop();
+                if (seen.put(topic, Boolean.TRUE) != null)
+                    continue;
+                if (inputs.contains(topic.name))
+                    return true;
+                for (Agent sub : topic.getSubs()) {
+                    AgentLinks links = this.agentLinks.get(sub);
+                    if (links != null)
+                        pending.addAll(links.outputs);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the graph of the topics and the agents linked to them.
+         * <p>
+         * The graph is built from the adjacency index and cached until the topology changes,
+         * so repeated calls between changes return the same instance. Topic nodes read the
+         * live message of their topic. The returned graph is shared and must not be modified.
+         * </p>
+         *
+         * @return the graph of the current topology
+         */
+        public synchronized Graph getGraph() {
+            if (this.graph == null || this.graphVersion != this.version) {
+                this.graph = this.buildGraph();
+                this.graphVersion = this.version;
+            }
+            return this.graph;
+        }
+
+        /**
+         * Returns the graph of the topics and the agents linked to them in compact form.
+         * <p>
+         * The graph is built straight from the adjacency index, without creating a {@link Node}
+         * per topic and agent, and cached until the topology changes. Topics come first, then
+         * the agents.
+         * </p>
+         *
+         * @return the compact graph of the current topology
+         */
+        public synchronized CompactGraph getCompactGraph() {
+            if (this.compactGraph == null || this.compactGraphVersion != this.version) {
+                this.compactGraph = this.buildCompactGraph();
+                this.compactGraphVersion = this.version;
+            }
+            return this.compactGraph;
+        }
+
+        /**
+         * Returns the position of every topic and agent in a topological order of the graph, so
+         * that an agent comes after the topics it subscribes to, and a topic after the agents
+         * publishing to it.
+         * <p>
+         * The ranks are computed once per topology change, from the compact graph.
+         * </p>
+         *
+         * @return an unmodifiable map from each topic and agent, by identity, to its rank
+         * @throws IllegalStateException if the graph contains a cycle
+         */
+        synchronized Map<Object, Integer> getRanks() {
+            if (this.ranks == null || this.ranksVersion != this.version) {
+                CompactGraph compact = this.getCompactGraph();
+                int[] order = compact.topologicalOrder();
+                Map<Object, Integer> built = new IdentityHashMap<>();
+                for (int rank = 0; rank < order.length; rank++) {
+                    Topic topic = compact.getTopic(order[rank]);
+                    built.put(topic != null ? topic : compact.getAgent(order[rank]), rank);
+                }
+                this.ranks = Collections.unmodifiableMap(built);
+                this.ranksVersion = this.version;
+            }
+            return this.ranks;
+        }
+
+        /**
+         * Fuses the linear chains of the graph, so each chain runs as one unit of execution.
+         * <p>
+         * A topic with a single publisher and a single subscriber, where the subscriber listens to
+         * no other topic, links two agents of a chain. When both are {@link ParallelAgent}s, the
+         * subscriber is fused: it stops its worker and runs its callbacks on the thread of the
+         * publisher, without going through its queue. A whole chain then runs on the worker of
+         * its first agent. The linking topics still save every message, so their values stay
+         * readable.
+         * </p>
+         * <p>
+         * Fused agents stay fused if the topology changes later. Agents are fused outside the lock
+         * of this manager, as each one waits for its worker to finish its current callback.
+         * </p>
+         *
+         * @return the number of agents fused by this call
+         */
+        public int fuseChains() {
+            List<ParallelAgent> fused = new ArrayList<>();
+            synchronized (this) {
+                for (Map.Entry<Agent, AgentLinks> entry : this.agentLinks.entrySet()) {
+                    List<Topic> inputs = entry.getValue().inputs;
+                    if (entry.getKey() instanceof ParallelAgent sub && !sub.isFused() && inputs.size() == 1) {
+                        Topic link = inputs.get(0);
+                        List<Agent> pubs = link.getPubs();
+                        if (link.getSubs().size() == 1 && pubs.size() == 1
+                                && pubs.get(0) instanceof ParallelAgent && pubs.get(0) != sub)
+                            fused.add(sub);
+                    }
+                }
+            }
+            for (ParallelAgent sub : fused) {
+                sub.fuse();
+            }
+            return fused.size();
+        }
+
+        /**
+         * Builds the compact graph of the current topology from the adjacency index.
+         *
+         * @return the new compact graph
+         */
+        private CompactGraph buildCompactGraph() {
+            List<Topic> topicList = new ArrayList<>(this.nameToTopic.values());
+            int topicCount = topicList.size();
+            int n = topicCount + this.agentLinks.size();
+            Map<Topic, Integer> topicIndex = new IdentityHashMap<>();
+            String[] names = new String[n];
+            Topic[] topics = new Topic[n];
+            Agent[] agents = new Agent[n];
+            for (int i = 0; i < topicCount; i++) {
+                Topic topic = topicList.get(i);
+                topicIndex.put(topic, i);
+                names[i] = "T" + topic.name;
+                topics[i] = topic;
+            }
+            BitSet topicNodes = new BitSet(n);
+            topicNodes.set(0, topicCount);
+
+            // Count the edges of each node: topic to subscriber, agent to output topic
+            List<AgentLinks> links = new ArrayList<>(this.agentLinks.size());
+            int[] offsets = new int[n + 1];
+            int agent = topicCount;
+            for (Map.Entry<Agent, AgentLinks> entry : this.agentLinks.entrySet()) {
+                names[agent] = "A" + entry.getKey().getName();
+                agents[agent] = entry.getKey();
+                links.add(entry.getValue());
+                offsets[agent + 1] = entry.getValue().outputs.size();
+                for (Topic input : entry.getValue().inputs) {
+                    offsets[topicIndex.get(input) + 1]++;
+                }
+                agent++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            int[] targets = new int[offsets[n]];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int a = 0; a < links.size(); a++) {
+                int node = topicCount + a;
+                for (Topic output : links.get(a).outputs) {
+                    targets[fill[node]++] = topicIndex.get(output);
+                }
+                for (Topic input : links.get(a).inputs) {
+                    targets[fill[topicIndex.get(input)]++] = node;
+                }
+            }
+            return new CompactGraph(names, topicNodes, topics, agents, offsets, targets);
+        }
+
+        /**
+         * Builds the graph of the current topology from the adjacency index.
+         *
+         * @return the new graph
+         */
+        private Graph buildGraph() {
+            Graph built = new Graph();
+            Map<Topic, Node> topicNodes = new IdentityHashMap<>();
+            for (Topic topic : this.nameToTopic.values()) {
+                Node node = new Node(topic);
+                topicNodes.put(topic, node);
+                built.add(node);
+            }
+            for (Map.Entry<Agent, AgentLinks> entry : this.agentLinks.entrySet()) {
+                Node agentNode = new Node("A" + entry.getKey().getName(), Node.Kind.AGENT);
+                built.add(agentNode);
+                for (Topic output : entry.getValue().outputs) {
+                    agentNode.addEdge(topicNodes.get(output));
+                }
+                for (Topic input : entry.getValue().inputs) {
+                    topicNodes.get(input).addEdge(agentNode);
+                }
+            }
+            return built;
+        }
+
+        /**
+         * Records that an agent subscribed to a topic.
+         *
+         * @param topic the topic
+         * @param a the subscriber
+         */
+        synchronized void subscribed(Topic topic, Agent a) {
+            if (this.isManaged(topic)) {
+                this.agentLinks.computeIfAbsent(a, k -> new AgentLinks()).inputs.add(topic);
+                this.version++;
+            }
+        }
+
+        /**
+         * Records that an agent unsubscribed from a topic.
+         *
+         * @param topic the topic
+         * @param a the removed subscriber
+         */
+        synchronized void unsubscribed(Topic topic, Agent a) {
+            AgentLinks links = this.agentLinks.get(a);
+            if (links != null && links.inputs.remove(topic)) {
+                this.unlinked(a, links);
+            }
+        }
+
+        /**
+         * Records that an agent became a publisher of a topic.
+         *
+         * @param topic the topic
+         * @param a the publisher
+         */
+        synchronized void publisherAdded(Topic topic, Agent a) {
+            if (this.isManaged(topic)) {
+                this.agentLinks.computeIfAbsent(a, k -> new AgentLinks()).outputs.add(topic);
+                this.version++;
+            }
+        }
+
+        /**
+         * Records that an agent stopped being a publisher of a topic.
+         *
+         * @param topic the topic
+         * @param a the removed publisher
+         */
+        synchronized void publisherRemoved(Topic topic, Agent a) {
+            AgentLinks links = this.agentLinks.get(a);
+            if (links != null && links.outputs.remove(topic)) {
+                this.unlinked(a, links);
+            }
+        }
+
+        /**
+         * Counts the creation of a topic as a topology change.
+         */
+        private synchronized void topicCreated() {
+            this.version++;
+        }
+
+        /**
+         * Drops an agent from the index once it has no topic left, and counts the change.
+         *
+         * @param a the agent
+         * @param links the remaining links of the agent
+         */
+        private void unlinked(Agent a, AgentLinks links) {
+            if (links.isEmpty())
+                this.agentLinks.remove(a);
+            this.version++;
+        }
+
+        /**
+         * Checks whether a topic is the one this manager holds under its name, so that
+         * changes made on topics dropped by {@link #clear()} are not recorded.
+         *
+         * @param topic the topic
+         * @return {@code true} if the topic is managed, {@code false} otherwise
+         */
+        private boolean isManaged(Topic topic) {
+            return this.nameToTopic.get(topic.name) == topic;
+        }
+
         /**
          * Clears all topics from the manager.
          * <p>
@@ -88,8 +507,10 @@ public class TopicManagerSingleton {
          * the state of the topic manager.
          * </p>
          */
-        public void clear() {
+        public synchronized void clear() {
             this.nameToTopic.clear();
+            this.agentLinks.clear();
+            this.version++;
         }
     }
 
@@ -0,0 +1,135 @@
+package server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a request body sent with {@code Transfer-Encoding: chunked}.
+ * <p>
+ * The chunk sizes, extensions and trailers are consumed as the body is read, so only
+ * the data of the chunks is returned, without holding more than the caller's buffer.
+ * The stream ends after the last chunk and its trailers, leaving the underlying stream
+ * at the start of the next request.
+ * </p>
+ */
+class ChunkedInputStream extends InputStream {
+
+    /**
+     * The longest chunk size or trailer line accepted.
+     */
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private final InputStream in;
+    private long chunkRemaining;
+    private boolean firstChunk = true;
+    private boolean finished;
+
+    /**
+     * Constructs a {@code ChunkedInputStream} reading from the given stream.
+     *
+     * @param in the stream positioned at the start of the chunked body
+     */
+    ChunkedInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads a byte of the body.
+     *
+     * @return the byte, or -1 at the end of the body
+     * @throws IOException if an I/O error occurs or the chunks are malformed
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    /**
+     * Reads bytes of the body, at most up to the end of the current chunk.
+     *
+     * @param b the buffer to read into
+     * @param off the offset in the buffer
+     * @param len the maximal number of bytes to read
+     * @return the number of bytes read, or -1 at the end of the body
+     * @throws IOException if an I/O error occurs or the chunks are malformed
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (finished)
+            return -1;
+        if (len == 0)
+            return 0;
+        if (chunkRemaining == 0 && !nextChunk())
+            return -1;
+        int n = in.read(b, off, (int) Math.min(len, chunkRemaining));
+        if (n < 0)
+            throw new EOFException("Connection ended inside a chunk");
+        chunkRemaining -= n;
+        return n;
+    }
+
+    /**
+     * Gets the number of bytes of the current chunk that can be read without blocking.
+     *
+     * @return the number of bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public int available() throws IOException {
+        return finished ? 0 : (int) Math.min(in.available(), chunkRemaining);
+    }
+
+    /**
+     * Reads the size line of the next chunk, and the trailers after the last chunk.
+     *
+     * @return {@code true} if a chunk with data follows, {@code false} at the end of the body
+     * @throws IOException if an I/O error occurs or the chunks are malformed
+     */
+    private boolean nextChunk() throws IOException {
+        if (!firstChunk && !readLine().isEmpty())
+            throw new IOException("Missing line break after a chunk");
+        firstChunk = false;
+
+        String line = readLine();
+        int extension = line.indexOf(';');
+        String size = (extension < 0 ? line : line.substring(0, extension)).trim();
+        try {
+            chunkRemaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size: " + line);
+        }
+        if (chunkRemaining < 0)
+            throw new IOException("Invalid chunk size: " + line);
+        if (chunkRemaining > 0)
+            return true;
+
+        // Last chunk, skip the trailers up to the empty line
+        while (!readLine().isEmpty()) {}
+        finished = true;
+        return false;
+    }
+
+    /**
+     * Reads a line of the chunk framing, without its line break.
+     *
+     * @return the line
+     * @throws IOException if an I/O error occurs, the stream ends, or the line is too long
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0)
+                throw new EOFException("Connection ended inside the chunk framing");
+            if (line.length() == MAX_LINE_LENGTH)
+                throw new IOException("Chunk framing line is too long");
+            line.append((char) c);
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r')
+            line.setLength(length - 1);
+        return line.toString();
+    }
+}
@@ -0,0 +1,302 @@
+package server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the parts of a {@code multipart/form-data} body one after the other.
+ * <p>
+ * The content of each part is streamed: {@link #getPartStream()} returns its bytes up to
+ * the next boundary while only a small buffer is held, so uploads of any size are read
+ * with bounded memory. Moving to the next part skips whatever remains of the current one.
+ * </p>
+ */
+public class MultipartReader {
+
+    /**
+     * The smallest size of the buffer holding the bytes read ahead.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+
+    private PartStream part;
+    private Map<String, String> headers = new HashMap<>();
+    private String name;
+    private String fileName;
+
+    /**
+     * Constructs a {@code MultipartReader} reading a body with the given boundary.
+     *
+     * @param in the stream of the body
+     * @param boundary the boundary from the {@code Content-Type} header
+     */
+    public MultipartReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buf = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+        // The first boundary may start the body, so read as if a line break preceded it
+        this.buf[0] = '\r';
+        this.buf[1] = '\n';
+        this.limit = 2;
+        this.part = new PartStream(); // The preamble
+    }
+
+    /**
+     * Reads the boundary of a multipart body from a {@code Content-Type} header value.
+     *
+     * @param contentType the value of the {@code Content-Type} header, may be {@code null}
+     * @return the boundary, or {@code null} if the value is not a multipart type with a boundary
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.regionMatches(true, 0, "multipart/", 0, 10))
+            return null;
+        String boundary = parameterOf(contentType, "boundary");
+        return boundary == null || boundary.isEmpty() ? null : boundary;
+    }
+
+    /**
+     * Moves to the next part, skipping the rest of the current one, and reads its headers.
+     *
+     * @return {@code true} if there is a next part, {@code false} after the last one
+     * @throws IOException if an I/O error occurs or the body is malformed
+     */
+    public boolean nextPart() throws IOException {
+        if (finished)
+            return false;
+        part.skipRemaining();
+
+        // After a boundary: "--" for the last one, otherwise a line break and the part headers
+        if (!ensure(2))
+            throw new EOFException("Multipart body ended without its closing boundary");
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            finished = true;
+            return false;
+        }
+        readLine(); // Rest of the boundary line
+
+        headers = new HashMap<>();
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0)
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+        }
+        String disposition = headers.get("content-disposition");
+        name = disposition == null ? null : parameterOf(disposition, "name");
+        fileName = disposition == null ? null : parameterOf(disposition, "filename");
+        part = new PartStream();
+        return true;
+    }
+
+    /**
+     * Gets the name of the current part, from its {@code Content-Disposition} header.
+     *
+     * @return the name of the form field, or {@code null} if the part has none
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the file name of the current part, from its {@code Content-Disposition} header.
+     *
+     * @return the file name, or {@code null} if the part is not a file
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets a header of the current part.
+     *
+     * @param headerName the name of the header, in any case
+     * @return the value of the header, or {@code null} if the part doesn't have it
+     */
+    public String getHeader(String headerName) {
+        return headers.get(headerName.toLowerCase());
+    }
+
+    /**
+     * Gets the content of the current part as a stream ending at the next boundary.
+     *
+     * @return the content of the part
+     */
+    public InputStream getPartStream() {
+        return part;
+    }
+
+    /**
+     * Reads a quoted or plain parameter of a header value, such as {@code name="file"}.
+     *
+     * @param value the header value
+     * @param key the name of the parameter
+     * @return the value of the parameter, or {@code null} if the header doesn't have it
+     */
+    private static String parameterOf(String value, String key) {
+        for (String param : value.split(";")) {
+            param = param.trim();
+            if (param.regionMatches(true, 0, key + "=", 0, key.length() + 1)) {
+                String result = param.substring(key.length() + 1);
+                if (result.length() > 1 && result.startsWith("\"") && result.endsWith("\""))
+                    result = result.substring(1, result.length() - 1);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a header line of a part, without its line break.
+     *
+     * @return the line
+     * @throws IOException if an I/O error occurs, the body ends, or the line doesn't fit the buffer
+     */
+    private String readLine() throws IOException {
+        int scanned = 0;
+        while (true) {
+            for (int i = pos + scanned; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    int end = i > pos && buf[i - 1] == '\r' ? i - 1 : i;
+                    String line = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+                    pos = i + 1;
+                    return line;
+                }
+            }
+            scanned = limit - pos;
+            if (scanned == buf.length)
+                throw new IOException("Multipart header line is too long");
+            if (!fill())
+                throw new EOFException("Multipart body ended inside the part headers");
+        }
+    }
+
+    /**
+     * Reads until at least the given number of bytes are buffered, or the body ends.
+     *
+     * @param count the number of bytes needed
+     * @return {@code true} if that many bytes are buffered, {@code false} if the body ended first
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private boolean ensure(int count) throws IOException {
+        while (limit - pos < count) {
+            if (!fill())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the buffered bytes to the start of the buffer and reads more after them.
+     *
+     * @return {@code true} if bytes were read, {@code false} at the end of the body
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    /**
+     * Finds the delimiter in the buffered bytes.
+     *
+     * @return the index of the delimiter, or -1 if it isn't buffered
+     */
+    private int findDelimiter() {
+        outer:
+        for (int i = pos; i <= limit - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * The content of a part, ending before the line break preceding the next boundary.
+     */
+    private final class PartStream extends InputStream {
+        private boolean ended;
+
+        /**
+         * Reads a byte of the part.
+         *
+         * @return the byte, or -1 at the end of the part
+         * @throws IOException if an I/O error occurs or the body ends without a boundary
+         */
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        /**
+         * Reads bytes of the part. Bytes that could start the next boundary are held
+         * back until enough follow to tell.
+         *
+         * @param b the buffer to read into
+         * @param off the offset in the buffer
+         * @param len the maximal number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the part
+         * @throws IOException if an I/O error occurs or the body ends without a boundary
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended || this != part)
+                return -1;
+            if (len == 0)
+                return 0;
+            while (true) {
+                int found = findDelimiter();
+                int safe = found >= 0 ? found - pos : limit - pos - (delimiter.length - 1);
+                if (safe > 0) {
+                    int n = Math.min(len, safe);
+                    System.arraycopy(buf, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                if (found >= 0) { // Delimiter reached
+                    pos = found + delimiter.length;
+                    ended = true;
+                    return -1;
+                }
+                if (!fill())
+                    throw new EOFException("Multipart body ended inside a part");
+            }
+        }
+
+        /**
+         * Skips the rest of the part, up to the next boundary.
+         *
+         * @throws IOException if an I/O error occurs or the body ends without a boundary
+         */
+        void skipRemaining() throws IOException {
+            byte[] skipped = new byte[BUFFER_SIZE];
+            while (read(skipped, 0, skipped.length) >= 0) {}
+        }
+    }
+}
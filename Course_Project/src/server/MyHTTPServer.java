@@ -1,14 +1,15 @@
 package server;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.concurrent.ConcurrentHashMap;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import server.RequestParser.RequestInfo;
@@ -18,27 +19,86 @@ import servlets.Servlet;
  * An HTTP server implementation that handles incoming HTTP requests.
  * The server supports handling multiple HTTP commands (GET, POST, DELETE) and 
  * utilizes a thread pool to manage concurrent client connections.
+ * <p>
+ * In {@link ServerConfig.Mode#VIRTUAL} mode every connection runs on its own virtual
+ * thread instead, so blocking servlets don't cap the number of concurrent connections.
+ * An optional connection limit stops accepting connections while that many are open,
+ * leaving further ones in the accept backlog.
+ * </p>
+ * <p>
+ * Connections are persistent: requests are read one after the other from the same
+ * socket, including pipelined ones, until the client asks to close it or it stays idle
+ * longer than the idle timeout. Responses are buffered and sent once no further
+ * request is already waiting. Servlets must therefore frame their responses with a
+ * {@code Content-Length} header.
+ * </p>
+ * <p>
+ * In {@link ServerConfig.Mode#POOL} mode a connection is closed instead once its response
+ * was sent and no further request is waiting, so idle keep-alive clients don't hold the
+ * threads of the pool away from other clients.
+ * </p>
  */
 public class MyHTTPServer extends Thread implements HTTPServer {
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes();
+    private static final byte[] NOT_FOUND = "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n".getBytes();
+    private static final byte[] BAD_REQUEST = "HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes();
     private final int port;
     private final int maxThreads;
+    private final int backlog;
+    private final int idleTimeout;
+    private final boolean pooled;
     private final ExecutorService threadPool;
-    private final ConcurrentHashMap<String, Servlet> getServlets = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Servlet> postServlets = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Servlet> deleteServlets = new ConcurrentHashMap<>();
+    private final Semaphore connections;
+    private final ServletRouter router = new ServletRouter();
     private volatile boolean running = true;
-    private ServerSocket serverSocket;
+    private ServerSocketChannel serverSocket;
 
     /**
-     * Constructs a new {@code MyHTTPServer} instance.
+     * Constructs a new {@code MyHTTPServer} instance running connections on a thread pool.
      *
      * @param port the port number on which the server will listen for incoming connections
      * @param maxThreads the maximum number of threads to use for handling client requests
      */
     public MyHTTPServer(int port, int maxThreads) {
-        this.port = port;
-        this.maxThreads = maxThreads;
-        this.threadPool = Executors.newFixedThreadPool(this.maxThreads);
+        this(configFor(port, maxThreads));
+    }
+
+    /**
+     * Constructs a new {@code MyHTTPServer} instance with the given settings.
+     * <p>
+     * Connections run on a fixed thread pool, or on virtual threads in
+     * {@link ServerConfig.Mode#VIRTUAL} mode.
+     * </p>
+     *
+     * @param config the settings of the server
+     */
+    public MyHTTPServer(ServerConfig config) {
+        this.port = config.getPort();
+        this.maxThreads = config.getThreads();
+        this.backlog = config.getBacklog();
+        this.idleTimeout = config.getIdleTimeout();
+        this.pooled = config.getMode() != ServerConfig.Mode.VIRTUAL;
+        if (config.getMode() == ServerConfig.Mode.VIRTUAL) {
+            this.threadPool = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.threadPool = Executors.newFixedThreadPool(this.maxThreads);
+        }
+        this.connections = config.getMaxConnections() > 0 ? new Semaphore(config.getMaxConnections()) : null;
+    }
+
+    /**
+     * Creates the settings of a pooled server.
+     *
+     * @param port the port number on which the server will listen for incoming connections
+     * @param maxThreads the number of threads in the pool
+     * @return the settings
+     */
+    private static ServerConfig configFor(int port, int maxThreads) {
+        ServerConfig config = new ServerConfig();
+        config.setMode(ServerConfig.Mode.POOL);
+        config.setPort(port);
+        config.setThreads(maxThreads);
+        return config;
     }
 
     /**
@@ -51,19 +111,7 @@ public class MyHTTPServer extends Thread implements HTTPServer {
      */
     @Override
     public void addServlet(String httpCommand, String uri, Servlet s) {
-        switch (httpCommand) {
-            case "GET":
-                getServlets.put(uri, s);
-                break;
-            case "POST":
-                postServlets.put(uri, s);
-                break;
-            case "DELETE":
-                deleteServlets.put(uri, s);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported HTTP command: " + httpCommand);
-        }
+        this.router.addServlet(httpCommand, uri, s);
     }
 
     /**
@@ -74,19 +122,7 @@ public class MyHTTPServer extends Thread implements HTTPServer {
      */
     @Override
     public void removeServlet(String httpCommand, String uri) {
-        switch (httpCommand.toUpperCase()) {
-            case "GET":
-                getServlets.remove(uri);
-                break;
-            case "POST":
-                postServlets.remove(uri);
-                break;
-            case "DELETE":
-                deleteServlets.remove(uri);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported HTTP command: " + httpCommand);
-        }
+        this.router.removeServlet(httpCommand, uri);
     }
 
     /**
@@ -105,23 +141,16 @@ public class MyHTTPServer extends Thread implements HTTPServer {
     @Override
     public void close() throws IOException {
         running = false;
+        this.interrupt(); // Wake the server thread if it waits for a free connection
         // Close all servlets
-        for (Servlet servlet: this.getServlets.values()){
-            servlet.close();
-        }
-        for (Servlet servlet: this.postServlets.values()){
-            servlet.close();
-        }
-        for (Servlet servlet: this.deleteServlets.values()){
-            servlet.close();
-        }
+        this.router.closeAll();
         // Close all threads
         threadPool.shutdown();
         try {
             if (!threadPool.awaitTermination(60, TimeUnit.SECONDS)) {
                 threadPool.shutdownNow();
             }
-            if (serverSocket != null && !serverSocket.isClosed()) {
+            if (serverSocket != null && serverSocket.isOpen()) {
                 serverSocket.close();
             }
         } catch (IOException | InterruptedException e) {
@@ -132,16 +161,38 @@ public class MyHTTPServer extends Thread implements HTTPServer {
 
     /**
      * The main server loop that accepts client connections and handles them.
+     * The listening socket is a blocking channel, so that every connection has a
+     * {@link SocketChannel} that files can be transferred to.
      */
     @Override
     public void run() {
-        try (ServerSocket server = new ServerSocket(port)) {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), backlog);
             serverSocket = server;
             while (running) {
+                if (connections != null) {
+                    try {
+                        connections.acquire(); // Wait for a free connection before accepting
+                    } catch (InterruptedException e) {
+                        break; // Closed
+                    }
+                }
+                SocketChannel clientSocket = null;
                 try {
-                    Socket clientSocket = server.accept();
-                    this.threadPool.submit(() -> handleClient(clientSocket));
-                } catch (IOException e) {
+                    clientSocket = server.accept();
+                    SocketChannel accepted = clientSocket;
+                    this.threadPool.submit(() -> handleClient(accepted));
+                } catch (IOException | RejectedExecutionException e) {
+                    if (connections != null) {
+                        connections.release();
+                    }
+                    if (clientSocket != null) {
+                        try {
+                            clientSocket.close(); // Not handled, the server is closing
+                        } catch (IOException closeError) {
+                            // Already closed
+                        }
+                    }
                     if (running) {
                         e.printStackTrace();
                     }
@@ -154,60 +205,70 @@ public class MyHTTPServer extends Thread implements HTTPServer {
 
     /**
      * Handles an individual client connection.
-     * Parses the HTTP request, finds the appropriate servlet, and handles the request.
+     * Parses the HTTP requests of the connection one after the other, finds the appropriate
+     * servlet for each, and handles it. The buffered responses are sent whenever no further
+     * request is already waiting, and the connection is closed when the client asks for it,
+     * stays idle longer than the idle timeout, or sends a malformed request. On a thread pool
+     * it is also closed as soon as no further request is waiting.
+     * The connection is counted as free again once the socket is closed.
      *
-     * @param clientSocket the {@link Socket} representing the client connection
+     * @param clientChannel the {@link SocketChannel} representing the client connection
      */
-    private void handleClient(Socket clientSocket) {
-        try (OutputStream out = clientSocket.getOutputStream();
-            BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()))) {
-            
-            RequestInfo requestInfo = RequestParser.parseRequest(in);
-            Servlet servlet = findServlet(requestInfo.getHttpCommand(), requestInfo.getUri());
-            
-            if (servlet != null) {
-                servlet.handle(requestInfo, out);
-            } else {
-                String response = "HTTP/1.1 404 Not Found\r\n\r\n";
-                out.write(response.getBytes());
+    private void handleClient(SocketChannel clientChannel) {
+        try (SocketChannel channel = clientChannel) {
+            Socket socket = channel.socket();
+            socket.setSoTimeout(idleTimeout);
+            RequestParser parser = new RequestParser(socket.getInputStream());
+            ResponseStream out = new ResponseStream(socket.getOutputStream(), channel);
+
+            boolean keepAlive = true;
+            while (keepAlive && running) {
+                RequestInfo requestInfo;
+                try {
+                    requestInfo = parser.next();
+                } catch (SocketTimeoutException e) {
+                    break; // Idle for too long
+                } catch (IllegalArgumentException e) {
+                    out.write(BAD_REQUEST);
+                    break;
+                }
+                if (requestInfo == null) {
+                    break; // Client closed the connection
+                }
+                if ("100-continue".equalsIgnoreCase(requestInfo.getHeader("expect"))) {
+                    out.write(CONTINUE); // The client waits for it before sending the body
+                    out.send();
+                }
+
+                ServletRouter.Match match;
+                try {
+                    match = this.router.find(requestInfo.getHttpCommand(), requestInfo.getUri());
+                } catch (IllegalArgumentException e) { // Malformed path parameter
+                    out.write(BAD_REQUEST);
+                    break;
+                }
+                if (match != null) {
+                    requestInfo.setPathParameters(match.parameters());
+                    match.servlet().handle(requestInfo, out);
+                } else {
+                    out.write(NOT_FOUND);
+                }
+
+                keepAlive = requestInfo.isKeepAlive();
+                if (!parser.hasBufferedInput()) { // No pipelined request waiting
+                    out.send();
+                    if (pooled) {
+                        break; // Free the pool thread instead of waiting for the next request
+                    }
+                }
             }
+            out.send();
         } catch (Exception e) {
             e.printStackTrace();
-        }
-    }
-
-    /**
-     * Finds the most appropriate servlet for the given HTTP command and URI.
-     * The servlet is selected based on the longest matching URI.
-     *
-     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
-     * @param uri the URI of the request
-     * @return the {@link Servlet} that matches the request, or {@code null} if no matching servlet is found
-     */
-    private Servlet findServlet(String httpCommand, String uri) {
-        ConcurrentHashMap<String, Servlet> servletMap;
-        switch (httpCommand.toUpperCase()) {
-            case "GET":
-                servletMap = getServlets;
-                break;
-            case "POST":
-                servletMap = postServlets;
-                break;
-            case "DELETE":
-                servletMap = deleteServlets;
-                break;
-            default:
-                return null;
-        }
-
-        String longestMatch = "";
-        Servlet matchedServlet = null;
-        for (String key : servletMap.keySet()) {
-            if (uri.startsWith(key) && key.length() > longestMatch.length()) {
-                longestMatch = key;
-                matchedServlet = servletMap.get(key);
+        } finally {
+            if (connections != null) {
+                connections.release();
             }
         }
-        return matchedServlet;
     }
-}
\ No newline at end of file
+}
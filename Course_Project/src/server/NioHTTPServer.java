@@ -0,0 +1,903 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import server.RequestParser.RequestInfo;
+import servlets.Servlet;
+
+/**
+ * An HTTP server implementation built on a {@link Selector} with non-blocking channels.
+ * <p>
+ * A single thread accepts connections and performs all reads and writes without blocking,
+ * so idle or slow clients don't hold any thread. Once the request line and headers of a request
+ * have been received, the request is handed to the matching {@link Servlet} on a thread pool, where
+ * a {@link RequestParser} frames it as on a blocking connection. The body is not waited for: the
+ * selector thread goes on reading it and queues it for the servlet, which streams it. A request with
+ * {@code Expect: 100-continue} is answered with {@code 100 Continue} before its servlet runs.
+ * </p>
+ * <p>
+ * The servlet's response is queued in pieces of {@value #RESPONSE_CHUNK} bytes and written back by
+ * the selector thread while the servlet goes on. At most {@value #MAX_QUEUED} bytes wait per connection
+ * in each direction: past that, the servlet blocks until the client has read some of its response, and
+ * the selector stops reading a body until the servlet has read some of it. Large files and uploads are
+ * thus never held whole in memory, but a slow client keeps a servlet thread busy while it sends its
+ * body or reads its response.
+ * </p>
+ * <p>
+ * Connections are kept open between requests unless the client asks otherwise, and requests
+ * pipelined behind the current one are handled in order once its response was sent. A connection
+ * waiting longer than the idle timeout for its next request, or for more of a body, is closed.
+ * A malformed request is answered with {@code 400 Bad Request}, and headers too large for the parser
+ * with {@code 431 Request Header Fields Too Large}, before the connection is closed.
+ * With a connection limit, the server stops accepting while that many connections are
+ * open, leaving further ones in the accept backlog.
+ * </p>
+ */
+public class NioHTTPServer extends Thread implements HTTPServer {
+
+    /**
+     * The size of the buffer a connection starts reading into.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * The size of the pieces a response is queued in.
+     */
+    private static final int RESPONSE_CHUNK = 64 * 1024;
+
+    /**
+     * The size of the pieces a request body is read in.
+     */
+    private static final int BODY_CHUNK = 16 * 1024;
+
+    /**
+     * The most bytes of a response, or of a request body, waiting per connection.
+     */
+    private static final int MAX_QUEUED = 4 * RESPONSE_CHUNK;
+
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes();
+    private static final byte[] NOT_FOUND = "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n".getBytes();
+    private static final byte[] BAD_REQUEST = "HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes();
+    private static final byte[] HEAD_TOO_LARGE = "HTTP/1.1 431 Request Header Fields Too Large\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes();
+
+    private final int port;
+    private final int backlog;
+    private final int maxConnections;
+    private final int idleTimeout;
+    private final ExecutorService threadPool;
+    private final ServletRouter router = new ServletRouter();
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BODY_CHUNK);
+    private volatile boolean running = true;
+    private volatile Selector selector;
+    private SelectionKey acceptKey;
+    private int openConnections = 0;
+    private long lastSweep = System.currentTimeMillis();
+
+    /**
+     * The state of a client connection, attached to its selection key.
+     * <p>
+     * The head buffer is used by the selector thread only. The body and response fields are
+     * shared with the servlet thread and guarded by the connection itself.
+     * </p>
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer request = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private int scanned;
+        private long lastActive = System.currentTimeMillis();
+
+        private final ArrayDeque<ByteBuffer> input = new ArrayDeque<>();
+        private int inputQueued;
+        private boolean active;
+        private boolean inputEnded;
+        private boolean awaitingInput;
+        private ByteBuffer leftover;
+
+        private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+        private int queued;
+        private boolean responseDone;
+        private boolean keepAlive;
+        private boolean closed;
+
+        /**
+         * Constructs the state of a newly accepted connection.
+         *
+         * @param channel the channel of the connection
+         */
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * The stream a servlet reads its request from. It returns the bytes the selector thread
+     * queued on the connection, blocking while none are queued.
+     */
+    private final class RequestInput extends InputStream {
+        private final Connection conn;
+
+        /**
+         * Constructs the request stream of a connection.
+         *
+         * @param conn the connection to read from
+         */
+        RequestInput(Connection conn) {
+            this.conn = conn;
+        }
+
+        /**
+         * Reads a byte of the request.
+         *
+         * @return the byte, or -1 if the client ended its side of the connection
+         * @throws IOException if the connection was closed
+         */
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        /**
+         * Reads the queued bytes of the request, waiting for the selector thread to queue some.
+         * The selector is woken once enough bytes were taken to read more.
+         *
+         * @param b the buffer to read into
+         * @param off the offset of the first byte to read into
+         * @param len the most bytes to read
+         * @return the number of bytes read, or -1 if the client ended its side of the connection
+         * @throws IOException if the connection was closed, or the thread interrupted
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n;
+            boolean resume;
+            synchronized (conn) {
+                ByteBuffer piece;
+                try {
+                    while ((piece = conn.input.peek()) == null) {
+                        if (conn.closed) {
+                            throw new IOException("Connection closed");
+                        }
+                        if (conn.inputEnded) {
+                            return -1;
+                        }
+                        conn.awaitingInput = true;
+                        conn.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading the request");
+                } finally {
+                    conn.awaitingInput = false;
+                }
+                n = Math.min(len, piece.remaining());
+                piece.get(b, off, n);
+                if (!piece.hasRemaining()) {
+                    conn.input.poll();
+                }
+                resume = conn.inputQueued >= MAX_QUEUED && conn.inputQueued - n < MAX_QUEUED;
+                conn.inputQueued -= n;
+            }
+            if (resume) {
+                wake(conn); // Room for the selector to read more
+            }
+            return n;
+        }
+
+        /**
+         * Returns the number of bytes that can be read without waiting.
+         *
+         * @return the number of bytes of the first queued piece
+         */
+        @Override
+        public int available() {
+            synchronized (conn) {
+                ByteBuffer piece = conn.input.peek();
+                return piece == null ? 0 : piece.remaining();
+            }
+        }
+    }
+
+    /**
+     * The stream a servlet writes its response to. The bytes are queued on the connection in
+     * pieces for the selector thread to write, blocking while too many of them wait.
+     */
+    private final class ResponseOutput extends OutputStream {
+        private final Connection conn;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Constructs the response stream of a connection.
+         *
+         * @param conn the connection to respond on
+         */
+        ResponseOutput(Connection conn) {
+            this.conn = conn;
+        }
+
+        /**
+         * Writes a byte to the response.
+         *
+         * @param b the byte to write
+         * @throws IOException if the connection was closed
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        /**
+         * Writes bytes to the response, queuing each piece that fills up.
+         *
+         * @param b the bytes to write
+         * @param off the offset of the first byte to write
+         * @param len the number of bytes to write
+         * @throws IOException if the connection was closed
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) {
+                    if (buffer.capacity() < RESPONSE_CHUNK) { // Small responses keep a small buffer
+                        ByteBuffer bigger = ByteBuffer.allocate(Math.min(buffer.capacity() * 4, RESPONSE_CHUNK));
+                        buffer = bigger.put(buffer.flip());
+                    } else {
+                        queue();
+                    }
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Does nothing: the bytes are sent once a piece is full or the response is finished.
+         */
+        @Override
+        public void flush() {
+        }
+
+        /**
+         * Queues the buffered piece, waiting while the connection has too many bytes queued.
+         *
+         * @throws IOException if the connection was closed, or the thread interrupted
+         */
+        private void queue() throws IOException {
+            buffer.flip();
+            synchronized (conn) {
+                try {
+                    while (!conn.closed && conn.queued >= MAX_QUEUED) {
+                        conn.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while sending the response");
+                }
+                if (conn.closed) {
+                    throw new IOException("Connection closed");
+                }
+                conn.output.add(buffer);
+                conn.queued += buffer.remaining();
+            }
+            buffer = ByteBuffer.allocate(RESPONSE_CHUNK);
+            wake(conn);
+        }
+
+        /**
+         * Queues a {@code 100 Continue} interim response, before anything else is written.
+         */
+        void sendContinue() {
+            synchronized (conn) {
+                if (conn.closed) {
+                    return;
+                }
+                conn.output.add(ByteBuffer.wrap(CONTINUE));
+                conn.queued += CONTINUE.length;
+            }
+            wake(conn);
+        }
+
+        /**
+         * Queues the rest of the response and marks it as done. The selector thread stops
+         * queuing the body, and frames the next request from the bytes read past this one.
+         *
+         * @param keepAlive whether the connection stays open for the next request
+         * @param leftover the bytes the parser read past the request, or {@code null} if none
+         */
+        void finish(boolean keepAlive, ByteBuffer leftover) {
+            buffer.flip();
+            synchronized (conn) {
+                if (conn.closed) {
+                    return;
+                }
+                if (buffer.hasRemaining()) {
+                    conn.output.add(buffer);
+                    conn.queued += buffer.remaining();
+                }
+                conn.active = false;
+                conn.leftover = leftover;
+                conn.keepAlive = keepAlive;
+                conn.responseDone = true;
+            }
+            wake(conn);
+        }
+
+        /**
+         * Checks whether the connection was closed, for instance by the client.
+         *
+         * @return {@code true} if the connection is closed, {@code false} otherwise
+         */
+        boolean isClosed() {
+            synchronized (conn) {
+                return conn.closed;
+            }
+        }
+    }
+
+    /**
+     * Constructs a new {@code NioHTTPServer} instance.
+     *
+     * @param port the port number on which the server will listen for incoming connections
+     * @param maxThreads the number of threads running servlets
+     */
+    public NioHTTPServer(int port, int maxThreads) {
+        this.port = port;
+        this.backlog = 0;
+        this.maxConnections = 0;
+        this.idleTimeout = 5000;
+        this.threadPool = Executors.newFixedThreadPool(maxThreads);
+    }
+
+    /**
+     * Constructs a new {@code NioHTTPServer} instance with the given settings.
+     * <p>
+     * The port, the number of servlet threads, the connection limit, the accept backlog
+     * and the idle timeout are taken from the settings. The execution mode is ignored.
+     * </p>
+     *
+     * @param config the settings of the server
+     */
+    public NioHTTPServer(ServerConfig config) {
+        this.port = config.getPort();
+        this.backlog = config.getBacklog();
+        this.maxConnections = config.getMaxConnections();
+        this.idleTimeout = config.getIdleTimeout();
+        this.threadPool = Executors.newFixedThreadPool(config.getThreads());
+    }
+
+    /**
+     * Adds a servlet for a specific HTTP command and URI.
+     * The servlet will handle requests matching the specified command and URI.
+     *
+     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+     * @param uri the URI for which the servlet should handle requests
+     * @param s the {@link Servlet} to handle requests
+     */
+    @Override
+    public void addServlet(String httpCommand, String uri, Servlet s) {
+        this.router.addServlet(httpCommand, uri, s);
+    }
+
+    /**
+     * Removes a servlet for a specific HTTP command and URI.
+     *
+     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+     * @param uri the URI for which the servlet should be removed
+     */
+    @Override
+    public void removeServlet(String httpCommand, String uri) {
+        this.router.removeServlet(httpCommand, uri);
+    }
+
+    /**
+     * Starts the server in a separate thread.
+     */
+    @Override
+    public void start() {
+        super.start();
+    }
+
+    /**
+     * Stops the server and cleans up resources.
+     *
+     * @throws IOException if an I/O error occurs while closing resources
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        Selector s = this.selector;
+        if (s != null) {
+            s.wakeup(); // Let the selector thread exit its loop
+        }
+        // Close all servlets
+        this.router.closeAll();
+        // Close all threads
+        threadPool.shutdown();
+        try {
+            if (!threadPool.awaitTermination(60, TimeUnit.SECONDS)) {
+                threadPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threadPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The selector loop that accepts connections, reads requests and writes responses,
+     * and closes idle connections about once a second.
+     */
+    @Override
+    public void run() {
+        try (Selector sel = Selector.open();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            this.selector = sel;
+            server.bind(new InetSocketAddress(port), backlog);
+            server.configureBlocking(false);
+            acceptKey = server.register(sel, SelectionKey.OP_ACCEPT);
+
+            while (running) {
+                sel.select(idleTimeout > 0 ? 1000 : 0);
+                Connection ready;
+                while ((ready = pending.poll()) != null) { // Changed by servlets
+                    SelectionKey key = ready.channel.keyFor(sel);
+                    if (key != null && key.isValid()) {
+                        key.interestOps(interestOps(ready));
+                    }
+                }
+
+                Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(server, sel);
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() instanceof Connection) {
+                            closeKey(key); // Drop the failed connection
+                        } else if (running) {
+                            e.printStackTrace(); // Accept failed, keep listening
+                        }
+                    }
+                }
+                closeIdle(sel);
+            }
+
+            for (SelectionKey key : sel.keys()) { // Close remaining connections
+                if (key.attachment() instanceof Connection) {
+                    closeKey(key);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Accepts a pending connection and registers it for reading.
+     *
+     * @param server the listening channel
+     * @param sel the selector to register the connection with
+     * @throws IOException if an I/O error occurs while accepting the connection
+     */
+    private void accept(ServerSocketChannel server, Selector sel) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(sel, SelectionKey.OP_READ, new Connection(channel));
+        openConnections++;
+        if (maxConnections > 0 && openConnections >= maxConnections) {
+            acceptKey.interestOps(0); // Leave further connections in the backlog
+        }
+    }
+
+    /**
+     * Reads the available bytes of a connection: the body of the request a servlet is handling,
+     * or else the head of the next request, which is dispatched once complete.
+     *
+     * @param key the selection key of the connection
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private void read(SelectionKey key) throws IOException {
+        Connection conn = (Connection) key.attachment();
+        boolean active;
+        synchronized (conn) {
+            active = conn.active;
+        }
+        if (active) {
+            readBody(key, conn);
+            return;
+        }
+
+        if (!conn.request.hasRemaining()) { // Grow the buffer
+            ByteBuffer bigger = ByteBuffer.allocate(conn.request.capacity() * 2);
+            conn.request.flip();
+            bigger.put(conn.request);
+            conn.request = bigger;
+        }
+        if (conn.channel.read(conn.request) < 0) { // Client closed before completing a request
+            closeKey(key);
+            return;
+        }
+        conn.lastActive = System.currentTimeMillis();
+        nextRequest(key, conn);
+    }
+
+    /**
+     * Reads a piece of the body of the request a servlet is handling, and queues it for the
+     * servlet. Bytes arriving once the servlet finished belong to the next request.
+     *
+     * @param key the selection key of the connection
+     * @param conn the connection being read
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private void readBody(SelectionKey key, Connection conn) throws IOException {
+        readBuffer.clear();
+        int n = conn.channel.read(readBuffer);
+        if (n == 0) {
+            return;
+        }
+        ByteBuffer piece = null;
+        if (n > 0) {
+            piece = ByteBuffer.allocate(n).put(readBuffer.flip()).flip();
+            conn.lastActive = System.currentTimeMillis();
+        }
+        synchronized (conn) {
+            if (n < 0) {
+                conn.inputEnded = true; // Answer what was received, then close
+            } else if (conn.active) {
+                conn.input.add(piece);
+                conn.inputQueued += n;
+            } else {
+                append(conn, piece);
+            }
+            conn.notifyAll();
+        }
+        key.interestOps(interestOps(conn));
+    }
+
+    /**
+     * Dispatches the next request of a connection if its head was received, answers
+     * {@code 431} if the head grew too large, or else waits for more of it.
+     *
+     * @param key the selection key of the connection
+     * @param conn the connection holding the start of its next request
+     */
+    private void nextRequest(SelectionKey key, Connection conn) {
+        if (hasHead(conn)) {
+            dispatch(key, conn);
+        } else if (conn.request.position() >= RequestParser.MAX_HEAD_SIZE) {
+            reject(key, conn, HEAD_TOO_LARGE);
+        } else if (conn.inputEnded) {
+            closeKey(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Hands the request of a connection to a servlet thread once its head was received.
+     * The bytes received so far are queued as the start of the request, and the selector
+     * thread keeps reading its body while the servlet runs.
+     *
+     * @param key the selection key of the connection
+     * @param conn the connection holding the head of a request
+     */
+    private void dispatch(SelectionKey key, Connection conn) {
+        ByteBuffer received = conn.request.flip();
+        conn.request = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        conn.scanned = 0;
+        synchronized (conn) {
+            conn.active = true;
+            conn.input.add(received);
+            conn.inputQueued += received.remaining();
+        }
+        key.interestOps(interestOps(conn));
+        threadPool.submit(() -> handle(conn));
+    }
+
+    /**
+     * Answers a request without a servlet and closes the connection once the answer was sent.
+     *
+     * @param key the selection key of the connection
+     * @param conn the connection to answer
+     * @param response the whole response
+     */
+    private static void reject(SelectionKey key, Connection conn, byte[] response) {
+        synchronized (conn) {
+            conn.output.add(ByteBuffer.wrap(response));
+            conn.queued += response.length;
+            conn.keepAlive = false;
+            conn.responseDone = true;
+        }
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Checks whether the buffered bytes of a connection hold the request line and headers of a
+     * request, up to the empty line ending them. The bytes are scanned once, from where the
+     * previous check stopped. Line breaks before the request line are skipped, as the parser does.
+     *
+     * @param conn the connection to check
+     * @return {@code true} if the whole head was received, {@code false} otherwise
+     */
+    private static boolean hasHead(Connection conn) {
+        byte[] buf = conn.request.array();
+        int length = conn.request.position();
+        int start = 0;
+        while (start < length && (buf[start] == '\r' || buf[start] == '\n')) {
+            start++;
+        }
+        for (int i = Math.max(start + 1, conn.scanned); i < length; i++) {
+            if (buf[i] == '\n' && (buf[i - 1] == '\n' || (buf[i - 1] == '\r' && i - 1 > start && buf[i - 2] == '\n'))) {
+                return true;
+            }
+        }
+        conn.scanned = length;
+        return false;
+    }
+
+    /**
+     * Parses a request and runs the matching servlet, streaming its body from the connection and
+     * its response to it. A malformed request gets a {@code 400 Bad Request}, and the connection
+     * is closed after it, after a failed servlet, or when the client doesn't keep it alive.
+     * Otherwise the unread body is skipped, and the bytes read past it are handed back to the
+     * selector thread as the start of the next request.
+     *
+     * @param conn the connection the request is read from
+     */
+    private void handle(Connection conn) {
+        ResponseOutput out = new ResponseOutput(conn);
+        RequestParser parser = new RequestParser(new RequestInput(conn));
+        boolean keepAlive = false;
+        ByteBuffer leftover = null;
+        try {
+            RequestInfo requestInfo;
+            ServletRouter.Match match;
+            try {
+                requestInfo = parser.next();
+                match = requestInfo == null ? null
+                        : this.router.find(requestInfo.getHttpCommand(), requestInfo.getUri());
+            } catch (IllegalArgumentException e) { // Malformed request or path parameter
+                requestInfo = null;
+                match = null;
+            }
+
+            if (requestInfo == null) {
+                out.write(BAD_REQUEST);
+            } else {
+                if ("100-continue".equalsIgnoreCase(requestInfo.getHeader("expect"))) {
+                    out.sendContinue(); // The client waits for it before sending the body
+                }
+                if (match != null) {
+                    requestInfo.setPathParameters(match.parameters());
+                    match.servlet().handle(requestInfo, out);
+                } else {
+                    out.write(NOT_FOUND);
+                }
+                keepAlive = requestInfo.isKeepAlive();
+                if (keepAlive) {
+                    leftover = parser.takeBuffered();
+                }
+            }
+        } catch (Exception e) {
+            keepAlive = false; // The response may be cut short
+            if (!out.isClosed()) {
+                e.printStackTrace();
+            }
+        }
+        out.finish(keepAlive, leftover);
+    }
+
+    /**
+     * Asks the selector thread to update what it waits for on a connection, after a servlet
+     * queued a response or took some of the body.
+     *
+     * @param conn the connection that changed
+     */
+    private void wake(Connection conn) {
+        pending.add(conn);
+        Selector sel = this.selector;
+        if (sel != null) {
+            sel.wakeup();
+        }
+    }
+
+    /**
+     * Writes as much of the queued response as the channel accepts, letting the servlet
+     * queue more. Once the whole response was sent, the connection is closed, or goes on
+     * with the next request.
+     *
+     * @param key the selection key of the connection
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private void write(SelectionKey key) throws IOException {
+        Connection conn = (Connection) key.attachment();
+        boolean keepAlive;
+        synchronized (conn) {
+            ByteBuffer piece;
+            while ((piece = conn.output.peek()) != null) {
+                conn.queued -= conn.channel.write(piece);
+                if (piece.hasRemaining()) {
+                    break; // The channel is full
+                }
+                conn.output.poll();
+            }
+            conn.notifyAll(); // Room for the servlet to queue more
+            if (!conn.output.isEmpty()) {
+                return;
+            }
+            if (!conn.responseDone) {
+                key.interestOps(interestOps(conn)); // Wait for the servlet
+                return;
+            }
+            conn.responseDone = false;
+            keepAlive = conn.keepAlive;
+            if (keepAlive) {
+                takeLeftover(conn);
+            }
+        }
+
+        if (!keepAlive) {
+            closeKey(key);
+            return;
+        }
+        conn.lastActive = System.currentTimeMillis();
+        nextRequest(key, conn); // A pipelined request may have been read already
+    }
+
+    /**
+     * Gathers the bytes read past the finished request, by the parser and by the selector
+     * thread, in front of the bytes read since, as the start of the next request.
+     *
+     * @param conn the connection whose servlet finished
+     */
+    private static void takeLeftover(Connection conn) {
+        int size = conn.request.position() + conn.inputQueued + (conn.leftover == null ? 0 : conn.leftover.remaining());
+        if (size == conn.request.position()) {
+            return;
+        }
+        ByteBuffer received = conn.request.flip();
+        conn.request = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE, size));
+        if (conn.leftover != null) {
+            conn.request.put(conn.leftover);
+            conn.leftover = null;
+        }
+        for (ByteBuffer piece : conn.input) {
+            conn.request.put(piece);
+        }
+        conn.input.clear();
+        conn.inputQueued = 0;
+        conn.request.put(received);
+        conn.scanned = 0;
+    }
+
+    /**
+     * Appends bytes to the head buffer of a connection, growing it when needed.
+     *
+     * @param conn the connection
+     * @param bytes the bytes to append
+     */
+    private static void append(Connection conn, ByteBuffer bytes) {
+        if (conn.request.remaining() < bytes.remaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(conn.request.position() + bytes.remaining());
+            conn.request = bigger.put(conn.request.flip());
+        }
+        conn.request.put(bytes);
+    }
+
+    /**
+     * Computes the operations the selector waits for on a connection: writing while a response
+     * is queued, and reading while a servlet takes the body and has room for more of it, or
+     * while no request is being handled.
+     *
+     * @param conn the connection
+     * @return the interest set of its selection key
+     */
+    private static int interestOps(Connection conn) {
+        synchronized (conn) {
+            boolean writing = !conn.output.isEmpty() || conn.responseDone;
+            boolean reading = conn.active ? !conn.inputEnded && conn.inputQueued < MAX_QUEUED : !writing;
+            return (writing ? SelectionKey.OP_WRITE : 0) | (reading ? SelectionKey.OP_READ : 0);
+        }
+    }
+
+    /**
+     * Closes the connections waiting for a request, or for more of a body, longer than
+     * the idle timeout. Connections are checked at most once a second.
+     *
+     * @param sel the selector the connections are registered with
+     */
+    private void closeIdle(Selector sel) {
+        long now = System.currentTimeMillis();
+        if (idleTimeout <= 0 || now - lastSweep < 1000) {
+            return;
+        }
+        lastSweep = now;
+        for (SelectionKey key : sel.keys()) {
+            if (key.isValid() && key.attachment() instanceof Connection conn
+                    && now - conn.lastActive > idleTimeout && isWaiting(key, conn)) {
+                closeKey(key);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a connection waits for its client: for the next request, or with its
+     * servlet waiting for more of the body.
+     *
+     * @param key the selection key of the connection
+     * @param conn the connection
+     * @return {@code true} if only the client can make the connection go on, {@code false} otherwise
+     */
+    private static boolean isWaiting(SelectionKey key, Connection conn) {
+        synchronized (conn) {
+            return conn.active ? conn.awaitingInput : key.interestOps() == SelectionKey.OP_READ;
+        }
+    }
+
+    /**
+     * Cancels the selection key of a connection and closes its channel, waking a servlet
+     * waiting to queue its response or to read the body. Accepting is resumed if the connection limit was reached.
+     *
+     * @param key the selection key to close
+     */
+    private void closeKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return; // Already closed
+        }
+        key.cancel();
+        Connection conn = (Connection) key.attachment();
+        synchronized (conn) {
+            conn.closed = true;
+            conn.output.clear();
+            conn.input.clear();
+            conn.notifyAll();
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        openConnections--;
+        if (maxConnections > 0 && openConnections < maxConnections && acceptKey.isValid()) {
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+}
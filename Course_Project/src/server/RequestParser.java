@@ -1,119 +1,631 @@
 package server;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.net.URLDecoder;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * A utility class for parsing HTTP requests from a {@link BufferedReader}.
- * This class is used to extract the HTTP method, URI, parameters, and content from incoming requests.
+ * Parses HTTP requests from the bytes of a connection.
+ * <p>
+ * A parser is created once per connection and reads its requests one after the other
+ * with {@link #next()}. The bytes are read into a reusable {@link ByteBuffer}, and the
+ * request line and headers are located by scanning that buffer, without decoding them
+ * into lines first. The resulting {@link RequestInfo} only records where the URI, the
+ * query and each header lie; their strings, the parameters and the body content are
+ * built the first time a servlet asks for them.
+ * </p>
+ * <p>
+ * The request line is expected to be in the format: &lt;httpMethod&gt; &lt;httpURI&gt; &lt;httpVersion&gt;.
+ * The body is not read with the head. It is framed by the {@code Content-Length} header or
+ * by {@code Transfer-Encoding: chunked}, and streamed from the connection as the servlet
+ * reads it through {@link RequestInfo#getBody()}. Whatever the servlet leaves unread is
+ * skipped before the next request is parsed.
+ * </p>
  */
 public class RequestParser {
 
     /**
-     * Constructs a {@code RequestParser} instance.
-     * <p>
-     * This default constructor is provided to allow instantiation of the class.
-     * </p>
+     * The size of the buffer a parser starts reading into.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    /**
+     * The largest request line and headers the parser accepts.
      */
-    public RequestParser() {
-        // Default constructor
+    static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final InputStream source = new BufferedSource();
+    private ByteBuffer buffer;
+    private InputStream body;
+
+    /**
+     * Constructs a {@code RequestParser} reading requests from a stream.
+     *
+     * @param in the stream of the connection
+     */
+    public RequestParser(InputStream in) {
+        if (in == null)
+            throw new IllegalArgumentException("InputStream cannot be null");
+        this.in = in;
+        this.buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.buffer.flip(); // Nothing to read yet
+    }
+
+    /**
+     * Constructs a {@code RequestParser} reading requests from bytes that were already received.
+     * The bytes are parsed in place, so the buffer must not be modified afterwards.
+     *
+     * @param request a heap buffer holding the bytes between its position and its limit
+     */
+    public RequestParser(ByteBuffer request) {
+        this.in = null;
+        this.buffer = request;
     }
 
     /**
-     * Parses an HTTP request from the provided {@link BufferedReader}.
-     * The request line is expected to be in the format: &lt;httpMethod&gt; &lt;httpURI&gt; &lt;httpVersion&gt;.
-     * Parameters and content are extracted based on the request type and format.
+     * Parses a single HTTP request from the provided stream.
+     * The parser may read past the end of the request, so this is only suited to
+     * streams holding one request.
      *
-     * @param reader the {@link BufferedReader} to read the HTTP request from
-     * @return a {@link RequestInfo} object containing the parsed request information
-     * @throws IOException if an I/O error occurs while reading from the reader
+     * @param in the stream to read the HTTP request from
+     * @return a {@link RequestInfo} object containing the parsed request information,
+     *         or {@code null} if the stream ended before a request started
+     * @throws IOException if an I/O error occurs while reading from the stream
      * @throws IllegalArgumentException if the request is malformed or invalid
      */
-    public static RequestInfo parseRequest(BufferedReader reader) throws IOException {
-        if (reader == null)
-            throw new IllegalArgumentException("BufferedReader cannot be null");
-        
-        String line = reader.readLine();
-        if (line == null || line.isEmpty())
-            throw new IllegalArgumentException("Request is empty");
-        
-        String[] parts = line.split(" "); // Split first line to httpCommand, URI and version
-        if (parts.length != 3)
-            throw new IllegalArgumentException("Invalid HTTP request line: " + line);
-
-        String httpMethod = parts[0];
-        String httpURI = parts[1];
-        
-        // Check if httpMethod is a handled HTTP command
-        if (!(httpMethod.equals("GET") || httpMethod.equals("POST") || httpMethod.equals("DELETE")))
-            throw new IllegalArgumentException("Invalid HTTP command: " + httpMethod);
-
-        String[] uriSegments;
-        Map<String, String> parameters = new HashMap<>(); // Hash map for parameter values
-        int questionMarkIndex = httpURI.indexOf('?'); // Find URI "?" index
-        if (questionMarkIndex != -1) {
-            uriSegments = httpURI.substring(1, questionMarkIndex).split("/"); // Split segments by "/"
-            String paramString = httpURI.substring(questionMarkIndex + 1);
-            String[] paramPairs = paramString.split("&"); // Split parameters by "&"
-            for (String pair : paramPairs) {
-                String[] keyValue = pair.split("="); // App parameter and value to map
-                if (keyValue.length != 2)
-                    throw new IllegalArgumentException("Invalid HTTP parameter: " + pair);
-                String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
-                String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
-                parameters.put(key, value);
-            }
+    public static RequestInfo parseRequest(InputStream in) throws IOException {
+        return new RequestParser(in).next();
+    }
+
+    /**
+     * Parses the next HTTP request of the connection.
+     * Empty lines before the request line are skipped.
+     *
+     * @return a {@link RequestInfo} object containing the parsed request information,
+     *         or {@code null} if the connection ended before a request started
+     * @throws IOException if an I/O error occurs while reading from the connection
+     * @throws IllegalArgumentException if the request is malformed or invalid
+     */
+    public RequestInfo next() throws IOException {
+        discardBody();
+
+        // Skip the line breaks some clients send after a body
+        while (true) {
+            if (!buffer.hasRemaining() && !fill())
+                return null; // Connection ended
+            byte b = buffer.get(buffer.position());
+            if (b != '\r' && b != '\n')
+                break;
+            buffer.position(buffer.position() + 1);
+        }
+
+        int headLength = readHead();
+        int start = buffer.position();
+        byte[] data;
+        int from;
+        if (in == null) { // The buffer isn't reused, parse in place
+            data = buffer.array();
+            from = buffer.arrayOffset() + start;
+        } else { // Keep the head once the buffer is reused for the next request
+            data = Arrays.copyOfRange(buffer.array(), start, start + headLength);
+            from = 0;
+        }
+        buffer.position(start + headLength);
+
+        RequestInfo requestInfo = parseHead(data, from, from + headLength);
+        if (requestInfo.isChunked()) {
+            body = new ChunkedInputStream(source);
         } else {
-            uriSegments = httpURI.substring(1).split("/"); // If no "?" then split segments by "/"
-        }
-        
-        // Continue until header ends
-        while (reader.ready() && (line = reader.readLine()) != null && !line.isEmpty()) {}
-        // Continue until lines with "-----" ends
-        while (reader.ready() && (line = reader.readLine()) != null && !line.contains("------")) {}
-
-        // While there are more lines and new line has "="
-        while (reader.ready() && (line = reader.readLine()) != null && !line.isEmpty() && line.contains("=")) {
-            if (line.contains(" filename=")) { // If there is parameter filename
-                String[] params = line.split(" ");
-                line = line.split(" ")[params.length - 1]; // Set line to the last part
+            long contentLength = requestInfo.getContentLength();
+            body = contentLength == 0 ? InputStream.nullInputStream() : new FixedLengthInputStream(source, contentLength);
+        }
+        requestInfo.setBody(body);
+        return requestInfo;
+    }
+
+    /**
+     * Checks whether bytes of a further request were already received.
+     * Servers use it to hold responses back while pipelined requests are waiting.
+     * The unread body of the current request is skipped first.
+     *
+     * @return {@code true} if more bytes can be read without waiting, {@code false} otherwise
+     * @throws IOException if an I/O error occurs while checking the connection
+     */
+    public boolean hasBufferedInput() throws IOException {
+        discardBody();
+        return buffer.hasRemaining() || (in != null && in.available() > 0);
+    }
+
+    /**
+     * Skips what the servlet left unread of the current body, and hands over the bytes
+     * already read past it, which start the next request. Servers feeding the parser
+     * from a queue use it to frame the next request themselves.
+     *
+     * @return the buffered bytes following the current request
+     * @throws IOException if an I/O error occurs or the body is malformed
+     */
+    ByteBuffer takeBuffered() throws IOException {
+        discardBody();
+        ByteBuffer rest = buffer.slice();
+        buffer.position(buffer.limit());
+        return rest;
+    }
+
+    /**
+     * Reads until the buffer holds the whole request line and headers, up to the empty line ending them.
+     *
+     * @return the number of bytes of the head, from the buffer position
+     * @throws IOException if an I/O error occurs while reading
+     * @throws IllegalArgumentException if the head is too large or the connection ends inside it
+     */
+    private int readHead() throws IOException {
+        int scanned = 0;
+        while (true) {
+            byte[] a = buffer.array();
+            int p = buffer.arrayOffset() + buffer.position();
+            int limit = buffer.arrayOffset() + buffer.limit();
+            for (int i = p + scanned; i < limit; i++) {
+                if (a[i] == '\n' && i > p && (a[i - 1] == '\n' || (a[i - 1] == '\r' && i - 1 > p && a[i - 2] == '\n')))
+                    return i + 1 - p;
+            }
+            scanned = limit - p;
+            if (scanned >= MAX_HEAD_SIZE)
+                throw new IllegalArgumentException("Request head is too large");
+            if (!fill())
+                throw new IllegalArgumentException("Connection ended inside the request head");
+        }
+    }
+
+    /**
+     * Reads more bytes from the stream into the buffer, compacting or growing it first.
+     *
+     * @return {@code true} if bytes were read, {@code false} at the end of the stream or without a stream
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private boolean fill() throws IOException {
+        if (in == null)
+            return false;
+        if (buffer.remaining() == buffer.capacity()) { // Full of unread bytes, grow it
+            ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+            bigger.put(buffer);
+            bigger.flip();
+            buffer = bigger;
+        }
+        buffer.compact();
+        int n = in.read(buffer.array(), buffer.position(), buffer.remaining());
+        if (n > 0)
+            buffer.position(buffer.position() + n);
+        buffer.flip();
+        return n > 0;
+    }
+
+    /**
+     * Skips what the servlet left unread of the current body, so the next request can be read.
+     *
+     * @throws IOException if an I/O error occurs or the body is malformed
+     */
+    private void discardBody() throws IOException {
+        if (body != null) {
+            body.transferTo(OutputStream.nullOutputStream());
+            body = null;
+        }
+    }
+
+    /**
+     * Locates the parts of the request line and the headers in the head bytes.
+     *
+     * @param data the bytes holding the head
+     * @param from the index of the first byte of the head
+     * @param to the index after the empty line ending the head
+     * @return the request, pointing into {@code data}
+     * @throws IllegalArgumentException if the request line or a header is invalid
+     */
+    private static RequestInfo parseHead(byte[] data, int from, int to) {
+        int lineEnd = lineEnd(data, from, to);
+        int methodEnd = indexOf(data, from, lineEnd, (byte) ' ');
+        int uriEnd = methodEnd < 0 ? -1 : indexOf(data, methodEnd + 1, lineEnd, (byte) ' ');
+        if (uriEnd < 0 || indexOf(data, uriEnd + 1, lineEnd, (byte) ' ') >= 0 || uriEnd + 1 == lineEnd)
+            throw new IllegalArgumentException("Invalid HTTP request line: " + ascii(data, from, lineEnd));
+
+        // Check if the method is a handled HTTP command
+        String httpMethod;
+        if (regionEquals(data, from, methodEnd, "GET"))
+            httpMethod = "GET";
+        else if (regionEquals(data, from, methodEnd, "POST"))
+            httpMethod = "POST";
+        else if (regionEquals(data, from, methodEnd, "DELETE"))
+            httpMethod = "DELETE";
+        else
+            throw new IllegalArgumentException("Invalid HTTP command: " + ascii(data, from, methodEnd));
+
+        int uriStart = methodEnd + 1;
+        int queryStart = indexOf(data, uriStart, uriEnd, (byte) '?');
+        if (queryStart < 0)
+            queryStart = uriEnd;
+        else
+            checkQuery(data, queryStart + 1, uriEnd);
+
+        // Record the bounds of each header: name start, name end, value start, value end
+        int[] headers = new int[16 * 4];
+        int headerCount = 0;
+        int lineStart = nextLine(data, lineEnd, to);
+        while (lineStart < to) {
+            lineEnd = lineEnd(data, lineStart, to);
+            if (lineEnd == lineStart)
+                break; // Empty line ending the headers
+            int colon = indexOf(data, lineStart, lineEnd, (byte) ':');
+            if (colon > lineStart) {
+                if (headerCount * 4 == headers.length)
+                    headers = Arrays.copyOf(headers, headers.length * 2);
+                int base = headerCount++ * 4;
+                headers[base] = skipSpaces(data, lineStart, colon);
+                headers[base + 1] = trimSpaces(data, lineStart, colon);
+                headers[base + 2] = skipSpaces(data, colon + 1, lineEnd);
+                headers[base + 3] = trimSpaces(data, colon + 1, lineEnd);
+            }
+            lineStart = nextLine(data, lineEnd, to);
+        }
+
+        return new RequestInfo(httpMethod, data, uriStart, queryStart, uriEnd, uriEnd + 1,
+                lineEnd(data, from, to), headers, headerCount);
+    }
+
+    /**
+     * Checks that every parameter of a query has the form {@code key=value}.
+     * Empty parameters, as left by a trailing {@code &}, are skipped.
+     *
+     * @param data the bytes holding the query
+     * @param from the index of the first byte of the query
+     * @param to the index after the query
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    private static void checkQuery(byte[] data, int from, int to) {
+        int pairStart = from;
+        while (pairStart <= to) {
+            int pairEnd = indexOf(data, pairStart, to, (byte) '&');
+            if (pairEnd < 0)
+                pairEnd = to;
+            int equals = indexOf(data, pairStart, pairEnd, (byte) '=');
+            if (pairEnd > pairStart && (equals <= pairStart || equals == pairEnd - 1 || indexOf(data, equals + 1, pairEnd, (byte) '=') >= 0))
+                throw new IllegalArgumentException("Invalid HTTP parameter: " + ascii(data, pairStart, pairEnd));
+            pairStart = pairEnd + 1;
+        }
+    }
+
+    /**
+     * Finds the end of a line, excluding its line break.
+     *
+     * @param data the bytes to search
+     * @param from the index of the first byte of the line
+     * @param to the index after the last byte that may be searched
+     * @return the index of the {@code \r\n} or {@code \n} ending the line, or {@code to} if there is none
+     */
+    private static int lineEnd(byte[] data, int from, int to) {
+        int newline = indexOf(data, from, to, (byte) '\n');
+        if (newline < 0)
+            return to;
+        return newline > from && data[newline - 1] == '\r' ? newline - 1 : newline;
+    }
+
+    /**
+     * Finds the start of the line following a line end.
+     *
+     * @param data the bytes to search
+     * @param lineEnd the index returned by {@link #lineEnd(byte[], int, int)}
+     * @param to the index after the last byte that may be searched
+     * @return the index of the first byte of the next line
+     */
+    private static int nextLine(byte[] data, int lineEnd, int to) {
+        if (lineEnd < to && data[lineEnd] == '\r')
+            lineEnd++;
+        return Math.min(lineEnd + 1, to);
+    }
+
+    /**
+     * Finds the first occurrence of a byte in a range.
+     *
+     * @param data the bytes to search
+     * @param from the index of the first byte to search
+     * @param to the index after the last byte to search
+     * @param b the byte to find
+     * @return the index of the byte, or -1 if it doesn't occur
+     */
+    private static int indexOf(byte[] data, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips the spaces and tabs at the start of a range.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @return the index of the first other byte, or {@code to}
+     */
+    private static int skipSpaces(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '\t'))
+            from++;
+        return from;
+    }
+
+    /**
+     * Skips the spaces and tabs at the end of a range.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @return the index after the last other byte, or {@code from}
+     */
+    private static int trimSpaces(byte[] data, int from, int to) {
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '\t'))
+            to--;
+        return to;
+    }
+
+    /**
+     * Compares a range of bytes with an ASCII string.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @param s the string to compare with
+     * @return {@code true} if the range holds exactly the string, {@code false} otherwise
+     */
+    private static boolean regionEquals(byte[] data, int from, int to, String s) {
+        if (to - from != s.length())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (data[from + i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares a range of bytes with an ASCII string, ignoring case.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @param s the string to compare with
+     * @return {@code true} if the range holds the string in any case, {@code false} otherwise
+     */
+    private static boolean regionEqualsIgnoreCase(byte[] data, int from, int to, String s) {
+        if (to - from != s.length())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            int b = data[from + i];
+            int c = s.charAt(i);
+            if (b != c) {
+                int lower = b | 0x20; // Only letters may differ, by case
+                if (lower != (c | 0x20) || lower < 'a' || lower > 'z')
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a range of bytes as ASCII text.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @return the text of the range
+     */
+    private static String ascii(byte[] data, int from, int to) {
+        return new String(data, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decodes a URL encoded range of bytes, as done by {@link java.net.URLDecoder}.
+     * Ranges without {@code %} or {@code +} are decoded directly.
+     *
+     * @param data the bytes of the range
+     * @param from the index of the first byte of the range
+     * @param to the index after the range
+     * @return the decoded text
+     * @throws IllegalArgumentException if a {@code %} escape is invalid
+     */
+    private static String urlDecode(byte[] data, int from, int to) {
+        int i = from;
+        while (i < to && data[i] != '%' && data[i] != '+')
+            i++;
+        if (i == to)
+            return new String(data, from, to - from, StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(to - from);
+        decoded.write(data, from, i - from);
+        while (i < to) {
+            byte b = data[i];
+            if (b == '+') {
+                decoded.write(' ');
+                i++;
+            } else if (b == '%') {
+                if (i + 2 >= to)
+                    throw new IllegalArgumentException("Incomplete escape in parameter: " + ascii(data, from, to));
+                int high = Character.digit(data[i + 1], 16);
+                int low = Character.digit(data[i + 2], 16);
+                if (high < 0 || low < 0)
+                    throw new IllegalArgumentException("Invalid escape in parameter: " + ascii(data, from, to));
+                decoded.write((high << 4) | low);
+                i += 3;
+            } else {
+                decoded.write(b);
+                i++;
+            }
+        }
+        return decoded.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The bytes of the connection, read from the buffer first and then from the stream.
+     * Reads that find the buffer empty go to the stream directly, so large bodies are
+     * not copied through the buffer.
+     */
+    private final class BufferedSource extends InputStream {
+
+        /**
+         * Reads a byte of the connection.
+         *
+         * @return the byte, or -1 at the end of the connection
+         * @throws IOException if an I/O error occurs while reading
+         */
+        @Override
+        public int read() throws IOException {
+            if (buffer.hasRemaining())
+                return buffer.get() & 0xff;
+            return in == null ? -1 : in.read();
+        }
+
+        /**
+         * Reads bytes of the connection.
+         *
+         * @param b the buffer to read into
+         * @param off the offset in the buffer
+         * @param len the maximal number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the connection
+         * @throws IOException if an I/O error occurs while reading
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (buffer.hasRemaining()) {
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
             }
-                
-            String[] keyValue = line.split("="); // Split the line by "="
-            if (keyValue.length != 2)
-                throw new IllegalArgumentException("Invalid HTTP parameter: " + line);
-            parameters.put(keyValue[0], keyValue[1].substring(1, keyValue[1].length() - 1)); // Add parameter to map
+            return in == null ? -1 : in.read(b, off, len);
         }
 
-        // Continue until content part
-        while (reader.ready() && (line = reader.readLine()) != null && !line.isEmpty()) {}
+        /**
+         * Gets the number of bytes that can be read without blocking.
+         *
+         * @return the number of bytes
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining() + (in == null ? 0 : in.available());
+        }
+    }
 
-        // Read until finished or line with "------"
-        StringBuilder bodyBuilder = new StringBuilder();
-        while (reader.ready() && (line = reader.readLine()) != null && !line.isEmpty() && !line.contains("------")) {
-            bodyBuilder.append(line).append("\n");
+    /**
+     * A body framed by the {@code Content-Length} header: the stream ends after that many bytes.
+     */
+    private static final class FixedLengthInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        /**
+         * Constructs a {@code FixedLengthInputStream} reading the given number of bytes.
+         *
+         * @param in the stream positioned at the start of the body
+         * @param length the length of the body
+         */
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        /**
+         * Reads a byte of the body.
+         *
+         * @return the byte, or -1 at the end of the body
+         * @throws IOException if an I/O error occurs or the connection ends inside the body
+         */
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0)
+                return -1;
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("Connection ended inside the request body");
+            remaining--;
+            return b;
         }
 
-        // Convert content to byte array
-        byte[] content = bodyBuilder.toString().getBytes();
+        /**
+         * Reads bytes of the body.
+         *
+         * @param b the buffer to read into
+         * @param off the offset in the buffer
+         * @param len the maximal number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the body
+         * @throws IOException if an I/O error occurs or the connection ends inside the body
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0)
+                return -1;
+            if (len == 0)
+                return 0;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0)
+                throw new EOFException("Connection ended inside the request body");
+            remaining -= n;
+            return n;
+        }
 
-        return new RequestInfo(httpMethod, httpURI, uriSegments, parameters, content);
+        /**
+         * Gets the number of bytes of the body that can be read without blocking.
+         *
+         * @return the number of bytes
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
     }
 
     /**
      * Represents the information extracted from an HTTP request.
-     * Contains details such as the HTTP command, URI, URI segments, parameters, and request content.
+     * Contains details such as the HTTP command, URI, URI segments, parameters, headers, and request content.
+     * <p>
+     * Requests read by a {@link RequestParser} keep the raw bytes of their head and body,
+     * and build each detail the first time it is asked for.
+     * </p>
      */
     public static class RequestInfo {
         private final String httpCommand;
-        private final String uri;
-        private final String[] uriSegments;
-        private final Map<String, String> parameters;
-        private final byte[] content;
+
+        // Bounds in the raw head, when parsed by a RequestParser
+        private final byte[] head;
+        private final int uriStart;
+        private final int queryStart;
+        private final int uriEnd;
+        private final int versionStart;
+        private final int versionEnd;
+        private final int[] headerBounds;
+        private final int headerCount;
+        private InputStream body;
+
+        // Details, built on first use for parsed requests
+        private String uri;
+        private String[] uriSegments;
+        private Map<String, String> parameters;
+        private byte[] content;
+        private String httpVersion;
+        private Map<String, String> headers;
+        private boolean bodyParsed;
+        private Map<String, String> pathParameters = Collections.emptyMap();
 
         /**
          * Constructs a new {@code RequestInfo} instance with the provided details.
@@ -125,11 +637,123 @@ public class RequestParser {
          * @param content the content of the request
          */
         public RequestInfo(String httpCommand, String uri, String[] uriSegments, Map<String, String> parameters, byte[] content) {
+            this(httpCommand, uri, uriSegments, parameters, content, "HTTP/1.1", Collections.emptyMap());
+        }
+
+        /**
+         * Constructs a new {@code RequestInfo} instance with the provided details, including the HTTP version and headers.
+         *
+         * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+         * @param uri the URI of the request
+         * @param uriSegments the segments of the URI
+         * @param parameters the parameters extracted from the request
+         * @param content the content of the request
+         * @param httpVersion the HTTP version of the request (e.g., HTTP/1.1)
+         * @param headers the headers of the request, with lower case names, or {@code null} for none
+         */
+        public RequestInfo(String httpCommand, String uri, String[] uriSegments, Map<String, String> parameters, byte[] content,
+                String httpVersion, Map<String, String> headers) {
             this.httpCommand = httpCommand;
+            this.head = null;
+            this.uriStart = this.queryStart = this.uriEnd = this.versionStart = this.versionEnd = 0;
+            this.headerBounds = null;
+            this.headerCount = 0;
             this.uri = uri;
             this.uriSegments = uriSegments;
             this.parameters = parameters;
             this.content = content;
+            this.httpVersion = httpVersion;
+            this.headers = headers != null ? headers : Collections.emptyMap();
+            this.bodyParsed = true;
+        }
+
+        /**
+         * Constructs a {@code RequestInfo} pointing into the raw head of a request.
+         *
+         * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+         * @param head the bytes holding the head
+         * @param uriStart the index of the first byte of the URI
+         * @param queryStart the index of the {@code ?} of the URI, or {@code uriEnd} without a query
+         * @param uriEnd the index after the URI
+         * @param versionStart the index of the first byte of the HTTP version
+         * @param versionEnd the index after the HTTP version
+         * @param headerBounds the name start, name end, value start and value end of each header
+         * @param headerCount the number of headers
+         */
+        private RequestInfo(String httpCommand, byte[] head, int uriStart, int queryStart, int uriEnd,
+                int versionStart, int versionEnd, int[] headerBounds, int headerCount) {
+            this.httpCommand = httpCommand;
+            this.head = head;
+            this.uriStart = uriStart;
+            this.queryStart = queryStart;
+            this.uriEnd = uriEnd;
+            this.versionStart = versionStart;
+            this.versionEnd = versionEnd;
+            this.headerBounds = headerBounds;
+            this.headerCount = headerCount;
+        }
+
+        /**
+         * Sets the body stream of a parsed request.
+         *
+         * @param body the stream of the body
+         */
+        private void setBody(InputStream body) {
+            this.body = body;
+        }
+
+        /**
+         * Checks whether the body is sent in chunks, as announced by the {@code Transfer-Encoding} header.
+         *
+         * @return {@code true} if the body is chunked, {@code false} without the header
+         * @throws IllegalArgumentException if the body has a transfer coding other than chunked
+         */
+        private boolean isChunked() {
+            int h = findHeader("transfer-encoding");
+            if (h < 0)
+                return false;
+            if (!regionEqualsIgnoreCase(head, headerBounds[h + 2], headerBounds[h + 3], "chunked"))
+                throw new IllegalArgumentException("Unsupported Transfer-Encoding: "
+                        + ascii(head, headerBounds[h + 2], headerBounds[h + 3]));
+            return true;
+        }
+
+        /**
+         * Gets the length of the body announced by the {@code Content-Length} header.
+         *
+         * @return the length of the body, or 0 without the header
+         * @throws IllegalArgumentException if the header is not a valid length
+         */
+        private long getContentLength() {
+            int h = findHeader("content-length");
+            if (h < 0)
+                return 0;
+            int from = headerBounds[h + 2];
+            int to = headerBounds[h + 3];
+            if (from == to || to - from > 18)
+                throw new IllegalArgumentException("Invalid Content-Length: " + ascii(head, from, to));
+            long length = 0;
+            for (int i = from; i < to; i++) {
+                int digit = head[i] - '0';
+                if (digit < 0 || digit > 9)
+                    throw new IllegalArgumentException("Invalid Content-Length: " + ascii(head, from, to));
+                length = length * 10 + digit;
+            }
+            return length;
+        }
+
+        /**
+         * Finds a header in the raw head.
+         *
+         * @param name the lower case name of the header
+         * @return the index of the header bounds, or -1 if the request doesn't have it
+         */
+        private int findHeader(String name) {
+            for (int h = 0; h < headerCount * 4; h += 4) {
+                if (regionEqualsIgnoreCase(head, headerBounds[h], headerBounds[h + 1], name))
+                    return h;
+            }
+            return -1;
         }
 
         /**
@@ -147,6 +771,8 @@ public class RequestParser {
          * @return the URI
          */
         public String getUri() {
+            if (uri == null)
+                uri = ascii(head, uriStart, uriEnd);
             return uri;
         }
 
@@ -156,37 +782,253 @@ public class RequestParser {
          * @return an array of URI segments
          */
         public String[] getUriSegments() {
+            if (uriSegments == null)
+                uriSegments = splitPath(head, uriStart + 1, queryStart);
             return uriSegments;
         }
 
         /**
          * Gets the parameters extracted from the request.
+         * Both the query parameters and the fields of a multipart body are included, so
+         * for a multipart request this reads the whole body. Servlets streaming an upload
+         * use {@link #getMultipart()} instead.
          *
          * @return a map of parameter names to values
          */
         public Map<String, String> getParameters() {
+            if (parameters == null) {
+                Map<String, String> map = new HashMap<>();
+                int pairStart = queryStart + 1;
+                while (pairStart <= uriEnd && queryStart < uriEnd) {
+                    int pairEnd = indexOf(head, pairStart, uriEnd, (byte) '&');
+                    if (pairEnd < 0)
+                        pairEnd = uriEnd;
+                    int equals = indexOf(head, pairStart, pairEnd, (byte) '=');
+                    if (pairEnd > pairStart)
+                        map.put(urlDecode(head, pairStart, equals), urlDecode(head, equals + 1, pairEnd));
+                    pairStart = pairEnd + 1;
+                }
+                parameters = map;
+                if (getBoundary() != null)
+                    parseBody();
+            }
             return parameters;
         }
 
+        /**
+         * Gets the values of the path parameters of the servlet URI that matched the request,
+         * such as {@code name} for a servlet registered on {@code /topics/{name}}.
+         *
+         * @return a map of parameter names to decoded values, empty if the URI has no parameters
+         */
+        public Map<String, String> getPathParameters() {
+            return pathParameters;
+        }
+
+        /**
+         * Gets the value of a path parameter of the servlet URI that matched the request.
+         *
+         * @param name the name of the parameter
+         * @return the decoded value, or {@code null} if the URI has no such parameter
+         */
+        public String getPathParameter(String name) {
+            return pathParameters.get(name);
+        }
+
+        /**
+         * Sets the values of the path parameters, once the servlet for the request was found.
+         *
+         * @param pathParameters a map of parameter names to decoded values
+         */
+        void setPathParameters(Map<String, String> pathParameters) {
+            this.pathParameters = pathParameters;
+        }
+
         /**
          * Gets the content of the request as a byte array.
+         * For a multipart body, this is the content of its file part.
+         * The whole body is read into memory, unless it was already read from {@link #getBody()}.
          *
          * @return the request content
+         * @throws UncheckedIOException if an I/O error occurs while reading the body
          */
         public byte[] getContent() {
+            getParameters();
+            parseBody();
             return content;
         }
 
+        /**
+         * Gets the body of the request as a stream.
+         * For parsed requests the body is read from the connection as the stream is read, so
+         * it can be processed with bounded memory. It is only available until the next request
+         * of the connection is parsed, and can be read once.
+         *
+         * @return the stream of the body, empty if the request has no body
+         */
+        public InputStream getBody() {
+            if (body == null)
+                body = new ByteArrayInputStream(content != null ? content : new byte[0]);
+            return body;
+        }
+
+        /**
+         * Gets a reader streaming the parts of a multipart body.
+         *
+         * @return the reader of the parts, or {@code null} if the body is not multipart
+         */
+        public MultipartReader getMultipart() {
+            String boundary = getBoundary();
+            return boundary == null ? null : new MultipartReader(getBody(), boundary);
+        }
+
+        /**
+         * Gets the HTTP version of the request.
+         *
+         * @return the HTTP version (e.g., HTTP/1.1)
+         */
+        public String getHttpVersion() {
+            if (httpVersion == null)
+                httpVersion = ascii(head, versionStart, versionEnd);
+            return httpVersion;
+        }
+
+        /**
+         * Gets the headers of the request.
+         *
+         * @return a map of lower case header names to values
+         */
+        public Map<String, String> getHeaders() {
+            if (headers == null) {
+                Map<String, String> map = new HashMap<>();
+                for (int h = 0; h < headerCount * 4; h += 4) {
+                    map.put(ascii(head, headerBounds[h], headerBounds[h + 1]).toLowerCase(),
+                            ascii(head, headerBounds[h + 2], headerBounds[h + 3]));
+                }
+                headers = map;
+            }
+            return headers;
+        }
+
+        /**
+         * Gets the value of a header of the request.
+         *
+         * @param name the name of the header, in any case
+         * @return the value of the header, or {@code null} if the request doesn't have it
+         */
+        public String getHeader(String name) {
+            if (headers != null || head == null)
+                return headers.get(name.toLowerCase());
+            int h = findHeader(name);
+            return h < 0 ? null : ascii(head, headerBounds[h + 2], headerBounds[h + 3]);
+        }
+
+        /**
+         * Checks whether the client asked to keep the connection open after this request.
+         * HTTP/1.1 connections are kept open unless the request has {@code Connection: close},
+         * older versions only with {@code Connection: keep-alive}.
+         *
+         * @return {@code true} if the connection should be kept open, {@code false} otherwise
+         */
+        public boolean isKeepAlive() {
+            if (head == null) {
+                String connection = getHeader("connection");
+                if ("HTTP/1.1".equals(httpVersion))
+                    return connection == null || !connection.equalsIgnoreCase("close");
+                return connection != null && connection.equalsIgnoreCase("keep-alive");
+            }
+            int h = findHeader("connection");
+            if (regionEquals(head, versionStart, versionEnd, "HTTP/1.1"))
+                return h < 0 || !regionEqualsIgnoreCase(head, headerBounds[h + 2], headerBounds[h + 3], "close");
+            return h >= 0 && regionEqualsIgnoreCase(head, headerBounds[h + 2], headerBounds[h + 3], "keep-alive");
+        }
+
+        /**
+         * Reads the body into the content, and the fields of a multipart body into the parameters.
+         * A part with a file name sets the content and the {@code filename} parameter,
+         * other parts are added to the parameters under their name.
+         *
+         * @throws UncheckedIOException if an I/O error occurs while reading the body
+         */
+        private void parseBody() {
+            if (bodyParsed)
+                return;
+            bodyParsed = true;
+            try {
+                MultipartReader parts = getMultipart();
+                if (parts == null) {
+                    content = getBody().readAllBytes();
+                    return;
+                }
+                content = new byte[0];
+                boolean fileFound = false;
+                while (parts.nextPart()) {
+                    if (parts.getFileName() != null) {
+                        parameters.put("filename", parts.getFileName());
+                        if (!fileFound)
+                            content = parts.getPartStream().readAllBytes();
+                        fileFound = true;
+                    } else if (parts.getName() != null) {
+                        parameters.put(parts.getName(), new String(parts.getPartStream().readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Gets the boundary of a multipart body from the {@code Content-Type} header.
+         *
+         * @return the boundary, or {@code null} if the body is not multipart
+         */
+        private String getBoundary() {
+            return MultipartReader.boundaryOf(getHeader("content-type"));
+        }
+
+        /**
+         * Splits a path on {@code /}, as {@link String#split(String)} does.
+         * Empty segments at the end are dropped.
+         *
+         * @param data the bytes holding the path
+         * @param from the index of the first byte of the path
+         * @param to the index after the path
+         * @return the segments of the path
+         */
+        private static String[] splitPath(byte[] data, int from, int to) {
+            if (from >= to)
+                return new String[] {""};
+            while (to > from && data[to - 1] == '/')
+                to--;
+            int count = 1;
+            for (int i = from; i < to; i++) {
+                if (data[i] == '/')
+                    count++;
+            }
+            if (from == to)
+                return new String[0];
+            String[] segments = new String[count];
+            int segmentStart = from;
+            for (int s = 0; s < count; s++) {
+                int segmentEnd = indexOf(data, segmentStart, to, (byte) '/');
+                if (segmentEnd < 0)
+                    segmentEnd = to;
+                segments[s] = ascii(data, segmentStart, segmentEnd);
+                segmentStart = segmentEnd + 1;
+            }
+            return segments;
+        }
+
         /**
          * Prints the details of the request to the standard output.
          * Useful for debugging purposes.
          */
         public void print() {
-            System.out.println("command: " + httpCommand);
-            System.out.println("uri: " + uri);
-            System.out.println("segments: " + String.join(", ", uriSegments));
-            System.out.println("parameters: " + parameters.toString());
-            System.out.println("content: " + new String(content));
+            System.out.println("command: " + getHttpCommand());
+            System.out.println("uri: " + getUri());
+            System.out.println("segments: " + String.join(", ", getUriSegments()));
+            System.out.println("parameters: " + getParameters().toString());
+            System.out.println("content: " + new String(getContent()));
         }
     }
-}
\ No newline at end of file
+}
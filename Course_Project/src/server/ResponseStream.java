@@ -0,0 +1,114 @@
+package server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The output stream handed to servlets on a persistent connection.
+ * <p>
+ * Writes are buffered, and {@link #flush()} calls made by servlets are deferred: the
+ * server sends the buffered bytes once no further pipelined request is waiting, so
+ * several responses can leave in one write. Closing the stream does not close the
+ * connection.
+ * </p>
+ * <p>
+ * File regions are sent with {@link #transferFrom(FileChannel, long, long)}, which hands
+ * them to the socket channel so the operating system copies them without passing through
+ * the heap.
+ * </p>
+ */
+public class ResponseStream extends OutputStream {
+
+    /**
+     * The size of the buffer holding responses before they are sent.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final BufferedOutputStream out;
+    private final WritableByteChannel channel;
+
+    /**
+     * Constructs a {@code ResponseStream} writing to the given socket stream.
+     *
+     * @param socketStream the output stream of the connection
+     * @param socketChannel the channel of the connection, or {@code null} if it has none
+     */
+    ResponseStream(OutputStream socketStream, WritableByteChannel socketChannel) {
+        this.out = new BufferedOutputStream(socketStream, BUFFER_SIZE);
+        this.channel = socketChannel != null ? socketChannel : Channels.newChannel(socketStream);
+    }
+
+    /**
+     * Writes a byte to the response.
+     *
+     * @param b the byte to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    /**
+     * Writes bytes to the response.
+     *
+     * @param b the bytes to write
+     * @param off the offset of the first byte to write
+     * @param len the number of bytes to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    /**
+     * Sends a region of a file to the client, after the bytes already written.
+     * The buffered bytes are sent first, then the region goes straight from the file to the
+     * socket channel.
+     *
+     * @param file the file to send from
+     * @param position the position of the first byte to send
+     * @param count the number of bytes to send
+     * @throws IOException if an I/O error occurs, or the file ends before the region does
+     */
+    public void transferFrom(FileChannel file, long position, long count) throws IOException {
+        out.flush();
+        long end = position + count;
+        while (position < end) {
+            long sent = file.transferTo(position, end - position, channel);
+            if (sent <= 0)
+                throw new IOException("File ended before the region to send");
+            position += sent;
+        }
+    }
+
+    /**
+     * Does nothing. The server sends the buffered bytes after the servlet returns.
+     */
+    @Override
+    public void flush() {
+        // Deferred until the server sends the response
+    }
+
+    /**
+     * Does nothing. The connection stays open for further requests.
+     */
+    @Override
+    public void close() {
+        // The server owns the connection
+    }
+
+    /**
+     * Sends the buffered bytes to the client.
+     *
+     * @throws IOException if an I/O error occurs while sending
+     */
+    void send() throws IOException {
+        out.flush();
+    }
+}
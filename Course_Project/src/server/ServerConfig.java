@@ -0,0 +1,272 @@
+package server;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.function.IntConsumer;
+
+import configs.Settings;
+
+/**
+ * Holds the settings of an HTTP server: its port, how connections are executed and
+ * how many of them are accepted.
+ * <p>
+ * The settings are usually loaded from a properties file with {@link #load(String)}.
+ * Missing keys keep their default values, and invalid values are reported and keep them too.
+ * The supported keys are:
+ * </p>
+ * <ul>
+ *   <li>{@code server.port} - the port to listen on (default 8080)</li>
+ *   <li>{@code server.mode} - {@code pool}, {@code virtual} or {@code nio} (default {@code virtual})</li>
+ *   <li>{@code server.threads} - the number of threads in {@code pool} and {@code nio} modes (default 5)</li>
+ *   <li>{@code server.maxConnections} - the number of connections handled at once, 0 for no limit (default 0)</li>
+ *   <li>{@code server.backlog} - the number of connections the operating system queues before they are accepted (default 50)</li>
+ *   <li>{@code server.idleTimeout} - the milliseconds a persistent connection may wait for its next request (default 5000)</li>
+ * </ul>
+ */
+public class ServerConfig {
+
+    /**
+     * Defines how a server executes its connections.
+     */
+    public enum Mode {
+
+        /**
+         * Each connection runs on a thread of a fixed pool. Connections beyond the pool size wait.
+         * A connection is closed once no request is waiting, so idle clients don't hold pool threads.
+         */
+        POOL,
+
+        /**
+         * Each connection runs on its own virtual thread, with no cap on their number.
+         */
+        VIRTUAL,
+
+        /**
+         * Connections are read and written by a selector thread, and servlets run on a fixed pool.
+         * Idle connections hold no thread, but a servlet waits while its client sends a large body
+         * or reads a large response.
+         */
+        NIO
+    }
+
+    private int port = 8080;
+    private Mode mode = Mode.VIRTUAL;
+    private int threads = 5;
+    private int maxConnections = 0;
+    private int backlog = 50;
+    private int idleTimeout = 5000;
+
+    /**
+     * Constructs a {@code ServerConfig} with the default settings.
+     */
+    public ServerConfig() {
+        // Default settings
+    }
+
+    /**
+     * Loads the settings from a properties file.
+     * <p>
+     * Missing keys and invalid values keep their default values. If the file doesn't exist,
+     * the default settings are returned.
+     * </p>
+     *
+     * @param path the path to the properties file
+     * @return the loaded settings
+     * @throws IOException if the file exists but can't be read
+     */
+    public static ServerConfig load(String path) throws IOException {
+        return fromProperties(readProperties(path));
+    }
+
+    /**
+     * Reads a properties file, so settings of other parts of the application kept in the
+     * same file, such as the {@code graph.*} keys, can be read from it too.
+     *
+     * @param path the path to the properties file
+     * @return the properties of the file, or no properties if the file doesn't exist
+     * @throws IOException if the file exists but can't be read
+     */
+    public static Properties readProperties(String path) throws IOException {
+        Path file = Paths.get(path);
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Creates settings from the given properties.
+     * Missing keys and invalid values keep their default values.
+     *
+     * @param properties the properties holding the settings
+     * @return the settings
+     */
+    public static ServerConfig fromProperties(Properties properties) {
+        ServerConfig config = new ServerConfig();
+        setInt(properties, "server.port", config.port, config::setPort);
+        setInt(properties, "server.threads", config.threads, config::setThreads);
+        setInt(properties, "server.maxConnections", config.maxConnections, config::setMaxConnections);
+        setInt(properties, "server.backlog", config.backlog, config::setBacklog);
+        setInt(properties, "server.idleTimeout", config.idleTimeout, config::setIdleTimeout);
+        config.setMode(Settings.enumValue("server.mode", properties.getProperty("server.mode"), config.mode));
+        return config;
+    }
+
+    /**
+     * Creates a server with these settings.
+     *
+     * @return a {@link NioHTTPServer} in {@link Mode#NIO} mode, a {@link MyHTTPServer} otherwise
+     */
+    public HTTPServer createServer() {
+        if (this.mode == Mode.NIO) {
+            return new NioHTTPServer(this);
+        }
+        return new MyHTTPServer(this);
+    }
+
+    /**
+     * Reads an integer property and passes it to a setter, keeping the default value
+     * when the property is missing, not an integer or refused by the setter.
+     *
+     * @param properties the properties to read from
+     * @param key the key of the property
+     * @param defaultValue the value kept when the property is missing or invalid
+     * @param setter the setter of the setting
+     */
+    private static void setInt(Properties properties, String key, int defaultValue, IntConsumer setter) {
+        String value = properties.getProperty(key);
+        try {
+            setter.accept(Settings.intValue(key, value, defaultValue));
+        } catch (IllegalArgumentException e) {
+            setter.accept(Settings.invalid(key, value, defaultValue));
+        }
+    }
+
+    /**
+     * Gets the port to listen on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the port to listen on.
+     *
+     * @param port the port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Gets how connections are executed.
+     *
+     * @return the execution mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how connections are executed.
+     *
+     * @param mode the execution mode
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Gets the number of threads used in {@link Mode#POOL} and {@link Mode#NIO} modes.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used in {@link Mode#POOL} and {@link Mode#NIO} modes.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Gets the number of connections handled at once.
+     *
+     * @return the number of connections, or 0 for no limit
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets the number of connections handled at once. Further connections wait in the accept backlog.
+     *
+     * @param maxConnections the number of connections, or 0 for no limit
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections < 0) {
+            throw new IllegalArgumentException("Connection limit can't be negative: " + maxConnections);
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Gets the number of connections the operating system queues before they are accepted.
+     *
+     * @return the accept backlog
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Sets the number of connections the operating system queues before they are accepted.
+     *
+     * @param backlog the accept backlog, or 0 for the system default
+     */
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Gets the milliseconds a persistent connection may wait for its next request before it is closed.
+     *
+     * @return the idle timeout in milliseconds
+     */
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the milliseconds a persistent connection may wait for its next request before it is closed.
+     * Pooled connections don't wait for a next request.
+     *
+     * @param idleTimeout the idle timeout in milliseconds, or 0 to wait without limit
+     * @throws IllegalArgumentException if the timeout is negative
+     */
+    public void setIdleTimeout(int idleTimeout) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("Idle timeout can't be negative: " + idleTimeout);
+        }
+        this.idleTimeout = idleTimeout;
+    }
+}
@@ -0,0 +1,436 @@
+package server;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import servlets.Servlet;
+
+/**
+ * Keeps the servlets registered on a server and finds the servlet for a request.
+ * <p>
+ * The servlets are kept per HTTP command (GET, POST, DELETE), and a request is handled
+ * by the servlet registered with the longest URI that prefixes the request URI. A URI may
+ * hold path parameters such as {@code /topics/{name}}, each matching one segment of the
+ * request URI, up to the next {@code /} or {@code ?}. Where a fixed URI and a parameter
+ * match equally far, the fixed URI wins.
+ * </p>
+ * <p>
+ * The URIs of each command are compiled into a radix tree, so a lookup walks the request
+ * URI once whatever the number of servlets, and doesn't allocate for URIs without
+ * parameters. Registering or removing a servlet rebuilds the tree of its command and
+ * publishes it at once, so lookups never wait on registrations.
+ * </p>
+ */
+class ServletRouter {
+
+    /**
+     * A servlet found for a request, with the values of the path parameters of its URI.
+     *
+     * @param servlet the servlet handling the request
+     * @param parameters the path parameter values, by name
+     */
+    record Match(Servlet servlet, Map<String, String> parameters) {}
+
+    private final Map<String, Servlet> getServlets = new HashMap<>();
+    private final Map<String, Servlet> postServlets = new HashMap<>();
+    private final Map<String, Servlet> deleteServlets = new HashMap<>();
+
+    private volatile Node getRoot = new Node("");
+    private volatile Node postRoot = new Node("");
+    private volatile Node deleteRoot = new Node("");
+
+    /**
+     * Adds a servlet for a specific HTTP command and URI.
+     *
+     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+     * @param uri the URI for which the servlet should handle requests, possibly with {@code {name}} parameters
+     * @param s the {@link Servlet} to handle requests
+     * @throws IllegalArgumentException if the HTTP command is not supported or a parameter is not closed
+     */
+    synchronized void addServlet(String httpCommand, String uri, Servlet s) {
+        Map<String, Servlet> servlets = servletsFor(httpCommand);
+        Servlet previous = servlets.put(uri, s);
+        try {
+            this.publish(httpCommand, compile(servlets));
+        } catch (IllegalArgumentException e) {
+            if (previous == null) { // Leave the registrations as they were
+                servlets.remove(uri);
+            } else {
+                servlets.put(uri, previous);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a servlet for a specific HTTP command and URI.
+     *
+     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+     * @param uri the URI for which the servlet should be removed
+     * @throws IllegalArgumentException if the HTTP command is not supported
+     */
+    synchronized void removeServlet(String httpCommand, String uri) {
+        Map<String, Servlet> servlets = servletsFor(httpCommand);
+        if (servlets.remove(uri) != null) {
+            this.publish(httpCommand, compile(servlets));
+        }
+    }
+
+    /**
+     * Finds the most appropriate servlet for the given HTTP command and URI.
+     * The servlet is selected based on the longest matching URI.
+     * The command is matched exactly, as produced by {@link RequestParser}.
+     *
+     * @param httpCommand the HTTP command (e.g., GET, POST, DELETE)
+     * @param uri the URI of the request
+     * @return the servlet that matches the request with its path parameters,
+     *         or {@code null} if no matching servlet is found
+     * @throws IllegalArgumentException if a path parameter has a malformed percent-escape
+     */
+    Match find(String httpCommand, String uri) {
+        Node root;
+        switch (httpCommand) {
+            case "GET":
+                root = getRoot;
+                break;
+            case "POST":
+                root = postRoot;
+                break;
+            case "DELETE":
+                root = deleteRoot;
+                break;
+            default:
+                return null;
+        }
+        return root.hasParameters ? findWithParameters(root, uri) : findStatic(root, uri);
+    }
+
+    /**
+     * Closes all registered servlets.
+     *
+     * @throws IOException if an I/O error occurs while closing a servlet
+     */
+    synchronized void closeAll() throws IOException {
+        for (Servlet servlet: this.getServlets.values()){
+            servlet.close();
+        }
+        for (Servlet servlet: this.postServlets.values()){
+            servlet.close();
+        }
+        for (Servlet servlet: this.deleteServlets.values()){
+            servlet.close();
+        }
+    }
+
+    /**
+     * Gets the registered servlets of an HTTP command.
+     *
+     * @param httpCommand the HTTP command, in any case
+     * @return the servlets by URI
+     * @throws IllegalArgumentException if the HTTP command is not supported
+     */
+    private Map<String, Servlet> servletsFor(String httpCommand) {
+        switch (httpCommand.toUpperCase()) {
+            case "GET":
+                return getServlets;
+            case "POST":
+                return postServlets;
+            case "DELETE":
+                return deleteServlets;
+            default:
+                throw new IllegalArgumentException("Unsupported HTTP command: " + httpCommand);
+        }
+    }
+
+    /**
+     * Publishes the compiled tree of an HTTP command for lookups.
+     *
+     * @param httpCommand the HTTP command, in any case
+     * @param root the root of the tree
+     */
+    private void publish(String httpCommand, Node root) {
+        switch (httpCommand.toUpperCase()) {
+            case "GET":
+                getRoot = root;
+                break;
+            case "POST":
+                postRoot = root;
+                break;
+            default:
+                deleteRoot = root;
+                break;
+        }
+    }
+
+    /**
+     * Walks a tree without path parameters, keeping the last servlet passed.
+     *
+     * @param root the root of the tree
+     * @param uri the URI of the request
+     * @return the match of the longest URI prefixing the request URI, or {@code null}
+     */
+    private static Match findStatic(Node root, String uri) {
+        Match best = root.match;
+        Node node = root;
+        int pos = 0;
+        while (pos < uri.length()) {
+            Node child = node.child(uri.charAt(pos));
+            if (child == null || !uri.startsWith(child.prefix, pos)) {
+                break;
+            }
+            pos += child.prefix.length();
+            node = child;
+            if (node.match != null) {
+                best = node.match;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Searches a tree with path parameters, trying fixed URIs before parameters at each node.
+     *
+     * @param root the root of the tree
+     * @param uri the URI of the request
+     * @return the match of the longest URI prefixing the request URI, or {@code null}
+     * @throws IllegalArgumentException if a parameter has a malformed percent-escape
+     */
+    private static Match findWithParameters(Node root, String uri) {
+        Search search = new Search(uri);
+        search.visit(root, 0, 0);
+        Node best = search.best;
+        if (best == null) {
+            return null;
+        }
+        if (best.parameterNames.length == 0) {
+            return best.match;
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (int i = 0; i < best.parameterNames.length; i++) {
+            String value = uri.substring(search.bestBounds[2 * i], search.bestBounds[2 * i + 1]);
+            parameters.put(best.parameterNames[i], URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return new Match(best.match.servlet(), Collections.unmodifiableMap(parameters));
+    }
+
+    /**
+     * Compiles the registered URIs of a command into a radix tree.
+     *
+     * @param servlets the servlets by URI
+     * @return the root of the tree
+     * @throws IllegalArgumentException if a parameter is not closed
+     */
+    private static Node compile(Map<String, Servlet> servlets) {
+        Node root = new Node("");
+        for (Map.Entry<String, Servlet> route : servlets.entrySet()) {
+            insert(root, route.getKey(), 0, new ArrayList<>(), route.getValue());
+        }
+        root.seal();
+        return root;
+    }
+
+    /**
+     * Inserts the rest of a URI into the tree below a node.
+     *
+     * @param node the node reached by the start of the URI
+     * @param uri the URI being inserted
+     * @param i the index of the first character still to insert
+     * @param parameterNames the names of the parameters met so far
+     * @param servlet the servlet of the URI
+     * @throws IllegalArgumentException if a parameter is not closed
+     */
+    private static void insert(Node node, String uri, int i, List<String> parameterNames, Servlet servlet) {
+        if (i == uri.length()) {
+            node.parameterNames = parameterNames.toArray(new String[0]);
+            node.match = new Match(servlet, Collections.emptyMap());
+            return;
+        }
+
+        if (uri.charAt(i) == '{') { // Parameter segment
+            int close = uri.indexOf('}', i);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed parameter in URI: " + uri);
+            }
+            parameterNames.add(uri.substring(i + 1, close));
+            if (node.parameter == null) {
+                node.parameter = new Node("");
+            }
+            insert(node.parameter, uri, close + 1, parameterNames, servlet);
+            return;
+        }
+
+        // Fixed text up to the next parameter
+        int end = uri.indexOf('{', i);
+        if (end < 0) {
+            end = uri.length();
+        }
+        Node child = node.child(uri.charAt(i));
+        if (child == null) {
+            child = new Node(uri.substring(i, end));
+            node.addChild(child);
+            insert(child, uri, end, parameterNames, servlet);
+            return;
+        }
+        int common = 0;
+        while (common < child.prefix.length() && i + common < end && child.prefix.charAt(common) == uri.charAt(i + common)) {
+            common++;
+        }
+        if (common < child.prefix.length()) {
+            child = node.split(child, common);
+        }
+        insert(child, uri, i + common, parameterNames, servlet);
+    }
+
+    /**
+     * A node of the radix tree. The node is reached by matching its prefix after its parent,
+     * or a whole segment when it is the parameter child of its parent.
+     * Nodes are only modified while their tree is compiled.
+     */
+    private static final class Node {
+        private String prefix;
+        private char[] firstChars = new char[0];
+        private Node[] children = new Node[0];
+        private Node parameter;
+        private Match match;
+        private String[] parameterNames;
+        private boolean hasParameters;
+
+        /**
+         * Constructs a node with the given prefix.
+         *
+         * @param prefix the text matched to reach the node
+         */
+        Node(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Finds the fixed child whose prefix starts with the given character.
+         *
+         * @param c the first character of the prefix
+         * @return the child, or {@code null} if there is none
+         */
+        Node child(char c) {
+            char[] chars = this.firstChars;
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds a fixed child.
+         *
+         * @param child the child, whose prefix starts with a character no other child starts with
+         */
+        void addChild(Node child) {
+            firstChars = Arrays.copyOf(firstChars, firstChars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            firstChars[firstChars.length - 1] = child.prefix.charAt(0);
+            children[children.length - 1] = child;
+        }
+
+        /**
+         * Splits a fixed child in two: a new child holding the start of its prefix, above it.
+         *
+         * @param child the child to split
+         * @param length the length of the prefix kept by the new child
+         * @return the new child
+         */
+        Node split(Node child, int length) {
+            Node head = new Node(child.prefix.substring(0, length));
+            child.prefix = child.prefix.substring(length);
+            head.addChild(child);
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    children[i] = head;
+                }
+            }
+            return head;
+        }
+
+        /**
+         * Records whether parameters occur below this node, once the tree is complete.
+         *
+         * @return {@code true} if this node or a node below it has a parameter child
+         */
+        boolean seal() {
+            boolean found = parameter != null;
+            if (parameter != null) {
+                parameter.seal();
+            }
+            for (Node child : children) {
+                found |= child.seal();
+            }
+            hasParameters = found;
+            return found;
+        }
+    }
+
+    /**
+     * The state of a lookup in a tree with path parameters.
+     */
+    private static final class Search {
+        private final String uri;
+        private int[] bounds = new int[8];
+        private Node best;
+        private int bestLength = -1;
+        private int[] bestBounds;
+
+        /**
+         * Constructs the state of a lookup.
+         *
+         * @param uri the URI of the request
+         */
+        Search(String uri) {
+            this.uri = uri;
+        }
+
+        /**
+         * Visits a node reached after matching the URI up to a position.
+         *
+         * @param node the node reached
+         * @param pos the number of URI characters matched
+         * @param depth the number of parameters matched
+         */
+        void visit(Node node, int pos, int depth) {
+            if (node.match != null && pos > bestLength) {
+                best = node;
+                bestLength = pos;
+                bestBounds = Arrays.copyOf(bounds, depth * 2);
+            }
+            if (pos == uri.length()) {
+                return;
+            }
+
+            Node child = node.child(uri.charAt(pos));
+            if (child != null && uri.startsWith(child.prefix, pos)) {
+                visit(child, pos + child.prefix.length(), depth);
+            }
+
+            if (node.parameter != null) {
+                int end = pos;
+                while (end < uri.length() && uri.charAt(end) != '/' && uri.charAt(end) != '?') {
+                    end++;
+                }
+                if (end > pos) {
+                    if (bounds.length < depth * 2 + 2) {
+                        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                    }
+                    bounds[depth * 2] = pos;
+                    bounds[depth * 2 + 1] = end;
+                    visit(node.parameter, end, depth + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the files of a directory in memory for {@link HtmlLoader}, with their response headers.
+ * <p>
+ * A file is read once, on its first request. Its strong ETag is the SHA-256 digest of its content,
+ * and text files also get a gzip variant, compressed once. Every request checks the file's size and
+ * modification time, so a file rewritten just before it is requested, such as the graph written by
+ * {@link ConfLoader}, is read again. The directory is also watched, and an entry is dropped as soon
+ * as its file is created, modified or deleted, so files that are gone don't stay in memory.
+ * Files larger than {@link #MAX_CACHED_SIZE} are not kept in memory: only their size is cached, and
+ * they are sent from disk with an ETag built from their size and modification time.
+ * </p>
+ */
+final class AssetCache implements AutoCloseable {
+
+    /**
+     * The largest file kept in memory.
+     */
+    static final long MAX_CACHED_SIZE = 1024 * 1024;
+
+    /**
+     * The smallest file worth compressing.
+     */
+    private static final int MIN_COMPRESSED_SIZE = 256;
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, Asset> assets = new ConcurrentHashMap<>();
+    private final WatchService watcher;
+
+    /**
+     * A cached file.
+     *
+     * @param path the path of the file
+     * @param contentType the MIME type of the file
+     * @param size the size of the file
+     * @param modified the modification time of the file, in milliseconds
+     * @param content the content of the file, or {@code null} if it is sent from disk
+     * @param gzipContent the gzip variant of the content, or {@code null} if there is none
+     * @param head the status line and headers of the response with the content
+     * @param gzipHead the status line and headers of the response with the gzip variant, or {@code null}
+     * @param etag the ETag of the content, quoted
+     * @param gzipEtag the ETag of the gzip variant, quoted, or {@code null}
+     */
+    record Asset(Path path, String contentType, long size, long modified, byte[] content, byte[] gzipContent,
+            byte[] head, byte[] gzipHead, String etag, String gzipEtag) {
+
+        /**
+         * Builds the status line and headers of the response with a range of the content.
+         *
+         * @param first the index of the first byte of the range
+         * @param last the index of the last byte of the range
+         * @return the bytes of the response head, ending with the empty line
+         */
+        byte[] partialHead(long first, long last) {
+            String head = "HTTP/1.1 206 Partial Content\r\n" +
+                          "Content-Type: " + contentType + "\r\n" +
+                          "Content-Length: " + (last - first + 1) + "\r\n" +
+                          "Content-Range: bytes " + first + "-" + last + "/" + size + "\r\n" +
+                          "ETag: " + etag + "\r\n" +
+                          "Cache-Control: no-cache\r\n" +
+                          "\r\n";
+            return head.getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Constructs an {@code AssetCache} for the given directory and starts watching it.
+     * If the directory can't be watched, entries are only dropped when a request finds
+     * their file changed.
+     *
+     * @param directory the directory of the files
+     */
+    AssetCache(Path directory) {
+        this.directory = directory;
+        WatchService service = null;
+        try {
+            service = directory.getFileSystem().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            WatchService started = service;
+            Thread.ofPlatform().name("AssetCache").daemon(true).start(() -> this.watch(started));
+        } catch (IOException | UnsupportedOperationException e) {
+            System.out.println("Can't watch directory " + directory + ", changed files will be dropped on request");
+            closeQuietly(service);
+            service = null;
+        }
+        this.watcher = service;
+    }
+
+    /**
+     * Gets a file of the directory, reading it again if its size or modification time changed.
+     *
+     * @param fileName the name of the file in the directory
+     * @return the cached file, or {@code null} if there is no such regular file
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    Asset get(String fileName) throws IOException {
+        Asset cached = assets.get(fileName);
+        if (cached != null && isCurrent(cached)) {
+            return cached;
+        }
+        try {
+            // Loading inside compute makes a concurrent invalidation wait, then drop the loaded entry
+            return assets.compute(fileName, (name, current) -> {
+                if (current != null && current != cached) {
+                    return current; // Loaded by another request meanwhile
+                }
+                Path path = directory.resolve(name);
+                if (!Files.isRegularFile(path)) {
+                    return null;
+                }
+                try {
+                    return load(path, name);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops watching the directory and forgets all files.
+     */
+    @Override
+    public void close() {
+        closeQuietly(watcher);
+        assets.clear();
+    }
+
+    /**
+     * Drops the entries of the files changed in the directory, until the watch service is closed.
+     *
+     * @param service the watch service of the directory
+     */
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        assets.clear(); // Events were lost
+                    } else {
+                        assets.remove(event.context().toString());
+                    }
+                }
+                if (!key.reset()) {
+                    assets.clear(); // The directory is gone
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Exit the loop
+        }
+    }
+
+    /**
+     * Checks whether a cached file still has the size and modification time it was read with.
+     *
+     * @param asset the cached file
+     * @return {@code true} if the file seems unchanged, {@code false} otherwise
+     */
+    private static boolean isCurrent(Asset asset) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(asset.path(), BasicFileAttributes.class);
+            return attributes.size() == asset.size() && attributes.lastModifiedTime().toMillis() == asset.modified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a file and prepares its response headers and variants.
+     *
+     * @param path the path of the file
+     * @param fileName the name of the file, for its content type
+     * @return the cached file
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    private Asset load(Path path, String fileName) throws IOException {
+        String contentType = getContentType(fileName);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (attributes.size() > MAX_CACHED_SIZE) {
+            String etag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(modified) + "\"";
+            return new Asset(path, contentType, attributes.size(), modified, null, null,
+                    head(contentType, attributes.size(), etag, false), null, etag, null);
+        }
+
+        byte[] content = Files.readAllBytes(path);
+        String digest = digest(content);
+        String etag = "\"" + digest + "\"";
+        byte[] head = head(contentType, content.length, etag, false);
+        if (content.length < MIN_COMPRESSED_SIZE || !contentType.startsWith("text/") && !contentType.endsWith("javascript")) {
+            return new Asset(path, contentType, content.length, modified, content, null, head, null, etag, null);
+        }
+
+        byte[] gzipContent = gzip(content);
+        if (gzipContent.length >= content.length) {
+            return new Asset(path, contentType, content.length, modified, content, null, head, null, etag, null);
+        }
+        String gzipEtag = "\"" + digest + "-gzip\"";
+        return new Asset(path, contentType, content.length, modified, content, gzipContent, head,
+                head(contentType, gzipContent.length, gzipEtag, true), etag, gzipEtag);
+    }
+
+    /**
+     * Builds the status line and headers of the response with a file.
+     *
+     * @param contentType the content type of the file
+     * @param length the length of the body
+     * @param etag the ETag of the body
+     * @param gzip whether the body is gzip compressed
+     * @return the bytes of the response head, ending with the empty line
+     */
+    private static byte[] head(String contentType, long length, String etag, boolean gzip) {
+        String head = "HTTP/1.1 200 OK\r\n" +
+               "Content-Type: " + contentType + "\r\n" +
+               "Content-Length: " + length + "\r\n" +
+               "ETag: " + etag + "\r\n" +
+               "Cache-Control: no-cache\r\n" +
+               "Vary: Accept-Encoding\r\n" +
+               (gzip ? "" : "Accept-Ranges: bytes\r\n") +
+               (gzip ? "Content-Encoding: gzip\r\n" : "") +
+               "\r\n";
+        return head.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Computes the SHA-256 digest of a content.
+     *
+     * @param content the content
+     * @return the digest in hexadecimal
+     */
+    private static String digest(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Compresses a content with gzip.
+     *
+     * @param content the content
+     * @return the compressed content
+     * @throws IOException if an I/O error occurs while compressing
+     */
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Determines the content type of a file based on its extension.
+     *
+     * @param fileName the name of the file
+     * @return the MIME type of the file
+     */
+    private static String getContentType(String fileName) {
+        if (fileName.endsWith(".html") || fileName.endsWith(".htm")) {
+            return "text/html";
+        } else if (fileName.endsWith(".css")) {
+            return "text/css";
+        } else if (fileName.endsWith(".js")) {
+            return "application/javascript";
+        } else {
+            return "application/octet-stream";
+        }
+    }
+
+    /**
+     * Closes a watch service, ignoring errors.
+     *
+     * @param service the watch service, may be {@code null}
+     */
+    private static void closeQuietly(WatchService service) {
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package servlets;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Map;
-import graph.Graph;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import graph.CompactGraph;
 import graph.Topic;
 import graph.TopicManagerSingleton;
 import configs.GenericConfig;
 import views.HtmlGraphWriter;
+import server.MultipartReader;
 import server.RequestParser.RequestInfo;
 
 /**
@@ -31,7 +33,18 @@ public class ConfLoader implements Servlet {
      * @param htmlDirectory the directory where HTML files will be saved
      */
     public ConfLoader(String htmlDirectory) {
-        this.config = new GenericConfig();
+        this(htmlDirectory, new GenericConfig());
+    }
+
+    /**
+     * Constructs a ConfLoader instance that loads uploads with the given configuration,
+     * keeping its settings such as the execution mode of the agents.
+     *
+     * @param htmlDirectory the directory where HTML files will be saved
+     * @param config the configuration loading the uploaded files
+     */
+    public ConfLoader(String htmlDirectory, GenericConfig config) {
+        this.config = config;
         this.directory = htmlDirectory;
         this.graphPath = htmlDirectory + "/graph.html";
         this.tablePath = htmlDirectory + "/table.html";
@@ -48,7 +61,7 @@ public class ConfLoader implements Servlet {
 
         for (Topic topic : TopicManagerSingleton.get().getTopics()) {
             html.append("\t\t\t<tr><td>").append(topic.name).append("</td>");
-            html.append("<td>").append(topic.getMessage().asText).append("</td></tr>\n");
+            html.append("<td>").append(topic.getMessage().asText()).append("</td></tr>\n");
         }
 
         html.append("\t\t</table>\n\t</body>\n</html>");
@@ -75,12 +88,8 @@ public class ConfLoader implements Servlet {
      * The graph is saved to the file specified by {@code graphPath}.
      */
     public void createGraph() {
-        // Create Graph instance
-        Graph graph = new Graph();
-        graph.createFromTopics();
-        if (graph.hasCycles()){
-            return;
-        }
+        // Current graph, kept up to date by the TopicManager and kept acyclic by GenericConfig
+        CompactGraph graph = TopicManagerSingleton.get().getCompactGraph();
         // Generate HTML representation of the graph
         String graphHtml = String.join("\n", HtmlGraphWriter.getGraphHTML(graph, this.directory + "/graphTemplate.html"));
 
@@ -101,6 +110,8 @@ public class ConfLoader implements Servlet {
 
     /**
      * Handles HTTP POST requests to upload a configuration file, process it, and generate the graph and table HTML files.
+     * The file part of the multipart form is read by the configuration as it arrives, without
+     * being stored on disk or in memory first.
      *
      * @param ri the request information containing parameters and content
      * @param toClient the output stream to send the response to the client
@@ -109,33 +120,43 @@ public class ConfLoader implements Servlet {
     @Override
     public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
         if (!"POST".equals(ri.getHttpCommand())) {
-            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\n\r\n");
+            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n\r\n");
             return;
         }
 
-        Map<String, String> parameters = ri.getParameters();
-        String fileName = parameters.get("filename");
-        byte[] fileContent = ri.getContent();
+        // Find the uploaded file among the parts of the form
+        MultipartReader parts = ri.getMultipart();
+        String fileName = null;
+        while (parts != null && fileName == null && parts.nextPart()) {
+            fileName = parts.getFileName();
+        }
 
-        if (fileName != null && fileContent != null && fileContent.length > 0) {
-            Files.write(Paths.get(fileName), fileContent);
+        PushbackInputStream fileContent = null;
+        if (fileName != null && !fileName.isEmpty()) {
+            fileContent = new PushbackInputStream(parts.getPartStream());
+            int first = fileContent.read();
+            if (first < 0) {
+                fileContent = null; // Empty file
+            } else {
+                fileContent.unread(first);
+            }
+        }
 
-            // Load GenericConfig
+        if (fileContent != null) {
+            // Load GenericConfig straight from the upload
             config.setConfFile(fileName);
-            config.create();
-
-            File file = new File(fileName);
-            file.delete();
+            config.create(new BufferedReader(new InputStreamReader(fileContent, StandardCharsets.UTF_8)));
 
             this.createGraph();
             this.createTable();
 
             String response = "HTTP/1.1 200 OK\r\n" +
+                              "Content-Length: 0\r\n" +
                               "\r\n";
 
             sendResponse(toClient, response);
         } else {
-            sendResponse(toClient, "HTTP/1.1 400 Bad Request\r\n\r\nMissing file name or content");
+            sendResponse(toClient, "HTTP/1.1 400 Bad Request\r\nContent-Length: 28\r\n\r\nMissing file name or content");
         }
     }
 
@@ -2,17 +2,32 @@ package servlets;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import server.RequestParser.RequestInfo;
+import server.ResponseStream;
 
 /**
  * Handles HTTP GET requests for serving static HTML, CSS, and JavaScript files from a specified directory.
+ * <p>
+ * Files are served from an {@link AssetCache}, with a strong {@code ETag} so that a client revalidating
+ * with {@code If-None-Match} gets a {@code 304 Not Modified}, and in gzip when the client accepts it.
+ * A single byte {@code Range} is answered with {@code 206 Partial Content}. Files too large for the
+ * cache are sent from disk, transferred straight to the socket when the server allows it.
+ * </p>
  */
 public class HtmlLoader implements Servlet {
 
-    private final String htmlDirectory;
+    /**
+     * The result of {@link #parseRange(String, long)} for a range outside the file.
+     */
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final AssetCache assets;
 
     /**
      * Constructs an HtmlLoader instance with the specified directory for serving HTML files.
@@ -20,7 +35,7 @@ public class HtmlLoader implements Servlet {
      * @param htmlDirectory the directory where HTML files are stored
      */
     public HtmlLoader(String htmlDirectory) {
-        this.htmlDirectory = htmlDirectory;
+        this.assets = new AssetCache(Paths.get(htmlDirectory));
     }
 
     /**
@@ -33,34 +48,198 @@ public class HtmlLoader implements Servlet {
     @Override
     public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
         if (!"GET".equals(ri.getHttpCommand())) {
-            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\n\r\n");
+            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n\r\n");
             return;
         }
 
         String[] uriSegments = ri.getUriSegments();
         if (uriSegments.length < 2) {
-            sendResponse(toClient, "HTTP/1.1 400 Bad Request\r\n\r\nInvalid request");
+            sendResponse(toClient, "HTTP/1.1 400 Bad Request\r\nContent-Length: 15\r\n\r\nInvalid request");
             return;
         }
 
         String fileName = uriSegments[1];
-        Path filePath = Paths.get(htmlDirectory, fileName);
+        AssetCache.Asset asset = assets.get(fileName);
+        if (asset == null) {
+            sendErrorResponse(toClient, "File not found: " + fileName);
+            return;
+        }
 
-        if (Files.exists(filePath) && !Files.isDirectory(filePath)) {
-            byte[] content = Files.readAllBytes(filePath);
-            String contentType = getContentType(fileName);
+        boolean gzip = asset.gzipContent() != null && acceptsGzip(ri.getHeader("Accept-Encoding"));
+        String etag = gzip ? asset.gzipEtag() : asset.etag();
+        if (matchesEtag(ri.getHeader("If-None-Match"), etag)) {
+            sendResponse(toClient, "HTTP/1.1 304 Not Modified\r\n" +
+                                   "ETag: " + etag + "\r\n" +
+                                   "Cache-Control: no-cache\r\n" +
+                                   "Vary: Accept-Encoding\r\n" +
+                                   "\r\n");
+            return;
+        }
 
-            String response = "HTTP/1.1 200 OK\r\n" +
-                              "Content-Type: " + contentType + "\r\n" +
-                              "Content-Length: " + content.length + "\r\n" +
-                              "\r\n";
+        String range = ri.getHeader("Range");
+        if (range != null && !gzip && matchesIfRange(ri.getHeader("If-Range"), asset.etag())) {
+            long[] bounds = parseRange(range, asset.size());
+            if (bounds == UNSATISFIABLE) {
+                sendResponse(toClient, "HTTP/1.1 416 Range Not Satisfiable\r\n" +
+                                       "Content-Range: bytes */" + asset.size() + "\r\n" +
+                                       "Content-Length: 0\r\n" +
+                                       "\r\n");
+                return;
+            }
+            if (bounds != null) {
+                sendContent(toClient, asset, fileName, asset.partialHead(bounds[0], bounds[1]),
+                        bounds[0], bounds[1] - bounds[0] + 1);
+                return;
+            }
+        }
 
-            toClient.write(response.getBytes());
-            toClient.write(content);
+        if (gzip) {
+            toClient.write(asset.gzipHead());
+            toClient.write(asset.gzipContent());
             toClient.flush();
         } else {
+            sendContent(toClient, asset, fileName, asset.head(), 0, asset.size());
+        }
+    }
+
+    /**
+     * Sends a response with a region of a file, from the cached content or, for a file too large
+     * for the cache, straight from disk.
+     *
+     * @param toClient the output stream to send the response to
+     * @param asset the cached file
+     * @param fileName the name of the file, for the error message
+     * @param head the status line and headers of the response
+     * @param position the position of the first byte to send
+     * @param count the number of bytes to send
+     * @throws IOException if an I/O error occurs, or the file shrinks while it is sent
+     */
+    private void sendContent(OutputStream toClient, AssetCache.Asset asset, String fileName, byte[] head,
+            long position, long count) throws IOException {
+        if (asset.content() != null) {
+            toClient.write(head);
+            toClient.write(asset.content(), (int) position, (int) count);
+            toClient.flush();
+            return;
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(asset.path(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
             sendErrorResponse(toClient, "File not found: " + fileName);
+            return;
         }
+        try (channel) {
+            toClient.write(head);
+            if (toClient instanceof ResponseStream response) {
+                response.transferFrom(channel, position, count); // Zero-copy to the socket
+            } else {
+                WritableByteChannel target = Channels.newChannel(toClient);
+                long end = position + count;
+                while (position < end) {
+                    long sent = channel.transferTo(position, end - position, target);
+                    if (sent <= 0)
+                        throw new IOException("File changed while it was sent: " + fileName);
+                    position += sent;
+                }
+            }
+        }
+        toClient.flush();
+    }
+
+    /**
+     * Parses a {@code Range} header value with a single byte range.
+     *
+     * @param range the header value
+     * @param size the size of the file
+     * @return the first and last index of the range, {@link #UNSATISFIABLE} if the range lies
+     *         outside the file, or {@code null} to ignore the header and send the whole file
+     */
+    private static long[] parseRange(String range, long size) {
+        if (!range.regionMatches(true, 0, "bytes=", 0, 6) || range.indexOf(',') >= 0)
+            return null; // Other units and multiple ranges are not supported
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+            return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) { // Suffix: the last bytes of the file
+                long suffix = Long.parseLong(last);
+                if (suffix < 0)
+                    return null;
+                if (suffix == 0 || size == 0)
+                    return UNSATISFIABLE;
+                return new long[] {Math.max(0, size - suffix), size - 1};
+            }
+            long from = Long.parseLong(first);
+            long to = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (from < 0 || to < from)
+                return null;
+            if (from >= size)
+                return UNSATISFIABLE;
+            return new long[] {from, Math.min(to, size - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether an {@code If-Range} header value allows a range of the current file,
+     * comparing strongly as ranges require.
+     *
+     * @param ifRange the header value, may be {@code null}
+     * @param etag the quoted ETag of the file
+     * @return {@code true} if there is no condition or it matches, {@code false} to send the whole file
+     */
+    private static boolean matchesIfRange(String ifRange, String etag) {
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header value accepts gzip.
+     *
+     * @param acceptEncoding the header value, may be {@code null}
+     * @return {@code true} if gzip is listed without a zero quality, {@code false} otherwise
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            if (!params[0].trim().equalsIgnoreCase("gzip"))
+                continue;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?"))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an {@code If-None-Match} header value matches an ETag, comparing weakly
+     * as revalidation requires.
+     *
+     * @param ifNoneMatch the header value, may be {@code null}
+     * @param etag the quoted ETag of the response
+     * @return {@code true} if the client already has this response, {@code false} otherwise
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag))
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -71,13 +250,14 @@ public class HtmlLoader implements Servlet {
      * @throws IOException if an I/O error occurs while sending the response
      */
     private void sendErrorResponse(OutputStream toClient, String message) throws IOException {
-        String errorContent = "<html><body><h1>404 Not Found</h1><p>" + message + "</p></body></html>";
+        byte[] errorContent = ("<html><body><h1>404 Not Found</h1><p>" + message + "</p></body></html>").getBytes();
         String response = "HTTP/1.1 404 Not Found\r\n" +
                           "Content-Type: text/html\r\n" +
-                          "Content-Length: " + errorContent.length() + "\r\n" +
-                          "\r\n" +
-                          errorContent;
-        sendResponse(toClient, response);
+                          "Content-Length: " + errorContent.length + "\r\n" +
+                          "\r\n";
+        toClient.write(response.getBytes());
+        toClient.write(errorContent);
+        toClient.flush();
     }
 
     /**
@@ -93,30 +273,12 @@ public class HtmlLoader implements Servlet {
     }
 
     /**
-     * Determines the content type of a file based on its extension.
-     *
-     * @param fileName the name of the file
-     * @return the MIME type of the file
-     */
-    private String getContentType(String fileName) {
-        if (fileName.endsWith(".html") || fileName.endsWith(".htm")) {
-            return "text/html";
-        } else if (fileName.endsWith(".css")) {
-            return "text/css";
-        } else if (fileName.endsWith(".js")) {
-            return "application/javascript";
-        } else {
-            return "application/octet-stream";
-        }
-    }
-
-    /**
-     * Closes any resources used by the HtmlLoader. This implementation does not require any resources to close.
+     * Closes any resources used by the HtmlLoader: stops watching the directory and drops the cached files.
      *
      * @throws IOException if an I/O error occurs while closing resources
      */
     @Override
     public void close() throws IOException {
-        // No resources to close
+        assets.close();
     }
 }
\ No newline at end of file
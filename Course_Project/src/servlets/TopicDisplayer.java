@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.Map;
 import server.RequestParser.RequestInfo;
 import graph.TopicManagerSingleton;
+import graph.PropagationBatch;
 import graph.Topic;
 import graph.Message;
 
@@ -14,18 +15,37 @@ import graph.Message;
  */
 public class TopicDisplayer implements Servlet {
 
+    private final boolean batch;
+
     /**
-     * Constructs a {@code TopicDisplayer} instance.
+     * Constructs a {@code TopicDisplayer} instance that publishes messages asynchronously.
      * <p>
      * This default constructor is provided to allow instantiation of the servlet.
      * </p>
      */
     public TopicDisplayer() {
-        // Default constructor
+        this(false);
+    }
+
+    /**
+     * Constructs a {@code TopicDisplayer} instance.
+     * <p>
+     * In batch mode each message is propagated as a {@link PropagationBatch} before the
+     * response is sent: every agent downstream of the topic gets all its changed inputs at once,
+     * in topological order, so the topics never show intermediate values and are all up to date when the client
+     * reads them.
+     * </p>
+     *
+     * @param batch {@code true} to propagate messages as batches, {@code false} to publish them asynchronously
+     */
+    public TopicDisplayer(boolean batch) {
+        this.batch = batch;
     }
 
     /**
      * Handles an HTTP request by publishing a message to a specified topic if both the topic and message are provided.
+     * The message is published asynchronously, so slow subscribers don't hold the request, or propagated
+     * as a batch in batch mode.
      * Responds with a 200 OK status for successful operations.
      *
      * @param ri the request information containing details of the HTTP request
@@ -35,7 +55,7 @@ public class TopicDisplayer implements Servlet {
     @Override
     public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
         if (!"GET".equals(ri.getHttpCommand())) {
-            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\n\r\n");
+            sendResponse(toClient, "HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n\r\n");
             return;
         }
 
@@ -44,12 +64,21 @@ public class TopicDisplayer implements Servlet {
         String messageContent = parameters.get("message");
 
         if (topicName != null && messageContent != null) {
-            Topic topic = TopicManagerSingleton.get().getTopic(topicName);
             Message message = new Message(messageContent);
-            topic.publish(message);
+            if (this.batch) {
+                try {
+                    PropagationBatch.publish(Map.of(topicName, message));
+                } catch (RuntimeException e) {
+                    System.out.println("Agent failed while propagating topic " + topicName + ": " + e.getMessage());
+                }
+            } else {
+                Topic topic = TopicManagerSingleton.get().getTopic(topicName);
+                topic.publishAsync(message);
+            }
         }
 
         String response = "HTTP/1.1 200 OK\r\n" +
+                    "Content-Length: 0\r\n" +
                     "\r\n";
 
         sendResponse(toClient, response);
@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.IOException;
 
+import graph.CompactGraph;
 import graph.Graph;
 import graph.Node;
 
@@ -37,28 +38,82 @@ public class HtmlGraphWriter {
      * @return a {@link List} of strings representing the HTML content for the graph
      */
     public static List<String> getGraphHTML(Graph graph, String pathTemplate) {
+        // Generate nodes and edges representation
+        StringBuilder nodesBuilder = new StringBuilder();
+        StringBuilder edgesBuilder = new StringBuilder();
+
+        for (Node node : graph) {
+            appendNode(nodesBuilder, node.getName(), node.getKind(), node.getMessage().asText());
+            for (Node edge : node.getEdges()) {
+                appendEdge(edgesBuilder, node.getName(), edge.getName());
+            }
+        }
+        return fillTemplate(nodesBuilder, edgesBuilder, pathTemplate);
+    }
+
+    /**
+     * Generates the HTML content for visualizing a compact graph based on the provided
+     * graph and HTML template.
+     *
+     * @param graph the {@link CompactGraph} to be visualized
+     * @param pathTemplate the path to the HTML template file
+     * @return a {@link List} of strings representing the HTML content for the graph
+     */
+    public static List<String> getGraphHTML(CompactGraph graph, String pathTemplate) {
+        StringBuilder nodesBuilder = new StringBuilder();
+        StringBuilder edgesBuilder = new StringBuilder();
+
+        for (int node = 0; node < graph.size(); node++) {
+            appendNode(nodesBuilder, graph.getName(node), graph.getKind(node), graph.getMessage(node).asText());
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                appendEdge(edgesBuilder, graph.getName(node), graph.getName(graph.edgeTarget(edge)));
+            }
+        }
+        return fillTemplate(nodesBuilder, edgesBuilder, pathTemplate);
+    }
+
+    /**
+     * Appends a node to the nodes representation, followed by a comma.
+     *
+     * @param nodesBuilder the nodes representation
+     * @param name the name of the node, with the prefix of its kind
+     * @param kind the kind of the node
+     * @param message the message of the node
+     */
+    private static void appendNode(StringBuilder nodesBuilder, String name, Node.Kind kind, String message) {
+        if (kind == Node.Kind.TOPIC){ // If Topic then color blue
+            nodesBuilder.append(String.format("{ id: '%s', message: '%s', color: 'blue'},", name.substring(1), message));
+        } else if (kind == Node.Kind.AGENT){ // If Agent then color red
+            nodesBuilder.append(String.format("{ id: '%s', message: '%s', color: 'red'},", name.substring(1), message));
+        }
+    }
+
+    /**
+     * Appends an edge to the edges representation, followed by a comma.
+     *
+     * @param edgesBuilder the edges representation
+     * @param source the name of the source node, with the prefix of its kind
+     * @param target the name of the target node, with the prefix of its kind
+     */
+    private static void appendEdge(StringBuilder edgesBuilder, String source, String target) {
+        edgesBuilder.append(String.format("{ source: '%s', target: '%s' },", source.substring(1), target.substring(1)));
+    }
+
+    /**
+     * Reads the HTML template and replaces its placeholder with the nodes and edges.
+     *
+     * @param nodesBuilder the nodes representation, each followed by a comma
+     * @param edgesBuilder the edges representation, each followed by a comma
+     * @param pathTemplate the path to the HTML template file
+     * @return a {@link List} of strings representing the HTML content for the graph
+     */
+    private static List<String> fillTemplate(StringBuilder nodesBuilder, StringBuilder edgesBuilder, String pathTemplate) {
         List<String> htmlContent = new ArrayList<>();
         
         try {
             // Read the static HTML template
             String template = new String(Files.readAllBytes(Paths.get(pathTemplate)));
             
-            // Generate nodes and edges representation
-            StringBuilder nodesBuilder = new StringBuilder();
-            StringBuilder edgesBuilder = new StringBuilder();
-            
-            for (Node node : graph) {
-                if (node.getName().charAt(0) == 'T'){ // If Topic then color blue
-                    nodesBuilder.append(String.format("{ id: '%s', message: '%s', color: 'blue'},", node.getName().substring(1), node.getMessage().asText));
-                } else if (node.getName().charAt(0) == 'A'){ // If Agent then color red
-                    nodesBuilder.append(String.format("{ id: '%s', message: '%s', color: 'red'},", node.getName().substring(1), node.getMessage().asText));
-                }
-                
-                for (Node edge : node.getEdges()) {
-                    edgesBuilder.append(String.format("{ source: '%s', target: '%s' },", node.getName().substring(1), edge.getName().substring(1)));
-                }
-            }
-            
             // Remove the last comma
             if (nodesBuilder.length() > 0) {
                 nodesBuilder.setLength(nodesBuilder.length() - 1);
@@ -86,4 +141,4 @@ public class HtmlGraphWriter {
         
         return htmlContent;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package checks;
+
+import java.util.Objects;
+
+/**
+ * The assertions of the runnable checks under {@code test/}.
+ * <p>
+ * Each check class has a {@code main} method running its cases with these assertions. A failed
+ * assertion is reported and counted, and the remaining cases still run. {@link #finish()} ends
+ * the check with exit status 1 if any assertion failed, so a script can run the checks one after
+ * the other and stop at the first failing class.
+ * </p>
+ */
+public final class Check {
+
+    /**
+     * The number of assertions that failed so far.
+     */
+    private static int failures = 0;
+
+    /**
+     * The number of assertions run so far.
+     */
+    private static int total = 0;
+
+    private Check() {
+    }
+
+    /**
+     * Asserts that a condition holds.
+     *
+     * @param condition the condition
+     * @param description what the condition checks, reported if it doesn't hold
+     */
+    public static synchronized void that(boolean condition, String description) {
+        total++;
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    /**
+     * Asserts that a value equals the expected one.
+     *
+     * @param expected the expected value
+     * @param actual the actual value
+     * @param description what is checked, reported with both values if they differ
+     */
+    public static void equal(Object expected, Object actual, String description) {
+        that(Objects.equals(expected, actual), description + ": expected " + expected + " but was " + actual);
+    }
+
+    /**
+     * Asserts that code throws an exception of the given type.
+     *
+     * @param type the expected type of the exception
+     * @param code the code to run
+     * @param description what is checked, reported if nothing or something else is thrown
+     * @return the exception thrown, or {@code null} if the assertion failed
+     */
+    public static <E extends Throwable> E throwsException(Class<E> type, ThrowingRunnable code, String description) {
+        try {
+            code.run();
+        } catch (Throwable e) {
+            that(type.isInstance(e), description + ": threw " + e);
+            return type.isInstance(e) ? type.cast(e) : null;
+        }
+        that(false, description + ": nothing thrown");
+        return null;
+    }
+
+    /**
+     * Reports the result of the check and exits with status 1 if any assertion failed.
+     */
+    public static synchronized void finish() {
+        System.out.println((failures == 0 ? "OK" : "FAILED") + ": " + (total - failures) + "/" + total + " assertions passed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Code that may throw any exception.
+     */
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+
+        /**
+         * Runs the code.
+         *
+         * @throws Exception if the code fails
+         */
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,106 @@
+package configs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import checks.Check;
+import graph.IncAgent;
+import graph.TopicManagerSingleton;
+
+/**
+ * Checks that {@link GenericConfig} loads agents line by line, and rejects an agent closing
+ * a cycle before it can receive messages.
+ */
+public class GenericConfigCheck {
+
+    public static void main(String[] args) throws IOException {
+        createsCycle();
+        rejectCycle();
+        rejectBadLine();
+        Check.finish();
+    }
+
+    /**
+     * An agent is on a cycle when its output reaches one of its inputs, through any path.
+     */
+    private static void createsCycle() {
+        TopicManagerSingleton.TopicManager manager = TopicManagerSingleton.get();
+        manager.clear();
+        IncAgent ab = new IncAgent(new String[] {"A"}, new String[] {"B"});
+        IncAgent bc = new IncAgent(new String[] {"B"}, new String[] {"C"});
+        Check.that(!manager.createsCycle(ab), "chain A -> B -> C has no cycle");
+        IncAgent cd = new IncAgent(new String[] {"C"}, new String[] {"D"});
+        Check.that(!manager.createsCycle(cd), "extending the chain has no cycle");
+        IncAgent ca = new IncAgent(new String[] {"C"}, new String[] {"A"});
+        Check.that(manager.createsCycle(ca), "C -> A closes the cycle");
+        Check.that(manager.createsCycle(bc), "every agent of the cycle is on it");
+        ca.close();
+        Check.that(!manager.createsCycle(bc), "no cycle once the closing agent is removed");
+        IncAgent self = new IncAgent(new String[] {"E"}, new String[] {"E"});
+        Check.that(manager.createsCycle(self), "an agent publishing to its own input");
+        Check.that(manager.createsCycle(new String[] {"D"}, new String[] {"B"}), "D -> B would close B -> C -> D");
+        Check.that(!manager.createsCycle(new String[] {"A"}, new String[] {"D"}), "A -> D adds no cycle");
+        Check.that(manager.createsCycle(new String[] {"F"}, new String[] {"F"}), "an agent given its output as input");
+        Check.that(!manager.createsCycle(new String[] {"F"}, new String[] {"G"}), "new topics add no cycle");
+        manager.clear();
+    }
+
+    /**
+     * Loading stops at the agent closing a cycle, which is closed, and the graph stays acyclic.
+     */
+    private static void rejectCycle() throws IOException {
+        GenericConfig config = new GenericConfig();
+        config.create(reader("""
+                graph.IncAgent
+                A
+                B
+                graph.IncAgent
+                B
+                C
+                graph.IncAgent
+                C
+                A
+                graph.IncAgent
+                C
+                D
+                """));
+        Check.that(!TopicManagerSingleton.get().getGraph().hasCycles(), "graph without cycles");
+        Check.that(TopicManagerSingleton.get().getTopic("A").getPubs().isEmpty(), "the rejected agent doesn't publish to A");
+        Check.that(TopicManagerSingleton.get().getTopic("C").getSubs().isEmpty(), "nothing loaded after the rejected agent");
+        config.close();
+        Check.equal(0, TopicManagerSingleton.get().getGraph().size(), "topics cleared on close");
+    }
+
+    /**
+     * A line the agent constructor rejects stops loading, keeping the agents before it.
+     */
+    private static void rejectBadLine() throws IOException {
+        GenericConfig config = new GenericConfig();
+        config.create(reader("""
+                graph.IncAgent
+                A
+                B
+                graph.ExpressionAgent:A+X
+                A,B
+                C
+                graph.IncAgent
+                B
+                D
+                """));
+        Check.equal(1, TopicManagerSingleton.get().getTopic("A").getSubs().size(), "agent before the bad line is kept");
+        Check.that(TopicManagerSingleton.get().getTopic("C").getPubs().isEmpty(), "agent of the bad line is not created");
+        Check.that(TopicManagerSingleton.get().getTopic("D").getPubs().isEmpty(), "nothing loaded after the bad line");
+        config.close();
+    }
+
+    /**
+     * Returns a reader of a configuration.
+     *
+     * @param text the lines of the configuration
+     * @return the reader
+     */
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+}
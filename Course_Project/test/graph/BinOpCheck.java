@@ -0,0 +1,47 @@
+package graph;
+
+import java.util.Locale;
+
+import checks.Check;
+
+/**
+ * Checks the operations of {@link BinOpAgent}.
+ */
+public class BinOpCheck {
+
+    public static void main(String[] args) {
+        binaryOps();
+        Check.finish();
+    }
+
+    /**
+     * Operations are found by name in any case and any default locale, and applied to the
+     * latest value of both inputs.
+     */
+    private static void binaryOps() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr")); // Lower case of I is a dotless i
+            Check.that(BinaryOps.byName("MIN") == BinaryOps.MIN, "MIN found with a Turkish default locale");
+        } finally {
+            Locale.setDefault(locale);
+        }
+        Check.that(BinaryOps.byName("Pow") == BinaryOps.POW, "name in mixed case");
+        Check.equal(null, BinaryOps.byName("mod"), "unknown operation");
+        Check.throwsException(IllegalArgumentException.class,
+                () -> new BinOpAgent("mod", new String[] {"A", "B"}, new String[] {"C"}), "agent with an unknown operation");
+        Check.throwsException(IllegalArgumentException.class,
+                () -> new BinOpAgent("add", new String[] {"A"}, new String[] {"C"}), "agent with a missing input");
+
+        TopicManagerSingleton.get().clear();
+        BinOpAgent sub = new BinOpAgent("sub", new String[] {"A", "B"}, new String[] {"C"});
+        Recorder out = new Recorder("C");
+        TopicManagerSingleton.get().getTopic("A").publish(new Message(5));
+        TopicManagerSingleton.get().getTopic("B").publish(new Message(2));
+        Check.equal("3.0", out.last(), "A - B");
+        TopicManagerSingleton.get().getTopic("B").publish(new Message("x"));
+        Check.equal("3.0", out.last(), "a message that is not a number is ignored");
+        sub.close();
+        TopicManagerSingleton.get().clear();
+    }
+}
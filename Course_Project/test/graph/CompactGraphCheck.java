@@ -0,0 +1,60 @@
+package graph;
+
+import checks.Check;
+
+/**
+ * Checks that {@link CompactGraph} holds the same topology as {@link Graph}.
+ */
+public class CompactGraphCheck {
+
+    public static void main(String[] args) {
+        compactGraph();
+        Check.finish();
+    }
+
+    /**
+     * The compressed form of a small graph has the nodes and edges of the object graph, and
+     * orders them topologically.
+     */
+    private static void compactGraph() {
+        TopicManagerSingleton.get().clear();
+        Agent[] agents = {
+                new IncAgent(new String[] {"A"}, new String[] {"B"}),
+                new PlusAgent(new String[] {"A", "B"}, new String[] {"C"}),
+                new IncAgent(new String[] {"C"}, new String[] {"D"})};
+        Graph graph = TopicManagerSingleton.get().getGraph();
+        CompactGraph compact = TopicManagerSingleton.get().getCompactGraph();
+
+        int edges = 0;
+        for (Node node : graph) {
+            edges += node.getEdges().size();
+        }
+        Check.equal(graph.size(), compact.size(), "node count");
+        Check.equal(edges, compact.edgeCount(), "edge count");
+        Check.that(!compact.hasCycles(), "no cycles");
+
+        int[] order = compact.topologicalOrder();
+        int[] position = new int[compact.size()];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        boolean ordered = true;
+        for (int node = 0; node < compact.size(); node++) {
+            for (int e = compact.edgeStart(node); e < compact.edgeEnd(node); e++) {
+                ordered &= position[node] < position[compact.edgeTarget(e)];
+            }
+        }
+        Check.that(ordered, "every edge goes forward in topological order");
+        Check.that(compact == TopicManagerSingleton.get().getCompactGraph(), "cached until the topology changes");
+
+        Agent loop = new IncAgent(new String[] {"D"}, new String[] {"A"});
+        Check.that(TopicManagerSingleton.get().getCompactGraph().hasCycles(), "cycle found after adding D -> A");
+        Check.throwsException(IllegalStateException.class,
+                () -> TopicManagerSingleton.get().getCompactGraph().topologicalOrder(), "no topological order with a cycle");
+        loop.close();
+        for (Agent agent : agents) {
+            agent.close();
+        }
+        TopicManagerSingleton.get().clear();
+    }
+}
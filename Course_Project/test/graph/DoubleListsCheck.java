@@ -0,0 +1,86 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import checks.Check;
+
+/**
+ * Checks the parsing and formatting of number lists by {@link DoubleLists}, and the sorted
+ * merge of deltas by {@link SortAgent}.
+ */
+public class DoubleListsCheck {
+
+    public static void main(String[] args) {
+        parse();
+        format();
+        sortAndMerge();
+        Check.finish();
+    }
+
+    /**
+     * Lists split like {@code String.split(",")}, with blanks around the numbers and
+     * rejected elements.
+     */
+    private static void parse() {
+        Check.that(Arrays.equals(new double[] {1, 2.5, -3}, DoubleLists.parse("1,2.5,-3")), "plain list");
+        Check.that(Arrays.equals(new double[] {1, 2}, DoubleLists.parse(" 1 , 2 ")), "blanks around numbers");
+        Check.that(Arrays.equals(new double[] {1, 2}, DoubleLists.parse("1,2,,")), "trailing empty elements are ignored");
+        Check.that(Arrays.equals(new double[0], DoubleLists.parse(",,")), "only commas is an empty list");
+        Check.that(Arrays.equals(new double[] {1e15, 0.001}, DoubleLists.parse("1e15,1E-3")), "exponents");
+        Check.equal(null, DoubleLists.parse(""), "empty text");
+        Check.equal(null, DoubleLists.parse("1,,2"), "empty element inside the list");
+        Check.equal(null, DoubleLists.parse("1,x"), "element that is not a number");
+        Check.equal(null, DoubleLists.parse("1,NaN"), "NaN element");
+    }
+
+    /**
+     * Whole numbers keep their integer form, as {@code Double.toString} would not.
+     */
+    private static void format() {
+        double[] values = {3, -0.5, 1e20, 2};
+        Check.equal("3,-0.5,1.0E20", DoubleLists.format(values, 0, 3), "formatted list");
+        Check.equal("-0.5", DoubleLists.format(values, 1, 2), "formatted range");
+        Check.equal("", DoubleLists.format(values, 2, 2), "empty range");
+    }
+
+    /**
+     * Random lists and deltas, compared with sorting everything received so far.
+     */
+    private static void sortAndMerge() {
+        TopicManagerSingleton.get().clear();
+        SortAgent sort = new SortAgent(new String[] {"List", "Delta"}, new String[] {"Sorted"});
+        Recorder published = new Recorder("Sorted");
+
+        Random random = new Random(1);
+        List<Double> expected = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            boolean replace = round % 20 == 0;
+            double[] values = new double[random.nextInt(30)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(50) - 10 + (random.nextBoolean() ? 0.5 : 0);
+            }
+            if (replace) {
+                expected.clear();
+            }
+            for (double value : values) {
+                expected.add(value);
+            }
+            expected.sort(null);
+            String text = values.length == 0 ? "," : DoubleLists.format(values, 0, values.length);
+            TopicManagerSingleton.get().getTopic(replace ? "List" : "Delta").publish(new Message(text));
+
+            double[] sorted = expected.stream().mapToDouble(Double::doubleValue).toArray();
+            Check.equal(DoubleLists.format(sorted, 0, sorted.length), published.last(),
+                    "sorted list after round " + round);
+        }
+
+        int count = published.messages().size();
+        TopicManagerSingleton.get().getTopic("Delta").publish(new Message("1,oops"));
+        Check.equal(count, published.messages().size(), "a delta that is not a list is ignored");
+        sort.close();
+        TopicManagerSingleton.get().clear();
+    }
+}
@@ -0,0 +1,100 @@
+package graph;
+
+import java.lang.reflect.Field;
+
+import checks.Check;
+
+/**
+ * Checks the formulas of {@link ExpressionAgent}: precedence and associativity, functions,
+ * rejected formulas and the folding of constant parts.
+ */
+public class ExpressionCheck {
+
+    public static void main(String[] args) throws Exception {
+        evaluate();
+        reject();
+        fold();
+        Check.finish();
+    }
+
+    /**
+     * Formulas over two inputs, evaluated after both were published.
+     */
+    private static void evaluate() {
+        Check.equal(21.0, eval("(A+B)*(A-B)", 5, 2), "parentheses");
+        Check.equal(6.0, eval("A-B-1", 10, 3), "subtraction is left-associative");
+        Check.equal(512.0, eval("2^3^2", 0, 0), "power is right-associative");
+        Check.equal(-3.0, eval("-2^2 + A", 1, 0), "power binds tighter than negation");
+        Check.equal(3.5, eval("max(A, B*2) / 4 - -1", 3, 5), "function and double negation");
+        Check.equal(151.0, eval("1.5e2 + A*1e-1", 10, 0), "numbers with exponents");
+        Check.equal(14.0, eval("A + B * 2", 4, 5), "product before sum");
+    }
+
+    /**
+     * Invalid formulas are rejected with the position of the error.
+     */
+    private static void reject() {
+        for (String formula : new String[] {"(A+B", "foo(A,B)", "A+", "A B", "1..2", ""}) {
+            Check.throwsException(IllegalArgumentException.class, () -> agent(formula).close(), "formula " + formula);
+        }
+        IllegalArgumentException e = Check.throwsException(IllegalArgumentException.class,
+                () -> agent("A+C").close(), "formula with a topic that is not subscribed");
+        if (e != null) {
+            Check.that(e.getMessage().contains("Topic C is not subscribed at position 2"), "message names the topic: " + e.getMessage());
+        }
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * Parts without variables are compiled to a single constant.
+     */
+    private static void fold() throws Exception {
+        Check.equal("Constant", compiled("2^3 * (1 + max(4, 5)) - -1"), "formula without variables");
+        Check.equal("Add", compiled("A + 2 * 3"), "sum of a variable and a folded product");
+        Check.equal(55.0, eval("2 * (3 + 4) * 4 - 1 + A", 0, 0), "value of a folded formula");
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * Publishes the values of {@code A} and {@code B} to an agent computing a formula.
+     *
+     * @param formula the formula over {@code A} and {@code B}
+     * @param a the value of {@code A}
+     * @param b the value of {@code B}
+     * @return the last value the agent published
+     */
+    private static double eval(String formula, double a, double b) {
+        TopicManagerSingleton.get().clear();
+        ExpressionAgent agent = agent(formula);
+        Recorder out = new Recorder("Out");
+        TopicManagerSingleton.get().getTopic("A").publish(new Message(a));
+        TopicManagerSingleton.get().getTopic("B").publish(new Message(b));
+        agent.close();
+        return Double.parseDouble(out.last());
+    }
+
+    /**
+     * Returns the kind of the root of a compiled formula.
+     *
+     * @param formula the formula over {@code A} and {@code B}
+     * @return the simple name of the class of the root
+     */
+    private static String compiled(String formula) throws Exception {
+        ExpressionAgent agent = agent(formula);
+        Field expr = ExpressionAgent.class.getDeclaredField("expr");
+        expr.setAccessible(true);
+        String kind = expr.get(agent).getClass().getSimpleName();
+        agent.close();
+        return kind;
+    }
+
+    /**
+     * Creates an agent computing a formula over {@code A} and {@code B} to {@code Out}.
+     *
+     * @param formula the formula
+     * @return the agent
+     */
+    private static ExpressionAgent agent(String formula) {
+        return new ExpressionAgent(formula, new String[] {"A", "B"}, new String[] {"Out"});
+    }
+}
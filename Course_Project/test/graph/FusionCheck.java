@@ -0,0 +1,57 @@
+package graph;
+
+import checks.Check;
+
+/**
+ * Checks that fusing a chain of agents while messages flow through it loses none of them
+ * and keeps their order, in every {@link ExecutionMode}.
+ */
+public class FusionCheck {
+
+    /**
+     * The number of messages published in each run.
+     */
+    private static final int MESSAGES = 20000;
+
+    public static void main(String[] args) throws Exception {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            fuseWhilePublishing(mode);
+        }
+        Check.finish();
+    }
+
+    /**
+     * Fuses a chain of two agents at varying points of a stream of messages.
+     *
+     * @param mode the execution mode of the agents
+     */
+    private static void fuseWhilePublishing(ExecutionMode mode) throws InterruptedException {
+        int unordered = 0;
+        for (int run = 0; run < 10; run++) {
+            TopicManagerSingleton.get().clear();
+            Agent inc = new ParallelAgent(new IncAgent(new String[] {"In"}, new String[] {"T"}), 50, mode);
+            Recorder recorder = new Recorder("T");
+            ParallelAgent parallel = new ParallelAgent(recorder, 50, mode);
+            Topic in = TopicManagerSingleton.get().getTopic("In");
+
+            Thread publisher = new Thread(() -> {
+                for (int i = 0; i < MESSAGES; i++) {
+                    in.publish(new Message(i));
+                }
+            });
+            publisher.start();
+            Thread.sleep(run % 5);
+            Check.equal(1, TopicManagerSingleton.get().fuseChains(), mode + " agents fused");
+            publisher.join();
+
+            Check.equal(MESSAGES, recorder.await(MESSAGES, 10000), mode + " messages received through the fused chain");
+            if (!recorder.isIncreasing()) {
+                unordered++;
+            }
+            inc.close();
+            parallel.close();
+        }
+        TopicManagerSingleton.get().clear();
+        Check.equal(0, unordered, mode + " runs out of order while fusing");
+    }
+}
@@ -0,0 +1,87 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import checks.Check;
+
+/**
+ * Checks the quickselect of {@link OrderStatisticAgent} against sorting, and the values the
+ * agent publishes.
+ */
+public class OrderStatisticCheck {
+
+    public static void main(String[] args) {
+        select();
+        agent();
+        Check.finish();
+    }
+
+    /**
+     * Random arrays with many duplicates, some sorted or reversed, queried several times
+     * each so later queries run on the partitions left by earlier ones.
+     */
+    private static void select() {
+        Random random = new Random(5);
+        int wrong = 0;
+        int changed = 0;
+        for (int trial = 0; trial < 20000; trial++) {
+            double[] values = new double[1 + random.nextInt(40)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(8) - 3;
+            }
+            if (trial % 5 == 0) {
+                Arrays.sort(values);
+            } else if (trial % 5 == 1) {
+                Arrays.sort(values);
+                for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+                    double t = values[i];
+                    values[i] = values[j];
+                    values[j] = t;
+                }
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int query = 0; query < 3; query++) {
+                int k = random.nextInt(values.length);
+                if (Double.compare(OrderStatisticAgent.select(values, k), sorted[k]) != 0) {
+                    wrong++;
+                }
+            }
+            double[] after = values.clone();
+            Arrays.sort(after);
+            if (!Arrays.equals(sorted, after)) {
+                changed++;
+            }
+        }
+        Check.equal(0, wrong, "wrong k-th smallest values");
+        Check.equal(0, changed, "arrays whose values changed, not only their order");
+
+        double[] mixed = {0.0, -0.0, -1, 1};
+        Check.equal(-0.0, OrderStatisticAgent.select(mixed, 1), "-0.0 comes before 0.0");
+    }
+
+    /**
+     * The agent publishes the selected value, or {@code error} while the index is out of the list.
+     */
+    private static void agent() {
+        TopicManagerSingleton.get().clear();
+        OrderStatisticAgent agent = new OrderStatisticAgent(new String[] {"List", "K"}, new String[] {"Out"});
+        Recorder out = new Recorder("Out");
+
+        Topic list = TopicManagerSingleton.get().getTopic("List");
+        Topic k = TopicManagerSingleton.get().getTopic("K");
+        list.publish(new Message("5,3,9,1,7"));
+        Check.equal("error", out.last(), "no index received yet");
+        k.publish(new Message(3));
+        Check.equal("7", out.last(), "index 3");
+        k.publish(new Message(1.5));
+        Check.equal("7", out.last(), "an index that is not an integer is ignored");
+        list.publish(new Message("4,2"));
+        Check.equal("error", out.last(), "index past the new list");
+        k.publish(new Message(1));
+        Check.equal("4", out.last(), "index 1 of the new list");
+        agent.close();
+        TopicManagerSingleton.get().clear();
+    }
+}
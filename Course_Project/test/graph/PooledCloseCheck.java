@@ -0,0 +1,56 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import checks.Check;
+
+/**
+ * Checks that closing an agent running on the shared pool waits for its running callback,
+ * and that no queued callback runs afterwards.
+ */
+public class PooledCloseCheck {
+
+    public static void main(String[] args) throws Exception {
+        TopicManagerSingleton.get().clear();
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        Agent slow = new Agent() {
+            @Override
+            public String getName() {
+                return "Slow";
+            }
+
+            @Override
+            public void reset() {
+            }
+
+            @Override
+            public void callback(String topic, Message msg) {
+                log.add("start");
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                log.add("end");
+            }
+
+            @Override
+            public void close() {
+                log.add("close");
+            }
+        };
+        TopicManagerSingleton.get().getTopic("In").subscribe(slow);
+        ParallelAgent parallel = new ParallelAgent(slow, 10, ExecutionMode.POOL);
+        TopicManagerSingleton.get().getTopic("In").publish(new Message(1));
+        TopicManagerSingleton.get().getTopic("In").publish(new Message(2));
+        Thread.sleep(50);
+        parallel.close();
+        Check.equal(List.of("start", "end", "close"), List.copyOf(log), "close waits for the running callback");
+        Thread.sleep(400);
+        Check.equal(List.of("start", "end", "close"), List.copyOf(log), "no callback after close");
+        TopicManagerSingleton.get().clear();
+        Check.finish();
+    }
+}
@@ -0,0 +1,70 @@
+package graph;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import checks.Check;
+
+/**
+ * Checks that {@link PropagationBatch} runs every agent downstream of the updates once, in
+ * topological order.
+ */
+public class PropagationBatchCheck {
+
+    public static void main(String[] args) {
+        diamond();
+        publishOnce();
+        Check.finish();
+    }
+
+    /**
+     * In a diamond, the agent joining both paths runs once per batch, with both inputs updated.
+     */
+    private static void diamond() {
+        TopicManagerSingleton.get().clear();
+        List<Agent> agents = List.of(
+                new ParallelAgent(new IncAgent(new String[] {"A"}, new String[] {"B"}), 10),
+                new ParallelAgent(new PlusAgent(new String[] {"A", "B"}, new String[] {"C"}), 10),
+                new ParallelAgent(new IncAgent(new String[] {"C"}, new String[] {"D"}), 10));
+        Recorder c = new Recorder("C");
+        Recorder d = new Recorder("D");
+
+        PropagationBatch.publish(Map.of("A", new Message(10)));
+        Check.equal(List.of("21.0"), c.messages(), "joining agent runs once with both inputs");
+        Check.equal(List.of("22.0"), d.messages(), "agent after the join runs once");
+        Check.equal("22.0", TopicManagerSingleton.get().getTopic("D").getMessage().asText(), "last message saved");
+
+        for (Agent agent : agents) {
+            agent.close();
+        }
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * Agents combining several inputs publish once when handed all their inputs at once.
+     */
+    private static void publishOnce() {
+        TopicManagerSingleton.get().clear();
+        Map<String, Message> inputs = new LinkedHashMap<>();
+        inputs.put("A", new Message(1));
+        inputs.put("B", new Message(2));
+        List<Agent> agents = List.of(
+                new PlusAgent(new String[] {"A", "B"}, new String[] {"C"}),
+                new BinOpAgent("sub", new String[] {"A", "B"}, new String[] {"D"}),
+                new ExpressionAgent("A*B", new String[] {"A", "B"}, new String[] {"E"}));
+        Recorder c = new Recorder("C");
+        Recorder d = new Recorder("D");
+        Recorder e = new Recorder("E");
+        for (Agent agent : agents) {
+            agent.callback(inputs);
+        }
+        Check.equal(List.of("3.0"), c.messages(), "PlusAgent publishes once for both inputs");
+        Check.equal(List.of("-1.0"), d.messages(), "BinOpAgent publishes once for both inputs");
+        Check.equal(List.of("2.0"), e.messages(), "ExpressionAgent publishes once for both inputs");
+        for (Agent agent : agents) {
+            agent.close();
+        }
+        TopicManagerSingleton.get().clear();
+    }
+}
@@ -0,0 +1,95 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import checks.Check;
+
+/**
+ * Checks {@link Topic#publishAsync(Message)} and the {@link Backpressure} policies of a full queue.
+ */
+public class PublishAsyncCheck {
+
+    public static void main(String[] args) throws Exception {
+        publishAsync();
+        dropOldest();
+        reject();
+        Check.finish();
+    }
+
+    /**
+     * Messages published asynchronously are delivered and saved in the order they were published.
+     */
+    private static void publishAsync() {
+        TopicManagerSingleton.get().clear();
+        Recorder recorder = new Recorder("In");
+        Topic in = TopicManagerSingleton.get().getTopic("In");
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            deliveries.add(in.publishAsync(new Message(i)));
+        }
+        Check.equal("999.0", in.getMessage().asText(), "last message saved before the deliveries");
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0])).join();
+        Check.equal(1000, recorder.messages().size(), "asynchronous messages delivered");
+        Check.that(recorder.isIncreasing(), "asynchronous messages delivered in order");
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * A full queue drops its oldest callbacks, keeping the newest message and the order.
+     */
+    private static void dropOldest() throws InterruptedException {
+        TopicManagerSingleton.get().clear();
+        Topic in = TopicManagerSingleton.get().getTopic("In");
+        Recorder recorder = slowRecorder(1);
+        ParallelAgent dropping = new ParallelAgent(recorder, 4, ExecutionMode.THREAD, Backpressure.DROP_OLDEST);
+        for (int i = 0; i < 1000; i++) {
+            in.publish(new Message(i));
+        }
+        recorder.await(1000, 200);
+        List<String> received = recorder.messages();
+        Check.that(received.size() < 1000, "DROP_OLDEST drops callbacks: " + received.size() + " received");
+        Check.equal("999.0", received.get(received.size() - 1), "DROP_OLDEST keeps the newest message");
+        Check.that(recorder.isIncreasing(), "DROP_OLDEST keeps the order of the messages left");
+        dropping.close();
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * A full queue refuses new callbacks.
+     */
+    private static void reject() {
+        TopicManagerSingleton.get().clear();
+        Topic in = TopicManagerSingleton.get().getTopic("In");
+        ParallelAgent rejecting = new ParallelAgent(slowRecorder(100), 1, ExecutionMode.THREAD, Backpressure.REJECT);
+        Check.throwsException(RejectedExecutionException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                in.publish(new Message(i));
+            }
+        }, "REJECT refuses callbacks once the queue is full");
+        rejecting.close();
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * Returns a recorder of topic {@code In} that sleeps after each message, so its queue fills up.
+     *
+     * @param millis the time to sleep after each message
+     * @return the recorder
+     */
+    private static Recorder slowRecorder(long millis) {
+        return new Recorder("In") {
+            @Override
+            public void callback(String topic, Message msg) {
+                super.callback(topic, msg);
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
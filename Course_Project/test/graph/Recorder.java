@@ -0,0 +1,92 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An agent keeping the text of every message it receives, for the checks to inspect.
+ * It may be called from several threads.
+ */
+class Recorder implements Agent {
+
+    /**
+     * The texts of the messages received, in order.
+     */
+    private final List<String> messages = new ArrayList<>();
+
+    /**
+     * Constructs a {@code Recorder} subscribed to the given topic.
+     *
+     * @param topic the name of the topic to record
+     */
+    Recorder(String topic) {
+        TopicManagerSingleton.get().getTopic(topic).subscribe(this);
+    }
+
+    @Override
+    public String getName() {
+        return "Recorder";
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public synchronized void callback(String topic, Message msg) {
+        this.messages.add(msg.asText());
+        this.notifyAll();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Returns a copy of the texts received so far.
+     *
+     * @return the texts, in the order they were received
+     */
+    synchronized List<String> messages() {
+        return new ArrayList<>(this.messages);
+    }
+
+    /**
+     * Returns the text of the last message received.
+     *
+     * @return the text, or {@code null} if nothing was received
+     */
+    synchronized String last() {
+        return this.messages.isEmpty() ? null : this.messages.get(this.messages.size() - 1);
+    }
+
+    /**
+     * Checks that the messages received are numbers in strictly increasing order.
+     *
+     * @return {@code true} if every number is greater than the one before, {@code false} otherwise
+     */
+    synchronized boolean isIncreasing() {
+        for (int i = 1; i < this.messages.size(); i++) {
+            if (Double.parseDouble(this.messages.get(i)) <= Double.parseDouble(this.messages.get(i - 1)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until a number of messages was received, or a timeout expired.
+     *
+     * @param count the number of messages to wait for
+     * @param timeoutMillis the longest time to wait, in milliseconds
+     * @return the number of messages received
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    synchronized int await(int count, long timeoutMillis) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMillis;
+        long left;
+        while (this.messages.size() < count && (left = end - System.currentTimeMillis()) > 0) {
+            this.wait(left);
+        }
+        return this.messages.size();
+    }
+}
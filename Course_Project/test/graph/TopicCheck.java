@@ -0,0 +1,72 @@
+package graph;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import checks.Check;
+
+/**
+ * Checks that publishing to a topic reaches its subscribers in order and without losses,
+ * while other subscribers are added and removed concurrently, and that its agents only
+ * change through its methods.
+ */
+public class TopicCheck {
+
+    /**
+     * The number of messages published by each check.
+     */
+    private static final int MESSAGES = 20000;
+
+    public static void main(String[] args) throws Exception {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            publishWhileSubscribing(mode);
+        }
+        readOnlyLists();
+        Check.finish();
+    }
+
+    /**
+     * Messages published from one thread reach a wrapped agent in order, while other
+     * subscribers come and go on the topic.
+     *
+     * @param mode the execution mode of the agent
+     */
+    private static void publishWhileSubscribing(ExecutionMode mode) throws InterruptedException {
+        TopicManagerSingleton.get().clear();
+        Recorder recorder = new Recorder("In");
+        ParallelAgent parallel = new ParallelAgent(recorder, 50, mode);
+        Topic in = TopicManagerSingleton.get().getTopic("In");
+
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        Thread churn = new Thread(() -> {
+            Recorder other = new Recorder("Other");
+            while (publishing.get()) {
+                in.subscribe(other);
+                in.unsubscribe(other);
+            }
+        });
+        churn.start();
+        for (int i = 0; i < MESSAGES; i++) {
+            in.publish(new Message(i));
+        }
+        publishing.set(false);
+        churn.join();
+
+        Check.equal(MESSAGES, recorder.await(MESSAGES, 10000), mode + " messages received");
+        Check.that(recorder.isIncreasing(), mode + " messages received in order");
+        parallel.close();
+        TopicManagerSingleton.get().clear();
+    }
+
+    /**
+     * The lists of subscribers and publishers of a topic can't be modified directly.
+     */
+    private static void readOnlyLists() {
+        TopicManagerSingleton.get().clear();
+        Topic in = TopicManagerSingleton.get().getTopic("In");
+        Recorder recorder = new Recorder("In");
+        Check.throwsException(UnsupportedOperationException.class, () -> in.getSubs().remove(recorder), "subscribers are read-only");
+        Check.throwsException(UnsupportedOperationException.class, () -> in.getPubs().add(recorder), "publishers are read-only");
+        Check.equal(1, in.getSubs().size(), "subscriber kept");
+        TopicManagerSingleton.get().clear();
+    }
+}
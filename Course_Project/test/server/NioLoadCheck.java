@@ -0,0 +1,445 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import checks.Check;
+import server.RequestParser.RequestInfo;
+import servlets.Servlet;
+
+/**
+ * Checks {@link NioHTTPServer} under many concurrent keep-alive connections, and its handling
+ * of pipelined requests, {@code Expect: 100-continue}, large uploads and responses, malformed
+ * or oversized requests and idle connections.
+ * <p>
+ * The number of connections is the first argument, 1000 by default. Every connection is opened
+ * before any request is sent, then each one sends its requests one after the other on the same
+ * socket. Checking 10000 connections needs twice as many file descriptors, for both ends.
+ * </p>
+ */
+public class NioLoadCheck {
+
+    /**
+     * The requests sent on each connection of the load.
+     */
+    private static final int REQUESTS_PER_CONNECTION = 3;
+
+    /**
+     * The size of the large response.
+     */
+    private static final int LARGE = 8 * 1024 * 1024;
+
+    /**
+     * The size of the large upload, more than the server ever buffers for a connection.
+     */
+    private static final long LARGE_UPLOAD = 64L * 1024 * 1024;
+
+    /**
+     * The idle timeout of the server checking it, in milliseconds. The other server waits
+     * longer than opening every connection takes.
+     */
+    private static final int IDLE_TIMEOUT = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int port = freePort();
+        NioHTTPServer server = start(port, connections, 60000);
+        try {
+            load(port, connections);
+            pipelined(port);
+            expectContinue(port);
+            largeUpload(port);
+            largeResponse(port);
+            rejected(port);
+        } finally {
+            server.close();
+        }
+
+        port = freePort();
+        server = start(port, 50, IDLE_TIMEOUT);
+        try {
+            idle(port);
+        } finally {
+            server.close();
+        }
+        Check.finish();
+    }
+
+    /**
+     * Finds a port no server listens on.
+     *
+     * @return the port
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket free = new ServerSocket(0)) {
+            return free.getLocalPort();
+        }
+    }
+
+    /**
+     * Starts a server with the servlets of the check.
+     *
+     * @param port the port to listen on
+     * @param backlog the accept backlog
+     * @param idleTimeout the idle timeout, in milliseconds
+     * @return the started server
+     */
+    private static NioHTTPServer start(int port, int backlog, int idleTimeout) throws InterruptedException {
+        ServerConfig config = new ServerConfig();
+        config.setMode(ServerConfig.Mode.NIO);
+        config.setPort(port);
+        config.setThreads(4);
+        config.setBacklog(backlog);
+        config.setIdleTimeout(idleTimeout);
+        NioHTTPServer server = new NioHTTPServer(config);
+        server.addServlet("GET", "/hello/{name}", new Hello());
+        server.addServlet("POST", "/echo", new Echo());
+        server.addServlet("GET", "/large", new Large());
+        server.addServlet("POST", "/count", new Count());
+        server.start();
+        Thread.sleep(200); // Let the server bind
+        return server;
+    }
+
+    /**
+     * Opens all connections, then sends the requests of every connection at once.
+     *
+     * @param port the port of the server
+     * @param connections the number of connections
+     */
+    private static void load(int port, int connections) throws Exception {
+        CountDownLatch connected = new CountDownLatch(connections);
+        List<Future<Integer>> clients = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                int id = c;
+                clients.add(executor.submit(() -> {
+                    try (Socket socket = new Socket()) {
+                        socket.connect(new InetSocketAddress("localhost", port), 30000);
+                        socket.setSoTimeout(30000);
+                        connected.countDown();
+                        connected.await(); // Every connection is open before any request
+                        int ok = 0;
+                        for (int r = 0; r < REQUESTS_PER_CONNECTION; r++) {
+                            String name = id + "-" + r;
+                            send(socket, "GET /hello/" + name + " HTTP/1.1\r\nHost: x\r\n\r\n");
+                            if (("hello " + name).equals(readBody(socket.getInputStream())))
+                                ok++;
+                        }
+                        return ok;
+                    }
+                }));
+            }
+        }
+        int ok = 0;
+        int failed = 0;
+        for (Future<Integer> client : clients) {
+            try {
+                ok += client.get();
+            } catch (Exception e) {
+                if (failed++ == 0)
+                    System.out.println("First failed connection: " + e.getCause());
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println(connections + " connections, " + ok + " responses in " + millis + " ms");
+        Check.equal(0, failed, "failed connections");
+        Check.equal(connections * REQUESTS_PER_CONNECTION, ok, "correct responses on kept-alive connections");
+    }
+
+    /**
+     * Requests sent together are answered in order, and the connection is closed after the
+     * one asking for it.
+     *
+     * @param port the port of the server
+     */
+    private static void pipelined(int port) throws IOException {
+        try (Socket socket = connect(port)) {
+            send(socket, "GET /hello/a HTTP/1.1\r\n\r\n"
+                    + "POST /echo HTTP/1.1\r\nContent-Length: 4\r\n\r\nbody"
+                    + "POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nchu\r\n4\r\nnked\r\n0\r\n\r\n"
+                    + "GET /hello/b HTTP/1.1\r\nConnection: close\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Check.equal("hello a", readBody(in), "first pipelined response");
+            Check.equal("body", readBody(in), "second pipelined response");
+            Check.equal("chunked", readBody(in), "pipelined response to a chunked body");
+            Check.equal("hello b", readBody(in), "last pipelined response");
+            Check.equal(-1, in.read(), "closed after Connection: close");
+        }
+    }
+
+    /**
+     * The server answers {@code 100 Continue} before the body was sent.
+     *
+     * @param port the port of the server
+     */
+    private static void expectContinue(int port) throws IOException {
+        try (Socket socket = connect(port)) {
+            send(socket, "POST /echo HTTP/1.1\r\nContent-Length: 5\r\nExpect: 100-continue\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Check.equal("HTTP/1.1 100 Continue", readLine(in), "interim response");
+            Check.equal("", readLine(in), "end of the interim response");
+            send(socket, "hello");
+            Check.equal("hello", readBody(in), "response after the body");
+        }
+    }
+
+    /**
+     * A body much larger than the queue of a connection is streamed to the servlet while it
+     * is sent, and the connection goes on after it.
+     *
+     * @param port the port of the server
+     */
+    private static void largeUpload(int port) throws Exception {
+        try (Socket socket = connect(port)) {
+            Thread sender = new Thread(() -> {
+                try {
+                    send(socket, "POST /count HTTP/1.1\r\nContent-Length: " + LARGE_UPLOAD + "\r\n\r\n");
+                    byte[] piece = new byte[64 * 1024];
+                    for (long sent = 0; sent < LARGE_UPLOAD; sent += piece.length) {
+                        socket.getOutputStream().write(piece, 0, (int) Math.min(piece.length, LARGE_UPLOAD - sent));
+                    }
+                    send(socket, "GET /hello/after HTTP/1.1\r\n\r\n");
+                } catch (IOException e) {
+                    System.out.println("Upload failed: " + e);
+                }
+            });
+            sender.start();
+            InputStream in = socket.getInputStream();
+            Check.equal(String.valueOf(LARGE_UPLOAD), readBody(in), "bytes of the large upload read by the servlet");
+            Check.equal("hello after", readBody(in), "connection kept alive after the large upload");
+            sender.join();
+        }
+    }
+
+    /**
+     * Requests with an invalid length or too large headers are answered with an error, and
+     * nothing after them is handled.
+     *
+     * @param port the port of the server
+     */
+    private static void rejected(int port) throws IOException {
+        try (Socket socket = connect(port)) {
+            send(socket, "POST /echo HTTP/1.1\r\nContent-Length: 4x\r\n\r\nGET /hello/a HTTP/1.1\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Check.equal("HTTP/1.1 400 Bad Request", readLine(in), "invalid Content-Length");
+            in.skipNBytes(readHeadLength(in));
+            Check.equal(-1, in.read(), "closed after the invalid Content-Length");
+        }
+        try (Socket socket = connect(port)) {
+            send(socket, "GET /hello/a HTTP/1.1\r\nX-Large: " + "x".repeat(RequestParser.MAX_HEAD_SIZE) + "\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Check.equal("HTTP/1.1 431 Request Header Fields Too Large", readLine(in), "too large headers");
+            in.skipNBytes(readHeadLength(in));
+            Check.equal(-1, in.read(), "closed after the too large headers");
+        }
+    }
+
+    /**
+     * A response much larger than the queue of a connection arrives whole when read slowly.
+     *
+     * @param port the port of the server
+     */
+    private static void largeResponse(int port) throws Exception {
+        try (Socket socket = connect(port)) {
+            socket.setReceiveBufferSize(16 * 1024);
+            send(socket, "GET /large HTTP/1.1\r\n\r\n");
+            Thread.sleep(500); // The servlet fills the queue and waits
+            String body = readBody(socket.getInputStream());
+            Check.equal(LARGE, body.length(), "length of the large response");
+            boolean intact = true;
+            for (int i = 0; i < body.length() && intact; i++) {
+                intact = body.charAt(i) == (char) ('a' + i % 26);
+            }
+            Check.that(intact, "content of the large response");
+            send(socket, "GET /hello/after HTTP/1.1\r\n\r\n");
+            Check.equal("hello after", readBody(socket.getInputStream()), "connection kept alive after the large response");
+        }
+    }
+
+    /**
+     * A connection waiting longer than the idle timeout is closed.
+     *
+     * @param port the port of the server
+     */
+    private static void idle(int port) throws IOException {
+        try (Socket socket = connect(port)) {
+            long start = System.nanoTime();
+            int read = socket.getInputStream().read();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Check.equal(-1, read, "idle connection closed");
+            Check.that(millis >= IDLE_TIMEOUT && millis < IDLE_TIMEOUT + 3000, "closed after the idle timeout: " + millis + " ms");
+        }
+    }
+
+    /**
+     * Opens a connection to the server.
+     *
+     * @param port the port of the server
+     * @return the connection
+     */
+    private static Socket connect(int port) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(10000);
+        return socket;
+    }
+
+    /**
+     * Sends text on a connection.
+     *
+     * @param socket the connection
+     * @param text the text to send
+     */
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    /**
+     * Reads a response with a {@code Content-Length} header and returns its body.
+     *
+     * @param in the stream of the connection
+     * @return the body of the response
+     */
+    private static String readBody(InputStream in) throws IOException {
+        int length = -1;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15))
+                length = Integer.parseInt(line.substring(15).trim());
+        }
+        if (length < 0)
+            throw new IOException("Response without a length");
+        byte[] body = in.readNBytes(length);
+        if (body.length < length)
+            throw new IOException("Response cut short");
+        return new String(body, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads the headers of a response, after its status line, and returns its length.
+     *
+     * @param in the stream of the connection
+     * @return the {@code Content-Length} of the response, or 0 without one
+     */
+    private static int readHeadLength(InputStream in) throws IOException {
+        int length = 0;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15))
+                length = Integer.parseInt(line.substring(15).trim());
+        }
+        return length;
+    }
+
+    /**
+     * Reads a line ending with CRLF.
+     *
+     * @param in the stream of the connection
+     * @return the line without its end
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0)
+                throw new IOException("Connection closed inside a line");
+            if (b != '\r')
+                line.write(b);
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes a response with a text body.
+     *
+     * @param toClient the stream of the response
+     * @param body the body
+     */
+    private static void respond(OutputStream toClient, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        toClient.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + bytes.length + "\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+        toClient.write(bytes);
+    }
+
+    /**
+     * Greets the name in its path.
+     */
+    private static final class Hello implements Servlet {
+        @Override
+        public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
+            respond(toClient, "hello " + ri.getPathParameter("name"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Answers with the body of the request.
+     */
+    private static final class Echo implements Servlet {
+        @Override
+        public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
+            respond(toClient, new String(ri.getContent(), StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Answers with the number of bytes of the body of the request, read as a stream.
+     */
+    private static final class Count implements Servlet {
+        @Override
+        public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
+            long count = ri.getBody().transferTo(OutputStream.nullOutputStream());
+            respond(toClient, String.valueOf(count));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Writes a response of {@link #LARGE} letters, in small writes.
+     */
+    private static final class Large implements Servlet {
+        @Override
+        public void handle(RequestInfo ri, OutputStream toClient) throws IOException {
+            toClient.write(("HTTP/1.1 200 OK\r\nContent-Length: " + LARGE + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            byte[] piece = new byte[1000];
+            for (int sent = 0; sent < LARGE; sent += piece.length) {
+                int n = Math.min(piece.length, LARGE - sent);
+                for (int i = 0; i < n; i++) {
+                    piece[i] = (byte) ('a' + (sent + i) % 26);
+                }
+                toClient.write(piece, 0, n);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package server;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import checks.Check;
+import server.RequestParser.RequestInfo;
+
+/**
+ * Checks that {@link RequestParser} reads the same requests from a stream, however it is
+ * split, and from a buffer, and that malformed requests are rejected.
+ */
+public class RequestParserCheck {
+
+    /**
+     * Pipelined requests: a query ending with {@code &}, a chunked upload, an HTTP/1.0 request and a bare line end.
+     */
+    private static final String REQUESTS = "GET /publish?topic=A%20b&message=1+2& HTTP/1.1\r\nHost: x\r\nConnection:  Close \r\n\r\n"
+            + "POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\nTrailer: t\r\n\r\n"
+            + "POST /form HTTP/1.0\r\nContent-Length: 3\r\nConnection: keep-alive\r\n\r\nabc"
+            + "GET /app/ HTTP/1.1\n\n";
+
+    public static void main(String[] args) throws IOException {
+        byte[] bytes = REQUESTS.getBytes(StandardCharsets.ISO_8859_1);
+        InputStream trickle = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1)); // One byte at a time
+            }
+        };
+        pipelined("stream", new RequestParser(new ByteArrayInputStream(bytes)));
+        pipelined("trickled stream", new RequestParser(trickle));
+        pipelined("buffer", new RequestParser(ByteBuffer.wrap(bytes)));
+        malformed();
+        Check.finish();
+    }
+
+    /**
+     * Reads {@link #REQUESTS} one after the other.
+     *
+     * @param source where the requests are read from, for the messages
+     * @param parser the parser of the requests
+     */
+    private static void pipelined(String source, RequestParser parser) throws IOException {
+        RequestInfo query = parser.next();
+        Check.equal("GET", query.getHttpCommand(), source + ": command");
+        Check.equal("A b", query.getParameters().get("topic"), source + ": decoded parameter");
+        Check.equal("1 2", query.getParameters().get("message"), source + ": plus in parameter");
+        Check.equal(2, query.getParameters().size(), source + ": trailing & skipped");
+        Check.equal("x", query.getHeader("HOST"), source + ": header name in any case");
+        Check.that(!query.isKeepAlive(), source + ": Connection: close");
+
+        RequestInfo chunked = parser.next();
+        Check.equal("hello world", new String(chunked.getContent(), StandardCharsets.ISO_8859_1), source + ": chunked body");
+        Check.that(chunked.isKeepAlive(), source + ": HTTP/1.1 is kept alive");
+
+        RequestInfo form = parser.next();
+        Check.equal("abc", new String(form.getContent(), StandardCharsets.ISO_8859_1), source + ": body by length");
+        Check.equal("HTTP/1.0", form.getHttpVersion(), source + ": version");
+        Check.that(form.isKeepAlive(), source + ": HTTP/1.0 with keep-alive");
+
+        RequestInfo bare = parser.next();
+        Check.equal("/app/", bare.getUri(), source + ": request ending with bare line ends");
+        Check.equal(null, parser.next(), source + ": end of the requests");
+    }
+
+    /**
+     * Requests the parser must refuse. A malformed body is only noticed once it is read.
+     */
+    private static void malformed() {
+        for (String request : List.of(
+                "PUT / HTTP/1.1\r\n\r\n",
+                "GET / HTTP/1.1\r\nContent-Length: x\r\n\r\n",
+                "GET /x?a&b=1 HTTP/1.1\r\n\r\n",
+                "GET /x HTTP/1.1")) {
+            Check.throwsException(IllegalArgumentException.class, () -> parse(request),
+                    "malformed request " + request.replace("\r\n", "\\r\\n"));
+        }
+        Check.throwsException(UncheckedIOException.class,
+                () -> parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n").getContent(),
+                "malformed chunk size");
+    }
+
+    /**
+     * Parses a single request.
+     *
+     * @param request the text of the request
+     * @return the request
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private static RequestInfo parse(String request) throws IOException {
+        return RequestParser.parseRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+}
@@ -0,0 +1,40 @@
+package server;
+
+import java.io.OutputStream;
+
+import checks.Check;
+import server.RequestParser.RequestInfo;
+import servlets.Servlet;
+
+/**
+ * Checks that {@link ServletRouter} finds servlets by command and path.
+ */
+public class ServletRouterCheck {
+
+    public static void main(String[] args) {
+        router();
+        Check.finish();
+    }
+
+    /**
+     * Path parameters are decoded, and a malformed percent-escape is refused.
+     */
+    private static void router() {
+        ServletRouter router = new ServletRouter();
+        Servlet servlet = new Servlet() {
+            @Override
+            public void handle(RequestInfo ri, OutputStream toClient) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        router.addServlet("GET", "/topics/{name}", servlet);
+        router.addServlet("GET", "/app/", servlet);
+        Check.equal("A b", router.find("GET", "/topics/A%20b").parameters().get("name"), "decoded path parameter");
+        Check.that(router.find("GET", "/app/index.html") != null, "longest prefix");
+        Check.equal(null, router.find("POST", "/app/index.html"), "no servlet for the command");
+        Check.throwsException(IllegalArgumentException.class, () -> router.find("GET", "/topics/%zz"), "malformed percent-escape");
+    }
+}